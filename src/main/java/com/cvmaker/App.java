@@ -1,12 +1,33 @@
 package com.cvmaker;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
 import com.cvmaker.configuration.ConfigManager;
+import com.cvmaker.service.ai.LLMClientRegistry;
+import com.cvmaker.service.ai.LLMTelemetry;
 
 public class App {
 
+    private static final int BENCHMARK_ITERATIONS = 10;
+
     public static void main(String[] args) {
         try {
-            generateFromConfig();
+            if (args.length > 1 && args[0].equals("--batch")) {
+                generateBatch(Arrays.asList(args).subList(1, args.length));
+            } else if (args.length > 1 && args[0].equals("--profiles")) {
+                generateForProfiles(Arrays.asList(args).subList(1, args.length));
+            } else if (args.length > 1 && args[0].equals("--pipeline")) {
+                generatePipeline(Paths.get(args[1]));
+            } else if (args.length > 1 && args[0].equals("--benchmark-renderers")) {
+                benchmarkRenderers(Arrays.asList(args).subList(1, args.length));
+            } else if (args.length > 0 && args[0].equals("--warm-templates")) {
+                warmTemplates();
+            } else {
+                generateFromConfig();
+            }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
             e.printStackTrace();
@@ -15,21 +36,83 @@ public class App {
     }
 
     private static void generateFromConfig() throws Exception {
-        System.out.println("=== CV Generator - Config File Mode ===");
+        runMode("Config File Mode", "Generation Complete", (config, generator) -> generator.generate());
+    }
+
+    /**
+     * Generate documents for every job URL/file given, as one offline batch job
+     */
+    private static void generateBatch(List<String> jobSources) throws Exception {
+        runMode("Batch Mode", "Batch Generation Complete",
+                (config, generator) -> generator.generateWithBatchJob(jobSources));
+    }
+
+    /**
+     * Generate documents for every candidate profile against every job URL/file given
+     */
+    private static void generateForProfiles(List<String> jobSources) throws Exception {
+        runMode("Multi-Profile Mode", "Multi-Profile Generation Complete", (config, generator) -> {
+            List<CandidateProfile> profiles = CandidateProfile.loadAll(
+                    Paths.get(config.getProfilesDirectory()), CandidateProfile.fromConfig(config));
+            if (profiles.isEmpty()) {
+                throw new IllegalStateException("No profiles found in " + config.getProfilesDirectory());
+            }
+            generator.generateForProfiles(profiles, jobSources);
+        });
+    }
+
+    /**
+     * Generate documents for every job in a directory or JSONL file through the staged pipeline
+     */
+    private static void generatePipeline(Path jobsSource) throws Exception {
+        runMode("Pipeline Mode", "Pipeline Generation Complete",
+                (config, generator) -> generator.generatePipeline(jobsSource));
+    }
+
+    /**
+     * Compare the iText renderer with the LaTeX compiler on the given .tex files
+     */
+    private static void benchmarkRenderers(List<String> texFiles) throws Exception {
+        runMode("Renderer Benchmark", "Renderer Benchmark Complete", (config, generator) ->
+                generator.benchmarkRenderers(texFiles.stream().map(Paths::get).toList(), BENCHMARK_ITERATIONS));
+    }
+
+    /**
+     * Precompile every template's format so the first run does not pay for it
+     */
+    private static void warmTemplates() throws Exception {
+        runMode("Template Warm-up", "Template Warm-up Complete",
+                (config, generator) -> generator.warmUpTemplates());
+    }
+
+    @FunctionalInterface
+    private interface Mode {
+        void run(ConfigManager config, CVGenerator generator) throws Exception;
+    }
+
+    /**
+     * Run one mode against a fresh generator, then shut everything down,
+     * write the telemetry summary and print the total time
+     */
+    private static void runMode(String name, String completion, Mode mode) throws Exception {
+        System.out.println("=== CV Generator - " + name + " ===");
 
         long startTime = System.currentTimeMillis();
 
         ConfigManager config = new ConfigManager();
         CVGenerator generator = new CVGenerator(config);
-
-        generator.generate();
+        try {
+            mode.run(config, generator);
+        } finally {
+            generator.shutdown();
+            LLMTelemetry.getInstance().dumpSummary(Paths.get("metrics"));
+            LLMClientRegistry.getInstance().shutdown();
+        }
 
         long endTime = System.currentTimeMillis();
 
-        generator.shutdown();
-
         System.out.println();
-        System.out.println("=== Generation Complete ===");
+        System.out.println("=== " + completion + " ===");
         System.out.println("Total time: " + formatDuration(endTime - startTime));
     }
 
@@ -1,16 +1,40 @@
 package com.cvmaker;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import com.cvmaker.JobDataFetcher.JobData;
 import com.cvmaker.configuration.ConfigManager;
+import com.cvmaker.render.ITextCvRenderer;
+import com.cvmaker.render.LatexCvParser;
 import com.cvmaker.service.ai.AiService;
+import com.cvmaker.service.ai.BatchJobClient;
+import com.cvmaker.service.ai.LLMRequest;
+import com.cvmaker.service.ai.LLMResponse;
+import com.cvmaker.service.ai.RequestPriority;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class CVGenerator {
 
@@ -18,12 +42,30 @@ public class CVGenerator {
     private final AiService aiService;
     private final JobDataFetcher jobDataFetcher;
     private final ConfigManager config;
+    private final LatexFormatCache formatCache;
+    private final PdfCompileCache pdfCache;
+    private final ITextCvRenderer itextRenderer;
 
     public CVGenerator(ConfigManager config) {
         this.config = config;
         this.templateLoader = new TemplateLoader(Paths.get(config.getTemplateDirectory()));
-        this.aiService = new AiService(config.getAiModel(), config.getAiTemperature());
+        this.aiService = new AiService(config.getAiModel(), config.getAiTemperature(), config.isAiCacheEnabledFor("cv"))
+                .setInputTokenBudget(config.getAiInputTokenBudget("cv"))
+                .setCallSite("cv")
+                .setPriority(RequestPriority.PIPELINE)
+                .setHedgeModel(config.getAiHedgeModel());
         this.jobDataFetcher = new JobDataFetcher();
+        this.formatCache = new LatexFormatCache(templateLoader, config.getLatexCompiler());
+        this.pdfCache = config.isLatexCompileCacheEnabled()
+                ? PdfCompileCache.open(Paths.get(config.getLatexCompileCacheDirectory()), config.getLatexCompileCacheMaxEntries(),
+                        config.getLatexCompileCacheMaxMb() * 1024L * 1024L, config.isLatexCompileCacheHardLinks())
+                : null;
+        ITextCvRenderer.Template itextTemplate = ITextCvRenderer.Template.forName(config.getItextTemplateName());
+        if (config.isItextRenderEnabled() && itextTemplate == null) {
+            System.out.printf("⚠️ No iText layout for template '%s', compiling with %s instead\n",
+                    config.getItextTemplateName(), config.getLatexCompiler());
+        }
+        this.itextRenderer = itextTemplate != null ? new ITextCvRenderer(itextTemplate) : null;
     }
 
     /**
@@ -58,13 +100,8 @@ public class CVGenerator {
         String outputDir = createOutputDirectory(jobData.getJobName());
         System.out.println("Output directory: " + Paths.get(outputDir).toAbsolutePath());
 
-        // Generate CV
-        generateCV(outputDir, config.getOutputPdfName());
-
-        // Generate cover letter if enabled
-        if (config.isGenerateCoverLetter()) {
-            generateCoverLetter(outputDir, config.getCoverLetterPdfName());
-        }
+        // Generate CV and, if enabled, cover letter
+        generateDocuments(outputDir);
 
         System.out.println("Generation completed for: " + jobData.getJobTitle() + " at " + jobData.getCompanyName());
     }
@@ -77,89 +114,418 @@ public class CVGenerator {
 
         String outputDir = createOutputDirectory();
 
-        // Generate CV
-        generateCV(outputDir, config.getOutputPdfName());
+        // Generate CV and, if enabled, cover letter
+        generateDocuments(outputDir);
+    }
+
+    private void generateDocuments(String outputDir) throws Exception {
+        // Load templates if specified
+        generateDocuments(CandidateProfile.fromConfig(config), config.getJobDescriptionContent(),
+                loadTemplate(config.getTemplateName(), false),
+                config.isGenerateCoverLetter() ? loadTemplate(config.getTemplateName(), true) : null,
+                outputDir);
+    }
+
+    /**
+     * Generate the CV and, if enabled, the cover letter at the same time.
+     * The two are independent, so one failing does not stop the other.
+     * Intermediate files are cleaned up once both are done, and failures are
+     * thrown together afterwards.
+     */
+    private void generateDocuments(CandidateProfile profile, String jobDescription, String cvTemplate,
+            String coverLetterTemplate, String outputDir) throws Exception {
+        Map<String, Future<?>> documents = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            documents.put("CV", executor.submit(() -> {
+                generateCV(profile, jobDescription, cvTemplate, outputDir, config.getOutputPdfName());
+                return null;
+            }));
+            if (config.isGenerateCoverLetter()) {
+                documents.put("Cover letter", executor.submit(() -> {
+                    generateCoverLetter(profile, jobDescription, coverLetterTemplate, outputDir, config.getCoverLetterPdfName());
+                    return null;
+                }));
+            }
+        }
+
+        // Clean up intermediate files if not in debug mode
+        if (!config.isSaveGeneratedLatex()) {
+            Path outputDirPath = Paths.get(outputDir);
+            cleanupIntermediateFiles(outputDirPath, getBaseName(outputDirPath.resolve(config.getCvTexFilename())));
+            cleanupIntermediateFiles(outputDirPath, getBaseName(outputDirPath.resolve(config.getCoverLetterTexFilename())));
+        }
 
-        // Generate cover letter if enabled
-        if (config.isGenerateCoverLetter()) {
-            generateCoverLetter(outputDir, config.getCoverLetterPdfName());
+        List<String> failures = new ArrayList<>();
+        Exception firstFailure = null;
+        for (Map.Entry<String, Future<?>> document : documents.entrySet()) {
+            try {
+                document.getValue().get();
+            } catch (ExecutionException e) {
+                System.err.println("❌ " + document.getKey() + " generation failed: " + e.getCause().getMessage());
+                failures.add(document.getKey() + ": " + e.getCause().getMessage());
+                firstFailure = firstFailure != null ? firstFailure : e;
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new RuntimeException("Document generation failed - " + String.join("; ", failures), firstFailure.getCause());
         }
     }
 
     /**
      * Generate CV
      */
-    private void generateCV(String outputDir, String pdfName) throws Exception {
+    private void generateCV(CandidateProfile profile, String jobDescription, String referenceTemplate,
+            String outputDir, String pdfName) throws Exception {
         System.out.println("Generating CV...");
 
-        // Load template if specified
-        String referenceTemplate = loadTemplate(config.getTemplateName(), false);
+        Path outputDirPath = Paths.get(outputDir);
+        Path texOutputPath = outputDirPath.resolve(config.getCvTexFilename());
 
-        // Generate LaTeX with AI
+        // Generate LaTeX with AI, writing the .tex as tokens arrive
         System.out.println("Generating CV LaTeX with AI...");
-        String generatedLatex = aiService.generateDirectLatexCV(
-                config.getUserDataContent(),
-                referenceTemplate,
-                config.getJobDescriptionContent(),
-                config.getCvPromptContent()
-        );
-
-        // Save and compile
+        String generatedLatex = generateLatex(profile, jobDescription, referenceTemplate, texOutputPath, false);
+
+        // Replace the raw stream with the cleaned LaTeX and compile
+        writeAndCompile(outputDirPath, texOutputPath, generatedLatex, pdfName, "CV", false);
+    }
+
+    /**
+     * Generate cover letter
+     */
+    private void generateCoverLetter(CandidateProfile profile, String jobDescription, String referenceTemplate,
+            String outputDir, String pdfName) throws Exception {
+        System.out.println("Generating cover letter...");
+
         Path outputDirPath = Paths.get(outputDir);
-        Path texOutputPath = outputDirPath.resolve(config.getCvTexFilename());
-        Files.writeString(texOutputPath, generatedLatex);
+        Path texOutputPath = outputDirPath.resolve(config.getCoverLetterTexFilename());
 
-        if (config.isSaveGeneratedLatex()) {
-            System.out.println("LaTeX saved: " + texOutputPath.toAbsolutePath());
+        // Generate LaTeX with AI, writing the .tex as tokens arrive
+        System.out.println("Generating cover letter LaTeX with AI...");
+        String generatedLatex = generateLatex(profile, jobDescription, referenceTemplate, texOutputPath, true);
+
+        // Replace the raw stream with the cleaned LaTeX and compile
+        writeAndCompile(outputDirPath, texOutputPath, generatedLatex, pdfName, "Cover letter", true);
+    }
+
+    /**
+     * Stream a document's LaTeX from the AI into {@code texOutputPath} and
+     * return the cleaned result
+     */
+    private String generateLatex(CandidateProfile profile, String jobDescription, String referenceTemplate,
+            Path texOutputPath, boolean isCoverLetter) throws Exception {
+        try (BufferedWriter texWriter = Files.newBufferedWriter(texOutputPath)) {
+            if (isCoverLetter) {
+                return aiService.generateDirectLatexCoverLetterStreaming(
+                        profile.getUserDataContent(),
+                        referenceTemplate,
+                        jobDescription,
+                        profile.getCoverLetterPromptContent(),
+                        token -> appendToken(texWriter, token)
+                );
+            }
+            return aiService.generateDirectLatexCVStreaming(
+                    profile.getUserDataContent(),
+                    referenceTemplate,
+                    jobDescription,
+                    profile.getCvPromptContent(),
+                    token -> appendToken(texWriter, token)
+            );
         }
+    }
 
-        System.out.println("Compiling CV to PDF...");
-        compileLatexWithProgress(outputDirPath, texOutputPath, pdfName);
+    /**
+     * Generate documents for every job in a directory (one job description
+     * file each) or a JSONL file, in one run. Jobs flow through four stages
+     * - fetch, generate, compile, cleanup - each with its own worker pool
+     * sized for its work: generation waits on the LLM so runs wide on
+     * virtual threads, compilation is CPU-bound so gets about a core per
+     * worker. Bounded queues between stages hold back a fast stage when the
+     * next one falls behind. A report of throughput per stage is printed and
+     * written to the metrics directory at the end.
+     */
+    public void generatePipeline(Path jobsSource) throws Exception {
+        List<JobInput> inputs = readJobInputs(jobsSource);
+        System.out.printf("🏭 Pipeline: %d jobs from %s\n", inputs.size(), jobsSource);
+
+        CandidateProfile profile = CandidateProfile.fromConfig(config);
+        String cvTemplate = loadTemplate(config.getTemplateName(), false);
+        String coverLetterTemplate = config.isGenerateCoverLetter() ? loadTemplate(config.getTemplateName(), true) : null;
+        int queueCapacity = config.getPipelineQueueCapacity();
+        int compileWorkers = config.getPipelineCompileWorkers() > 0
+                ? config.getPipelineCompileWorkers() : Runtime.getRuntime().availableProcessors();
+
+        PipelineStage<JobInput, PipelineDocument> fetch = new PipelineStage<>("fetch", config.getPipelineFetchWorkers(),
+                queueCapacity, Thread.ofVirtual().factory(), input -> {
+                    JobData job = input.description() != null
+                            ? new JobData(input.title(), input.company(), input.description())
+                            : jobDataFetcher.fetchJobData(input.source());
+                    Path outputDir = Paths.get(config.getOutputDirectory(), String.format("%03d-%s", input.index(), job.getJobName()));
+                    Files.createDirectories(outputDir);
+                    List<PipelineDocument> documents = new ArrayList<>();
+                    documents.add(new PipelineDocument(job, outputDir, false));
+                    if (config.isGenerateCoverLetter()) {
+                        documents.add(new PipelineDocument(job, outputDir, true));
+                    }
+                    return documents;
+                });
+        PipelineStage<PipelineDocument, PipelineDocument> generate = new PipelineStage<>("generate",
+                config.getPipelineGenerateWorkers(), queueCapacity, Thread.ofVirtual().factory(), document -> {
+                    Path texOutputPath = document.texPath(config);
+                    String latex = generateLatex(profile, document.job().getJobDescription(),
+                            document.isCoverLetter() ? coverLetterTemplate : cvTemplate, texOutputPath, document.isCoverLetter());
+                    Files.writeString(texOutputPath, latex);
+                    return List.of(document);
+                });
+        PipelineStage<PipelineDocument, PipelineDocument> compile = new PipelineStage<>("compile",
+                compileWorkers, queueCapacity, Thread.ofPlatform().factory(), document -> {
+                    compileLatexWithProgress(document.outputDir(), document.texPath(config),
+                            document.isCoverLetter() ? config.getCoverLetterPdfName() : config.getOutputPdfName(),
+                            document.isCoverLetter());
+                    return List.of(document);
+                });
+        PipelineStage<PipelineDocument, PipelineDocument> cleanup = new PipelineStage<>("cleanup",
+                config.getPipelineCleanupWorkers(), queueCapacity, Thread.ofPlatform().factory(), document -> {
+                    if (!config.isSaveGeneratedLatex()) {
+                        cleanupIntermediateFiles(document.outputDir(), getBaseName(document.texPath(config)));
+                    }
+                    System.out.println("✅ " + document);
+                    return List.of();
+                });
+        fetch.then(generate).then(compile).then(cleanup);
+        List<PipelineStage<?, ?>> stages = List.of(fetch, generate, compile, cleanup);
+
+        long start = System.currentTimeMillis();
+        stages.forEach(PipelineStage::start);
+        for (JobInput input : inputs) {
+            fetch.submit(input);
+        }
+        fetch.finish();
+        for (PipelineStage<?, ?> stage : stages) {
+            stage.await();
+        }
 
-        // Clean up intermediate files if not in debug mode
-        if (!config.isSaveGeneratedLatex()) {
-            cleanupIntermediateFiles(outputDirPath, getBaseName(texOutputPath));
+        PipelineStage.report(stages, System.currentTimeMillis() - start, Paths.get("metrics"));
+        long documents = generate.getProcessed() + generate.getFailed();
+        System.out.printf("%s %d/%d documents generated, %d jobs could not be fetched\n",
+                cleanup.getProcessed() == documents && fetch.getFailed() == 0 ? "✅" : "⚠️",
+                cleanup.getProcessed(), documents, fetch.getFailed());
+    }
+
+    /**
+     * Jobs from a directory (one job description file each) or a JSONL
+     * file whose lines hold either
+     * {@code "source"} (a URL or file) or {@code "description"} with
+     * optional {@code "title"} and {@code "company"}.
+     */
+    private List<JobInput> readJobInputs(Path jobsSource) throws IOException {
+        List<JobInput> inputs = new ArrayList<>();
+        if (Files.isDirectory(jobsSource)) {
+            try (Stream<Path> files = Files.list(jobsSource)) {
+                for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    inputs.add(new JobInput(inputs.size(), file.toString(), null, null, null));
+                }
+            }
+            return inputs;
+        }
+        if (!jobsSource.getFileName().toString().endsWith(".jsonl")) {
+            throw new IllegalArgumentException("Pipeline input must be a directory or a .jsonl file: " + jobsSource);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String line : Files.readAllLines(jobsSource)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode entry = objectMapper.readTree(line);
+            if (entry.hasNonNull("description")) {
+                inputs.add(new JobInput(inputs.size(), null, entry.path("title").asText("Software Developer"),
+                        entry.path("company").asText("Unknown Company"), entry.get("description").asText()));
+            } else if (entry.hasNonNull("source")) {
+                inputs.add(new JobInput(inputs.size(), entry.get("source").asText(), null, null, null));
+            } else {
+                System.err.println("Skipping pipeline entry with no source or description: " + line);
+            }
+        }
+        return inputs;
+    }
+
+    private record JobInput(int index, String source, String title, String company, String description) {
+
+        @Override
+        public String toString() {
+            return source != null ? source : "job " + index + " (" + title + " at " + company + ")";
+        }
+    }
+
+    private record PipelineDocument(JobData job, Path outputDir, boolean isCoverLetter) {
+
+        Path texPath(ConfigManager config) {
+            return outputDir.resolve(isCoverLetter ? config.getCoverLetterTexFilename() : config.getCvTexFilename());
         }
 
-        System.out.println("CV generated: " + outputDirPath.resolve(pdfName).toAbsolutePath());
+        @Override
+        public String toString() {
+            return outputDir.getFileName() + (isCoverLetter ? " cover letter" : " CV");
+        }
     }
 
     /**
-     * Generate cover letter
+     * Generate documents for every profile against every job, into
+     * {@code <output>/<profile>/<job>}. Jobs are fetched and templates loaded
+     * once for all profiles. Work is queued one job per profile in turn and
+     * at most {@code output.max_concurrent_jobs} jobs run at once, so a
+     * profile with many jobs cannot hold up the others.
      */
-    private void generateCoverLetter(String outputDir, String pdfName) throws Exception {
-        System.out.println("Generating cover letter...");
+    public void generateForProfiles(List<CandidateProfile> profiles, List<String> jobSources) throws Exception {
+        System.out.printf("Generating for %d profiles across %d jobs...\n", profiles.size(), jobSources.size());
 
-        // Load template if specified
-        String referenceTemplate = loadTemplate(config.getTemplateName(), true);
+        String cvTemplate = loadTemplate(config.getTemplateName(), false);
+        String coverLetterTemplate = config.isGenerateCoverLetter() ? loadTemplate(config.getTemplateName(), true) : null;
 
-        // Generate LaTeX with AI
-        System.out.println("Generating cover letter LaTeX with AI...");
-        String generatedLatex = aiService.generateDirectLatexCoverLetter(
-                config.getUserDataContent(),
-                referenceTemplate,
-                config.getJobDescriptionContent(),
-                config.getCoverLetterPromptContent()
-        );
-
-        // Save and compile
-        Path outputDirPath = Paths.get(outputDir);
-        Path texOutputPath = outputDirPath.resolve(config.getCoverLetterTexFilename());
-        Files.writeString(texOutputPath, generatedLatex);
+        List<JobData> jobs = new ArrayList<>();
+        for (String source : jobSources) {
+            try {
+                jobs.add(jobDataFetcher.fetchJobData(source));
+            } catch (Exception e) {
+                System.err.println("Skipping " + source + ": " + e.getMessage());
+            }
+        }
+
+        // Round robin: every profile's first job, then every profile's second, ...
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        List<CandidateProfile> taskProfiles = new ArrayList<>();
+        for (JobData job : jobs) {
+            for (CandidateProfile profile : profiles) {
+                taskProfiles.add(profile);
+                tasks.add(() -> generateForProfile(profile, job, cvTemplate, coverLetterTemplate));
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(config.getMaxConcurrentJobs(), Thread.ofVirtual().factory());
+        Map<String, int[]> results = new LinkedHashMap<>();
+        profiles.forEach(profile -> results.put(profile.getName(), new int[2]));
+        try {
+            List<Future<Boolean>> outcomes = pool.invokeAll(tasks);
+            for (int i = 0; i < outcomes.size(); i++) {
+                int[] counts = results.get(taskProfiles.get(i).getName());
+                counts[1]++;
+                if (outcomes.get(i).get()) {
+                    counts[0]++;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        results.forEach((name, counts) -> System.out.printf("%s %s: %d/%d jobs generated\n",
+                counts[0] == counts[1] ? "✅" : "⚠️", name, counts[0], counts[1]));
+    }
+
+    /**
+     * One profile's documents for one job; failures are reported, not thrown.
+     */
+    private boolean generateForProfile(CandidateProfile profile, JobData job, String cvTemplate, String coverLetterTemplate) {
+        try {
+            Path outputDirPath = Paths.get(config.getOutputDirectory(), profile.getName(), job.getJobName());
+            Files.createDirectories(outputDirPath);
+            generateDocuments(profile, job.getJobDescription(), cvTemplate, coverLetterTemplate, outputDirPath.toString());
+            return true;
+        } catch (Exception e) {
+            System.err.printf("Failed to generate %s for %s: %s\n", job.getJobName(), profile.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Generate CVs (and cover letters) for many jobs as one offline batch job.
+     * Slower to come back than interactive generation but far cheaper, so
+     * meant for backfills rather than a single application.
+     */
+    public void generateWithBatchJob(List<String> jobSources) throws Exception {
+        System.out.println("Preparing batch generation for " + jobSources.size() + " jobs...");
+
+        String cvTemplate = loadTemplate(config.getTemplateName(), false);
+        String coverLetterTemplate = config.isGenerateCoverLetter() ? loadTemplate(config.getTemplateName(), true) : null;
+
+        Map<String, LLMRequest> requests = new LinkedHashMap<>();
+        Map<String, String> outputDirs = new HashMap<>();
+        for (String source : jobSources) {
+            JobData jobData;
+            try {
+                jobData = jobDataFetcher.fetchJobData(source);
+            } catch (Exception e) {
+                System.err.println("Skipping " + source + ": " + e.getMessage());
+                continue;
+            }
+
+            String jobId = outputDirs.size() + "-" + jobData.getJobName();
+            outputDirs.put(jobId, createOutputDirectory(jobData.getJobName()));
+
+            requests.put(jobId + "#cv", aiService.createCvRequest(
+                    config.getUserDataContent(), cvTemplate, jobData.getJobDescription(), config.getCvPromptContent()));
+            if (coverLetterTemplate != null) {
+                requests.put(jobId + "#cover", aiService.createCoverLetterRequest(
+                        config.getUserDataContent(), coverLetterTemplate, jobData.getJobDescription(), config.getCoverLetterPromptContent()));
+            }
+        }
+
+        BatchJobClient batchClient = BatchJobClient.forEndpoint(config.getAiBatchEndpoint());
+        Map<String, LLMResponse> responses = batchClient.run(requests);
+
+        for (String key : requests.keySet()) {
+            String jobId = key.substring(0, key.lastIndexOf('#'));
+            boolean isCv = key.endsWith("#cv");
+            LLMResponse response = responses.get(key);
+            if (response == null) {
+                System.err.println("No batch result for " + key + ", skipping");
+                continue;
+            }
+
+            Path outputDirPath = Paths.get(outputDirs.get(jobId));
+            Path texOutputPath = outputDirPath.resolve(isCv ? config.getCvTexFilename() : config.getCoverLetterTexFilename());
+            try {
+                writeAndCompile(outputDirPath, texOutputPath,
+                        aiService.extractLatexFromResponse(response.getContent()),
+                        isCv ? config.getOutputPdfName() : config.getCoverLetterPdfName(),
+                        isCv ? "CV" : "Cover letter", !isCv);
+                if (!config.isSaveGeneratedLatex()) {
+                    cleanupIntermediateFiles(outputDirPath, getBaseName(texOutputPath));
+                }
+            } catch (Exception e) {
+                System.err.println("Failed to compile " + key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write the final LaTeX and compile it; callers clean up afterwards
+     */
+    private void writeAndCompile(Path outputDirPath, Path texOutputPath, String latex, String pdfName, String label,
+            boolean isCoverLetter) throws IOException, InterruptedException {
+        Files.writeString(texOutputPath, latex);
 
         if (config.isSaveGeneratedLatex()) {
             System.out.println("LaTeX saved: " + texOutputPath.toAbsolutePath());
         }
 
-        System.out.println("Compiling cover letter to PDF...");
-        compileLatexWithProgress(outputDirPath, texOutputPath, pdfName);
+        System.out.println("Compiling " + label.toLowerCase() + " to PDF...");
+        compileLatexWithProgress(outputDirPath, texOutputPath, pdfName, isCoverLetter);
 
-        // Clean up intermediate files if not in debug mode
-        if (!config.isSaveGeneratedLatex()) {
-            cleanupIntermediateFiles(outputDirPath, getBaseName(texOutputPath));
-        }
+        System.out.println(label + " generated: " + outputDirPath.resolve(pdfName).toAbsolutePath());
+    }
 
-        System.out.println("Cover letter generated: " + outputDirPath.resolve(pdfName).toAbsolutePath());
+    /**
+     * Append a streamed token to the partially written .tex file
+     */
+    private void appendToken(BufferedWriter writer, String token) {
+        try {
+            writer.write(token);
+            if (token.indexOf('\n') >= 0) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
@@ -229,17 +595,196 @@ public class CVGenerator {
     }
 
     /**
-     * Compile LaTeX to PDF with progress tracking
+     * Build the precompiled formats for every template ahead of a run
+     */
+    public void warmUpTemplates() throws IOException {
+        formatCache.warmUp(templateLoader.getTemplatesRoot());
+    }
+
+    /**
+     * Compile LaTeX to PDF with progress tracking. When the document opens
+     * with its template's package loading, that part comes from the
+     * template's precompiled format; otherwise, or if that compile produces
+     * nothing, the document is compiled in full. LaTeX compiled before with
+     * the same compiler and args is served from the PDF cache instead. With
+     * {@code render.engine=itext} the document is laid out in-process instead,
+     * if there is an iText layout for the template.
      */
-    private void compileLatexWithProgress(Path dir, Path texFile, String outputPdfName) throws IOException, InterruptedException {
+    private void compileLatexWithProgress(Path dir, Path texFile, String outputPdfName, boolean isCoverLetter)
+            throws IOException, InterruptedException {
+        if (config.isItextRenderEnabled() && itextRenderer != null) {
+            long start = System.currentTimeMillis();
+            itextRenderer.render(LatexCvParser.parse(Files.readString(texFile)), dir.resolve(outputPdfName));
+            System.out.printf("   ⚡ Rendered with iText in %d ms\n", System.currentTimeMillis() - start);
+            return;
+        }
+
         String texFileName = texFile.getFileName().toString();
-        // Build command array: compiler + args + tex file
-        java.util.List<String> command = new java.util.ArrayList<>();
+        String cacheKey = null;
+        if (pdfCache != null) {
+            cacheKey = PdfCompileCache.keyFor(Files.readString(texFile), config.getLatexCompiler(), config.getLatexCompilerArgs());
+            if (pdfCache.serve(cacheKey, dir.resolve(outputPdfName))) {
+                System.out.println("   ♻️ Unchanged LaTeX, reused the cached PDF");
+                return;
+            }
+        }
+
+        String baseName = getBaseName(texFile);
+        String pdfFileName = baseName + ".pdf";
+        Path pdfPath = dir.resolve(pdfFileName);
+        Files.deleteIfExists(pdfPath);
+
+        CompileRun run = null;
+        if (config.isLatexPrecompiledFormats() && config.getTemplateName() != null && !config.getTemplateName().isBlank()) {
+            run = compileWithFormat(dir, texFile, baseName, isCoverLetter);
+        }
+        if (run == null || !Files.exists(pdfPath)) {
+            // Build command array: compiler + args + tex file
+            List<String> command = new ArrayList<>();
+            command.add(config.getLatexCompiler());
+            command.addAll(config.getLatexCompilerArgs());
+            command.add(texFileName);
+            run = runCompiler(new ProcessBuilder(command), dir);
+        }
+
+        // Check if PDF was generated
+        boolean pdfExists = Files.exists(pdfPath);
+
+        if (run.exitCode() != 0 && !pdfExists) {
+            if (config.isSaveAiResponses()) {
+                System.out.println("LaTeX compilation output:");
+                System.out.println(run.output());
+            }
+            throw new RuntimeException("LaTeX compilation failed");
+        }
+
+        if (pdfExists) {
+            if (!pdfFileName.equals(outputPdfName)) {
+                Files.move(pdfPath, dir.resolve(outputPdfName), StandardCopyOption.REPLACE_EXISTING);
+            }
+            // A PDF from a run with errors may be missing fonts or packages; don't keep it
+            if (pdfCache != null && run.exitCode() == 0) {
+                pdfCache.store(cacheKey, dir.resolve(outputPdfName));
+            }
+        } else {
+            throw new RuntimeException("PDF file was not generated");
+        }
+    }
+
+    /**
+     * Compile the document minus the preamble already in its template's
+     * format; null if there is no usable format for it.
+     */
+    private CompileRun compileWithFormat(Path dir, Path texFile, String baseName, boolean isCoverLetter)
+            throws IOException, InterruptedException {
+        LatexFormatCache.Format format = formatCache.formatFor(config.getTemplateName(), isCoverLetter);
+        String body = format != null ? format.stripDumpedPreamble(Files.readString(texFile)) : null;
+        if (body == null) {
+            formatCache.recordUse(false);
+            return null;
+        }
+
+        Path bodyFile = dir.resolve(baseName + ".body.tex");
+        Files.writeString(bodyFile, body);
+        try {
+            List<String> command = new ArrayList<>();
+            command.add(config.getLatexCompiler());
+            command.add("-fmt=" + format.name());
+            command.addAll(config.getLatexCompilerArgs());
+            command.add("-jobname=" + baseName);
+            command.add(bodyFile.getFileName().toString());
+            ProcessBuilder pb = new ProcessBuilder(command);
+            // Trailing separator keeps the compiler's own format directories searched too
+            pb.environment().put("TEXFORMATS", format.directory().toAbsolutePath() + File.pathSeparator);
+
+            CompileRun run = runCompiler(pb, dir);
+            boolean produced = Files.exists(dir.resolve(baseName + ".pdf"));
+            formatCache.recordUse(produced);
+            if (!produced) {
+                System.out.println("   ⚠️ Precompiled format did not produce a PDF, compiling in full");
+            }
+            return run;
+        } finally {
+            Files.deleteIfExists(bodyFile);
+        }
+    }
+
+    /**
+     * Time the iText renderer against a full LaTeX compile of the same .tex
+     * files, {@code iterations} timed runs each. iText gets a longer untimed
+     * warm-up so it is measured at the JIT-compiled speed a bulk run sees.
+     * Runs in a temporary directory, bypassing the format and PDF caches.
+     */
+    public void benchmarkRenderers(List<Path> texFiles, int iterations) throws Exception {
+        ITextCvRenderer renderer = itextRenderer != null ? itextRenderer : new ITextCvRenderer(ITextCvRenderer.Template.CLASSIC);
+        System.out.printf("⏱️ Benchmarking iText (%s layout) against %s, %d runs each\n",
+                renderer.getTemplate().name().toLowerCase(), config.getLatexCompiler(), iterations);
+        List<String> command = new ArrayList<>();
         command.add(config.getLatexCompiler());
         command.addAll(config.getLatexCompilerArgs());
-        command.add(texFileName);
-        ProcessBuilder pb = new ProcessBuilder(command);
+        command.add("benchmark.tex");
+
+        for (Path texFile : texFiles) {
+            String latex = Files.readString(texFile);
+            Path workDir = Files.createTempDirectory("cvmaker-benchmark");
+            try {
+                Files.writeString(workDir.resolve("benchmark.tex"), latex);
+                double[] itext = time(5 * iterations, iterations,
+                        () -> renderer.render(LatexCvParser.parse(latex), workDir.resolve("itext.pdf")));
+
+                double[] compiled = null;
+                try {
+                    compiled = time(1, iterations, () -> {
+                        Files.deleteIfExists(workDir.resolve("benchmark.pdf"));
+                        CompileRun run = runCompiler(new ProcessBuilder(command), workDir);
+                        if (!Files.exists(workDir.resolve("benchmark.pdf"))) {
+                            throw new RuntimeException("LaTeX compilation failed (exit code " + run.exitCode() + ")");
+                        }
+                    });
+                } catch (Exception e) {
+                    System.out.println("   " + config.getLatexCompiler() + " unavailable: " + e.getMessage());
+                }
+
+                if (compiled != null) {
+                    System.out.printf("   %s: iText p50 %.1f ms (mean %.1f) | %s p50 %.0f ms (mean %.0f) | %.0fx faster\n",
+                            texFile.getFileName(), itext[0], itext[1], config.getLatexCompiler(), compiled[0], compiled[1],
+                            compiled[0] / Math.max(itext[0], 0.01));
+                } else {
+                    System.out.printf("   %s: iText p50 %.1f ms (mean %.1f)\n", texFile.getFileName(), itext[0], itext[1]);
+                }
+            } finally {
+                try (Stream<Path> files = Files.walk(workDir)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        }
+    }
+
+    private interface Timed {
+        void run() throws Exception;
+    }
 
+    /**
+     * Median and mean milliseconds over {@code iterations} runs, after {@code warmups} untimed ones.
+     */
+    private static double[] time(int warmups, int iterations, Timed work) throws Exception {
+        for (int i = 0; i < warmups; i++) {
+            work.run();
+        }
+        double[] millis = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            work.run();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        double mean = Arrays.stream(millis).average().orElse(0);
+        Arrays.sort(millis);
+        return new double[]{millis[iterations / 2], mean};
+    }
+
+    private CompileRun runCompiler(ProcessBuilder pb, Path dir) throws IOException, InterruptedException {
         pb.redirectErrorStream(true);
         pb.directory(dir.toFile());
 
@@ -263,28 +808,10 @@ public class CVGenerator {
             }
         }
 
-        int exitCode = proc.waitFor();
-
-        // Check if PDF was generated
-        String pdfFileName = texFileName.replace(".tex", ".pdf");
-        Path pdfPath = dir.resolve(pdfFileName);
-        boolean pdfExists = Files.exists(pdfPath);
-
-        if (exitCode != 0 && !pdfExists) {
-            if (config.isSaveAiResponses()) {
-                System.out.println("LaTeX compilation output:");
-                System.out.println(output.toString());
-            }
-            throw new RuntimeException("LaTeX compilation failed");
-        }
+        return new CompileRun(proc.waitFor(), output.toString());
+    }
 
-        if (pdfExists) {
-            if (!pdfFileName.equals(outputPdfName)) {
-                Files.move(pdfPath, dir.resolve(outputPdfName), StandardCopyOption.REPLACE_EXISTING);
-            }
-        } else {
-            throw new RuntimeException("PDF file was not generated");
-        }
+    private record CompileRun(int exitCode, String output) {
     }
 
     // Getters
@@ -305,6 +832,11 @@ public class CVGenerator {
     }
 
     public void shutdown() {
+        if (pdfCache != null && pdfCache.getHits() + pdfCache.getMisses() > 0) {
+            System.out.printf("♻️ PDF cache: %d/%d compiles skipped (%.0f%% hit rate), %d entries, %.1f MB\n",
+                    pdfCache.getHits(), pdfCache.getHits() + pdfCache.getMisses(), pdfCache.getHitRate() * 100,
+                    pdfCache.getEntries(), pdfCache.getSizeBytes() / (1024.0 * 1024.0));
+        }
         if (aiService != null) {
             aiService.shutdown();
         }
@@ -0,0 +1,102 @@
+package com.cvmaker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.cvmaker.configuration.ConfigManager;
+
+/**
+ * One candidate's inputs: their data and the prompts used for their
+ * documents. Read once and never modified, so a single instance is shared
+ * by every job generated for that candidate.
+ */
+public final class CandidateProfile {
+
+    public static final String USER_DATA_FILE = "userdata.txt";
+    public static final String CV_PROMPT_FILE = "cv_prompt.txt";
+    public static final String COVER_LETTER_PROMPT_FILE = "cover_letter_prompt.txt";
+
+    private final String name;
+    private final String userDataContent;
+    private final String cvPromptContent;
+    private final String coverLetterPromptContent;
+
+    public CandidateProfile(String name, String userDataContent, String cvPromptContent, String coverLetterPromptContent) {
+        this.name = name;
+        this.userDataContent = userDataContent;
+        this.cvPromptContent = cvPromptContent;
+        this.coverLetterPromptContent = coverLetterPromptContent;
+    }
+
+    /**
+     * The single profile described by the input files in the configuration.
+     */
+    public static CandidateProfile fromConfig(ConfigManager config) {
+        return new CandidateProfile("default", config.getUserDataContent(), config.getCvPromptContent(),
+                config.getCoverLetterPromptContent());
+    }
+
+    /**
+     * Load a profile from a directory holding {@value #USER_DATA_FILE} and,
+     * optionally, its own prompts; missing prompts fall back to
+     * {@code defaults}. The profile is named after the directory.
+     */
+    public static CandidateProfile load(Path directory, CandidateProfile defaults) throws IOException {
+        Path userData = directory.resolve(USER_DATA_FILE);
+        if (!Files.exists(userData)) {
+            throw new IOException("User data file not found: " + userData);
+        }
+        return new CandidateProfile(
+                directory.getFileName().toString(),
+                Files.readString(userData),
+                readOptional(directory.resolve(CV_PROMPT_FILE), defaults.cvPromptContent),
+                readOptional(directory.resolve(COVER_LETTER_PROMPT_FILE), defaults.coverLetterPromptContent));
+    }
+
+    /**
+     * Every profile under {@code profilesDirectory}, one per subdirectory with
+     * a {@value #USER_DATA_FILE}, in name order.
+     */
+    public static List<CandidateProfile> loadAll(Path profilesDirectory, CandidateProfile defaults) throws IOException {
+        List<CandidateProfile> profiles = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(profilesDirectory)) {
+            for (Path directory : entries.filter(Files::isDirectory).sorted().toList()) {
+                if (Files.exists(directory.resolve(USER_DATA_FILE))) {
+                    profiles.add(load(directory, defaults));
+                } else {
+                    System.out.println("Warning: Skipping " + directory + ", no " + USER_DATA_FILE);
+                }
+            }
+        }
+        return profiles;
+    }
+
+    private static String readOptional(Path path, String fallback) throws IOException {
+        return Files.exists(path) ? Files.readString(path) : fallback;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUserDataContent() {
+        return userDataContent;
+    }
+
+    public String getCvPromptContent() {
+        return cvPromptContent;
+    }
+
+    public String getCoverLetterPromptContent() {
+        return coverLetterPromptContent;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,280 @@
+package com.cvmaker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Precompiled LaTeX formats (.fmt) holding each template's package loading,
+ * so a compile starts with the packages already loaded instead of reading
+ * them all again. A format covers the leading run of {@code documentclass},
+ * {@code usepackage} and {@code definecolor} statements of a template's
+ * preamble, and is only used for a document whose preamble opens with
+ * exactly those statements. Formats are named by a hash of the compiler and
+ * those statements, so editing a template rebuilds its format on next use.
+ */
+public class LatexFormatCache {
+
+    public static final String FORMAT_DIRECTORY = ".latex-formats";
+
+    private static final Set<String> DUMPABLE_COMMANDS = Set.of("documentclass", "usepackage", "RequirePackage", "definecolor");
+    // Set up hooks that must run in the compiling process, not at dump time
+    private static final Set<String> RUNTIME_PACKAGES = Set.of("hyperref", "bookmark");
+
+    private final TemplateLoader templateLoader;
+    private final String compiler;
+    private final Map<String, Optional<Format>> formats = new ConcurrentHashMap<>();
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    /**
+     * A built format and the preamble statements it already contains.
+     */
+    public record Format(Path directory, String name, List<String> statements) {
+
+        /**
+         * The rest of {@code latex} once the statements in this format are
+         * taken out, to be compiled with it; null if the document does not
+         * open with exactly those statements.
+         */
+        public String stripDumpedPreamble(String latex) {
+            Preamble preamble = Preamble.parse(latex);
+            if (preamble == null || preamble.statements.size() < statements.size()) {
+                return null;
+            }
+            for (int i = 0; i < statements.size(); i++) {
+                if (!statements.get(i).equals(preamble.statements.get(i).text)) {
+                    return null;
+                }
+            }
+            int end = statements.isEmpty() ? 0 : preamble.statements.get(statements.size() - 1).end;
+            return preamble.source.substring(end) + latex.substring(preamble.documentStart);
+        }
+    }
+
+    public LatexFormatCache(TemplateLoader templateLoader, String compiler) {
+        this.templateLoader = templateLoader;
+        this.compiler = compiler;
+    }
+
+    /**
+     * The format for a template, built first if it is missing or out of
+     * date; null if the template has nothing worth dumping or the build failed.
+     */
+    public Format formatFor(String templateName, boolean isCoverLetter) {
+        Path template = isCoverLetter ? templateLoader.coverLetterTexPath(templateName) : templateLoader.texPath(templateName);
+        if (template == null || !Files.exists(template)) {
+            return null;
+        }
+        try {
+            String source = Files.readString(template);
+            // Keyed by content so an edited template gets a fresh lookup
+            return formats.computeIfAbsent(template.toAbsolutePath() + "|" + hash(source),
+                    key -> Optional.ofNullable(build(template, source))).orElse(null);
+        } catch (IOException e) {
+            System.out.println("Warning: Could not read " + template + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Build the formats for every template under the templates directory.
+     */
+    public void warmUp(Path templatesRoot) throws IOException {
+        System.out.println("🔥 Precompiling template formats...");
+        try (Stream<Path> entries = Files.list(templatesRoot)) {
+            for (Path directory : entries.filter(Files::isDirectory).sorted().toList()) {
+                String name = directory.getFileName().toString();
+                formatFor(name, false);
+                formatFor(name, true);
+            }
+        }
+    }
+
+    public void recordUse(boolean formatUsed) {
+        (formatUsed ? used : skipped).incrementAndGet();
+    }
+
+    public long getUsed() {
+        return used.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    private Format build(Path template, String source) {
+        Preamble preamble = Preamble.parse(source);
+        if (preamble == null) {
+            return null;
+        }
+        List<String> statements = new ArrayList<>();
+        for (Statement statement : preamble.statements) {
+            if (!DUMPABLE_COMMANDS.contains(statement.command) || RUNTIME_PACKAGES.contains(statement.argument)) {
+                break;
+            }
+            statements.add(statement.text);
+        }
+        if (statements.isEmpty()) {
+            return null;
+        }
+
+        String baseName = template.getFileName().toString().replaceFirst("\\.tex$", "");
+        String name = baseName + "-" + hash(compiler + "\n" + String.join("\n", statements)).substring(0, 12);
+        Path directory = template.getParent().resolve(FORMAT_DIRECTORY);
+        Format format = new Format(directory, name, List.copyOf(statements));
+        if (Files.exists(directory.resolve(name + ".fmt"))) {
+            return format;
+        }
+
+        try {
+            Files.createDirectories(directory);
+            deleteStaleFormats(directory, baseName);
+            Files.writeString(directory.resolve(name + ".tex"), String.join("\n", statements) + "\n\\dump\n");
+
+            ProcessBuilder pb = new ProcessBuilder(compiler, "-ini", "-interaction=nonstopmode",
+                    "-jobname=" + name, "&" + compiler, name + ".tex");
+            pb.redirectErrorStream(true);
+            pb.directory(directory.toFile());
+            Process proc = pb.start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(proc.getInputStream()))) {
+                while (reader.readLine() != null) {
+                    // Drain the log so the compiler never blocks on a full pipe
+                }
+            }
+            int exitCode = proc.waitFor();
+
+            if (exitCode != 0 || !Files.exists(directory.resolve(name + ".fmt"))) {
+                System.out.println("Warning: Could not precompile " + template + ", compiling it in full instead");
+                Files.deleteIfExists(directory.resolve(name + ".fmt"));
+                return null;
+            }
+            System.out.printf("   ⚡ Precompiled %s (%d preamble statements)\n", template, statements.size());
+            return format;
+        } catch (IOException e) {
+            System.out.println("Warning: Could not precompile " + template + ": " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void deleteStaleFormats(Path directory, String baseName) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().startsWith(baseName + "-")).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Statement(String command, String argument, String text, int end) {
+    }
+
+    /**
+     * A preamble with comments removed, split into top-level statements.
+     * Statement text has its whitespace collapsed so layout differences do
+     * not matter; {@code end} is the offset just past it in {@code source}.
+     */
+    private record Preamble(String source, List<Statement> statements, int documentStart) {
+
+        static Preamble parse(String latex) {
+            int documentStart = latex.indexOf("\\begin{document}");
+            if (documentStart < 0) {
+                return null;
+            }
+            String source = stripComments(latex.substring(0, documentStart));
+            List<Statement> statements = new ArrayList<>();
+            int i = 0;
+            while (i < source.length()) {
+                if (source.charAt(i) != '\\') {
+                    i++;
+                    continue;
+                }
+                int start = i++;
+                while (i < source.length() && Character.isLetter(source.charAt(i))) {
+                    i++;
+                }
+                String command = source.substring(start + 1, i);
+                String argument = null;
+                while (true) {
+                    int next = i;
+                    while (next < source.length() && Character.isWhitespace(source.charAt(next))) {
+                        next++;
+                    }
+                    if (next >= source.length() || (source.charAt(next) != '[' && source.charAt(next) != '{')) {
+                        break;
+                    }
+                    int close = matchingClose(source, next);
+                    if (close < 0) {
+                        return null;
+                    }
+                    if (source.charAt(next) == '{' && argument == null) {
+                        argument = source.substring(next + 1, close).trim();
+                    }
+                    i = close + 1;
+                }
+                String text = source.substring(start, i).replaceAll("\\s+", " ").trim();
+                statements.add(new Statement(command, argument, text, i));
+            }
+            return new Preamble(source, statements, documentStart);
+        }
+
+        private static int matchingClose(String source, int open) {
+            char opening = source.charAt(open);
+            char closing = opening == '[' ? ']' : '}';
+            int depth = 0;
+            for (int i = open; i < source.length(); i++) {
+                char c = source.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == opening) {
+                    depth++;
+                } else if (c == closing && --depth == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static String stripComments(String text) {
+            StringBuilder stripped = new StringBuilder(text.length());
+            for (String line : text.split("\n", -1)) {
+                int comment = -1;
+                for (int i = 0; i < line.length(); i++) {
+                    if (line.charAt(i) == '\\') {
+                        i++;
+                    } else if (line.charAt(i) == '%') {
+                        comment = i;
+                        break;
+                    }
+                }
+                stripped.append(comment >= 0 ? line.substring(0, comment) : line).append('\n');
+            }
+            return stripped.toString();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.cvmaker;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Compiled PDFs keyed by a hash of their LaTeX source, compiler and compiler
+ * arguments, so LaTeX that comes back byte-identical (a cached or retried LLM
+ * answer) is not compiled again. Entries are evicted least recently used
+ * once the cache holds more than its entry or size limit; use is tracked
+ * through file modification times, so the order survives restarts.
+ * <p>
+ * With hard links on, a served PDF shares its file with the cache entry;
+ * generation only ever replaces output files, never rewrites them in place,
+ * so the entry is not affected.
+ */
+public class PdfCompileCache implements PdfCompileCacheMXBean {
+
+    private final Path directory;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final boolean hardLinks;
+    // Key to file size, least recently used first
+    private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private PdfCompileCache(Path directory, int maxEntries, long maxBytes, boolean hardLinks) {
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.hardLinks = hardLinks;
+
+        try {
+            Files.createDirectories(directory);
+            loadIndex();
+        } catch (IOException e) {
+            System.err.println("PDF cache unavailable, compiling every document: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The cache in {@code directory}, indexed from the files already there
+     * and exposed over JMX as com.cvmaker:type=PdfCompileCache.
+     */
+    public static PdfCompileCache open(Path directory, int maxEntries, long maxBytes, boolean hardLinks) {
+        PdfCompileCache cache = new PdfCompileCache(directory, maxEntries, maxBytes, hardLinks);
+        try {
+            ObjectName name = new ObjectName("com.cvmaker:type=PdfCompileCache");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(cache, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Failed to register PDF cache MBean: " + e.getMessage());
+        }
+        return cache;
+    }
+
+    public static String keyFor(String latex, String compiler, List<String> compilerArgs) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String material = compiler + '\0' + String.join("\u0001", compilerArgs) + '\0' + latex;
+            return HexFormat.of().formatHex(digest.digest(material.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Put the cached PDF for {@code key} at {@code target}; false on a miss.
+     */
+    public synchronized boolean serve(String key, Path target) {
+        // get, not containsKey, so the lookup counts as a use
+        if (entries.get(key) == null) {
+            misses.incrementAndGet();
+            return false;
+        }
+        Path cached = fileFor(key);
+        try {
+            Files.deleteIfExists(target);
+            linkOrCopy(cached, target);
+            Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            // Entry deleted or unreadable behind our back
+            remove(key);
+            misses.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Keep a copy of a freshly compiled PDF, evicting old entries to make room.
+     */
+    public synchronized void store(String key, Path pdf) {
+        if (entries.containsKey(key)) {
+            return;
+        }
+        try {
+            long size = Files.size(pdf);
+            if (size > maxBytes) {
+                return;
+            }
+            Path tmp = directory.resolve(key + ".pdf.tmp");
+            Files.copy(pdf, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, fileFor(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            entries.put(key, size);
+            sizeBytes += size;
+            stores.incrementAndGet();
+            evict();
+        } catch (IOException e) {
+            System.err.println("Failed to cache compiled PDF: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public double getHitRate() {
+        long lookups = hits.get() + misses.get();
+        return lookups == 0 ? 0 : (double) hits.get() / lookups;
+    }
+
+    @Override
+    public long getStores() {
+        return stores.get();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public synchronized int getEntries() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    private void loadIndex() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> pdfs = files.filter(f -> f.getFileName().toString().endsWith(".pdf"))
+                    .sorted(Comparator.comparing(PdfCompileCache::lastModified))
+                    .toList();
+            for (Path pdf : pdfs) {
+                long size = Files.size(pdf);
+                entries.put(pdf.getFileName().toString().replaceFirst("\\.pdf$", ""), size);
+                sizeBytes += size;
+            }
+        }
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || sizeBytes > maxBytes) && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            sizeBytes -= entry.getValue();
+            evictions.incrementAndGet();
+            try {
+                Files.deleteIfExists(fileFor(entry.getKey()));
+            } catch (IOException e) {
+                // Ignore cleanup errors
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            sizeBytes -= size;
+        }
+    }
+
+    private void linkOrCopy(Path cached, Path target) throws IOException {
+        if (hardLinks) {
+            try {
+                Files.createLink(target, cached);
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                // Different file system, or no link support: copy instead
+            }
+        }
+        Files.copy(cached, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(key + ".pdf");
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
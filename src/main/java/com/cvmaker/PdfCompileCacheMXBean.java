@@ -0,0 +1,21 @@
+package com.cvmaker;
+
+/**
+ * JMX view of a {@link PdfCompileCache}.
+ */
+public interface PdfCompileCacheMXBean {
+
+    long getHits();
+
+    long getMisses();
+
+    double getHitRate();
+
+    long getStores();
+
+    long getEvictions();
+
+    int getEntries();
+
+    long getSizeBytes();
+}
@@ -0,0 +1,263 @@
+package com.cvmaker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * One stage of a staged pipeline: a fixed pool of workers taking items from
+ * a bounded queue and handing what they produce to the next stage's queue.
+ * A full queue blocks the stage feeding it, so a slow stage holds back the
+ * ones before it instead of letting work pile up in memory. An item that
+ * fails is reported and dropped; the rest carry on.
+ */
+public class PipelineStage<I, O> {
+
+    /**
+     * The work done on one item; returns the items to pass on, if any.
+     */
+    @FunctionalInterface
+    public interface Work<I, O> {
+        List<O> apply(I item) throws Exception;
+    }
+
+    private static final Object END = new Object();
+
+    private final String name;
+    private final int workers;
+    private final BlockingQueue<Object> queue;
+    private final ThreadFactory threadFactory;
+    private final Work<I, O> work;
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private PipelineStage<O, ?> next;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong firstStartNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastEndNanos = new AtomicLong();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+    public PipelineStage(String name, int workers, int queueCapacity, ThreadFactory threadFactory, Work<I, O> work) {
+        this.name = name;
+        this.workers = Math.max(1, workers);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.threadFactory = threadFactory;
+        this.work = work;
+    }
+
+    /**
+     * Send this stage's output to {@code next}; returns {@code next} for chaining.
+     */
+    public <N> PipelineStage<O, N> then(PipelineStage<O, N> next) {
+        this.next = next;
+        return next;
+    }
+
+    public void start() {
+        running.set(workers);
+        for (int i = 0; i < workers; i++) {
+            Thread thread = threadFactory.newThread(this::runWorker);
+            thread.setName("pipeline-" + name + "-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Queue an item, blocking while the queue is full.
+     */
+    public void submit(I item) throws InterruptedException {
+        queue.put(item);
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+    }
+
+    /**
+     * No more items are coming; the workers stop once the queue is drained,
+     * and the next stage is finished in turn.
+     */
+    public void finish() throws InterruptedException {
+        for (int i = 0; i < workers; i++) {
+            queue.put(END);
+        }
+    }
+
+    public void await() throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runWorker() {
+        try {
+            while (true) {
+                Object item = queue.take();
+                if (item == END) {
+                    break;
+                }
+                long start = System.nanoTime();
+                firstStartNanos.accumulateAndGet(start, Math::min);
+                List<O> results;
+                try {
+                    results = work.apply((I) item);
+                    processed.incrementAndGet();
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    failures.add(item + ": " + e.getMessage());
+                    System.err.printf("❌ %s failed for %s: %s\n", name, item, e.getMessage());
+                    continue;
+                } finally {
+                    long end = System.nanoTime();
+                    busyNanos.addAndGet(end - start);
+                    lastEndNanos.accumulateAndGet(end, Math::max);
+                }
+
+                if (next != null && results != null) {
+                    long blockedStart = System.nanoTime();
+                    for (O result : results) {
+                        next.submit(result);
+                    }
+                    blockedNanos.addAndGet(System.nanoTime() - blockedStart);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (running.decrementAndGet() == 0 && next != null) {
+                try {
+                    next.finish();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public List<String> getFailures() {
+        synchronized (failures) {
+            return List.copyOf(failures);
+        }
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Items finished per second between this stage's first and last item.
+     */
+    public double getThroughput() {
+        long active = lastEndNanos.get() - firstStartNanos.get();
+        long done = processed.get() + failed.get();
+        return active > 0 ? done / (active / 1e9) : 0;
+    }
+
+    public double getMeanItemMs() {
+        long done = processed.get() + failed.get();
+        return done > 0 ? busyNanos.get() / 1e6 / done : 0;
+    }
+
+    /**
+     * Share of the pool's time over {@code wallMs} spent working.
+     */
+    public double getUtilization(long wallMs) {
+        return wallMs > 0 ? busyNanos.get() / 1e6 / (wallMs * (double) workers) : 0;
+    }
+
+    /**
+     * Time spent waiting for room in the next stage's queue.
+     */
+    public long getBlockedMs() {
+        return blockedNanos.get() / 1_000_000;
+    }
+
+    /**
+     * Print throughput per stage, naming the busiest stage as the bottleneck,
+     * and write the same as JSON into {@code directory}.
+     */
+    public static Path report(List<PipelineStage<?, ?>> stages, long wallMs, Path directory) {
+        System.out.println("\n🏭 Pipeline report (" + App.formatDuration(wallMs) + "):");
+        PipelineStage<?, ?> bottleneck = null;
+        for (PipelineStage<?, ?> stage : stages) {
+            System.out.printf("   %-9s workers=%-3d done=%-4d failed=%-3d %.2f items/s  %.0f ms/item  util=%.0f%%  blocked=%s  max queue=%d\n",
+                    stage.getName(), stage.getWorkers(), stage.getProcessed(), stage.getFailed(), stage.getThroughput(),
+                    stage.getMeanItemMs(), stage.getUtilization(wallMs) * 100, App.formatDuration(stage.getBlockedMs()),
+                    stage.getMaxQueueDepth());
+            if (bottleneck == null || stage.getUtilization(wallMs) > bottleneck.getUtilization(wallMs)) {
+                bottleneck = stage;
+            }
+        }
+        if (bottleneck != null) {
+            System.out.println("   Bottleneck: " + bottleneck.getName());
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("generatedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .put("wallMs", wallMs)
+                .put("bottleneck", bottleneck != null ? bottleneck.getName() : null);
+        ArrayNode stageNodes = root.putArray("stages");
+        for (PipelineStage<?, ?> stage : stages) {
+            ObjectNode node = stageNodes.addObject()
+                    .put("name", stage.getName())
+                    .put("workers", stage.getWorkers())
+                    .put("processed", stage.getProcessed())
+                    .put("failed", stage.getFailed())
+                    .put("itemsPerSecond", stage.getThroughput())
+                    .put("meanItemMs", stage.getMeanItemMs())
+                    .put("utilization", stage.getUtilization(wallMs))
+                    .put("blockedMs", stage.getBlockedMs())
+                    .put("maxQueueDepth", stage.getMaxQueueDepth());
+            ArrayNode failureNodes = node.putArray("failures");
+            stage.getFailures().forEach(failureNodes::add);
+        }
+
+        try {
+            Files.createDirectories(directory);
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            Path file = directory.resolve("pipeline-" + timestamp + ".json");
+            Files.writeString(file, root.toPrettyString());
+            System.out.println("   Report written to " + file.toAbsolutePath());
+            return file;
+        } catch (IOException e) {
+            System.err.println("Could not write pipeline report: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -13,16 +13,27 @@ public class TemplateLoader {
     }
 
     public String loadTex(String templateName) throws IOException {
-        Path texPath = templatesRoot.resolve(templateName).resolve("template.tex");
-        return Files.readString(texPath);
+        return Files.readString(texPath(templateName));
     }
 
     public String loadCoverLetterTex(String templateName) throws IOException {
+        return Files.readString(coverLetterTexPath(templateName));
+    }
+
+    public Path texPath(String templateName) {
+        return templatesRoot.resolve(templateName).resolve("template.tex");
+    }
+
+    public Path coverLetterTexPath(String templateName) {
         Path texPath = templatesRoot.resolve(templateName).resolve("cover_letter_template.tex");
         if (!Files.exists(texPath)) {
             // Fall back to a generic cover letter template path
             texPath = templatesRoot.resolve("cover_letter_template.tex");
         }
-        return Files.readString(texPath);
+        return texPath;
+    }
+
+    public Path getTemplatesRoot() {
+        return templatesRoot;
     }
 }
\ No newline at end of file
@@ -1,7 +1,13 @@
 package com.cvmaker.application.management;
 
+import com.cvmaker.service.ai.Endpoint;
+import com.cvmaker.service.ai.LLMModel;
+
 import io.github.cdimascio.dotenv.Dotenv;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class ApplicationConfig {
 
     public static final String APPLICATION_NAME = "Job Application Manager";
@@ -9,6 +15,7 @@ public class ApplicationConfig {
     public static final String PROCESSED_EMAILS_FILE = "processed_emails.txt";
     public static final String JOB_APPLICATIONS_DB_FILE = "job_applications.txt";
     public static final String SYSTEM_STATE_FILE = "system_state.txt";
+    public static final String REANALYSIS_QUEUE_FILE = "reanalysis_queue.txt";
 
     private static final Dotenv dotenv = Dotenv.load();
 
@@ -35,4 +42,60 @@ public class ApplicationConfig {
     public static String getExaApiKey() {
         return dotenv.get("EXA_API_KEY");
     }
+
+    public static String getBatchEndpoint() {
+        return dotenv.get("AI_BATCH_ENDPOINT", Endpoint.OPENAI_API.getUrl());
+    }
+
+    public static List<String> getLocalEndpoints() {
+        String endpoints = dotenv.get("AI_LOCAL_ENDPOINTS", "");
+        return Arrays.stream(endpoints.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+    }
+
+    public static int getInputTokenBudget() {
+        return Integer.parseInt(dotenv.get("AI_INPUT_TOKEN_BUDGET", "16000"));
+    }
+
+    public static boolean isCascadeEnabled() {
+        return Boolean.parseBoolean(dotenv.get("AI_CASCADE_ENABLED", "true"));
+    }
+
+    public static LLMModel getCascadeCheapModel() {
+        return LLMModel.valueOf(dotenv.get("AI_CASCADE_CHEAP_MODEL", LLMModel.GPT_4_1_NANO.name()));
+    }
+
+    public static double getCascadeConfidenceThreshold() {
+        return Double.parseDouble(dotenv.get("AI_CASCADE_CONFIDENCE_THRESHOLD", "0.8"));
+    }
+
+    public static int getCircuitFailureThreshold() {
+        return Integer.parseInt(dotenv.get("AI_CIRCUIT_FAILURE_THRESHOLD", "5"));
+    }
+
+    public static long getCircuitLatencySloMs() {
+        return Long.parseLong(dotenv.get("AI_CIRCUIT_LATENCY_SLO_MS", "45000"));
+    }
+
+    public static long getCircuitOpenMs() {
+        return Long.parseLong(dotenv.get("AI_CIRCUIT_OPEN_MS", "60000"));
+    }
+
+    public static String getProviderMode() {
+        return dotenv.get("AI_PROVIDER_MODE", "").trim();
+    }
+
+    public static String getCorpusDirectory() {
+        return dotenv.get("AI_CORPUS_DIR", "corpus");
+    }
+
+    public static double getReplayLatencyScale() {
+        return Double.parseDouble(dotenv.get("AI_REPLAY_LATENCY_SCALE", "1.0"));
+    }
+
+    public static boolean isAiCacheEnabled() {
+        return Boolean.parseBoolean(dotenv.get("AI_CACHE_ENABLED", "true"));
+    }
 }
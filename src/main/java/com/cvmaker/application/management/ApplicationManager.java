@@ -1,16 +1,31 @@
 package com.cvmaker.application.management;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.cvmaker.service.ai.AiService;
+import com.cvmaker.service.ai.BatchJobClient;
+import com.cvmaker.service.ai.CascadePolicy;
+import com.cvmaker.service.ai.LLMClientRegistry;
 import com.cvmaker.service.ai.LLMModel;
+import com.cvmaker.service.ai.LLMProvider;
+import com.cvmaker.service.ai.LLMTelemetry;
+import com.cvmaker.service.ai.OutputProfile;
+import com.cvmaker.service.ai.RequestPriority;
 
 public class ApplicationManager {
 
     // Constants
     private static final LLMModel DEFAULT_MODEL = LLMModel.GPT_4_1_MINI;
+    private static final double CLASSIFICATION_TEMPERATURE = 0.3;
 
     // Core services
     private final DataStorage dataStorage;
@@ -24,10 +39,28 @@ public class ApplicationManager {
     private boolean isGoogleSheetsEnabled;
 
     public ApplicationManager() {
+        LLMClientRegistry.getInstance().configureCircuitBreakers(ApplicationConfig.getCircuitFailureThreshold(),
+                ApplicationConfig.getCircuitLatencySloMs(), Map.of(), ApplicationConfig.getCircuitOpenMs());
+        if (!ApplicationConfig.getLocalEndpoints().isEmpty()) {
+            LLMClientRegistry.getInstance().setLocalEndpoints(ApplicationConfig.getLocalEndpoints());
+        }
+        if (!ApplicationConfig.getProviderMode().isEmpty()) {
+            LLMClientRegistry.getInstance().setProviderMode(LLMProvider.valueOf(ApplicationConfig.getProviderMode().toUpperCase()),
+                    Paths.get(ApplicationConfig.getCorpusDirectory()), ApplicationConfig.getReplayLatencyScale());
+        }
         this.dataStorage = new DataStorage();
         this.gmailService = new GmailService();
         this.sheetsService = new GoogleSheetsService();
-        this.emailAnalysisService = new EmailAnalysisService(new AiService(DEFAULT_MODEL));
+        this.emailAnalysisService = new EmailAnalysisService(
+                new AiService(DEFAULT_MODEL, CLASSIFICATION_TEMPERATURE, ApplicationConfig.isAiCacheEnabled())
+                        .setInputTokenBudget(ApplicationConfig.getInputTokenBudget())
+                        .setCallSite("email-classify")
+                        .setOutputProfile(OutputProfile.EMAIL_CLASSIFICATION)
+                        .setPriority(RequestPriority.PIPELINE),
+                ApplicationConfig.isCascadeEnabled()
+                        ? CascadePolicy.create("email-classify", ApplicationConfig.getCascadeCheapModel(), DEFAULT_MODEL,
+                                ApplicationConfig.getCascadeConfidenceThreshold())
+                        : null);
     }
 
     public void initialize() {
@@ -74,6 +107,8 @@ public class ApplicationManager {
         System.out.println("\n=== Processing Job Application Emails ===");
 
         try {
+            reanalyzeDegradedEmails();
+
             Set<String> unprocessedEmails = gmailService.findUnprocessedEmails(processedEmailIds);
             System.out.printf("Found %d unprocessed emails\n", unprocessedEmails.size());
 
@@ -86,33 +121,118 @@ public class ApplicationManager {
     }
 
     private void processEmails(Set<String> emailIds) {
-        for (String emailId : emailIds) {
-            try {
-                GmailService.EmailData emailData = gmailService.getEmailContent(emailId);
-                processSingleEmail(emailData);
-                Thread.sleep(100); // Rate limiting
-            } catch (Exception e) {
-                System.err.printf("Failed to process email %s: %s\n", emailId, e.getMessage());
-            }
+        // Classified in packed batches rather than one round trip per email, each saved as it lands
+        emailAnalysisService.analyzeEmails(fetchEmails(emailIds),
+                batch -> batch.forEach(this::updateApplicationDatabase));
+    }
+
+    /**
+     * Send emails that were classified by rules during an LLM outage back
+     * through the LLM. Any that fall back to rules again stay queued.
+     */
+    private void reanalyzeDegradedEmails() {
+        Set<String> queued = dataStorage.loadReanalysisQueue();
+        if (queued.isEmpty()) {
+            return;
+        }
+        if (emailAnalysisService.isLlmUnavailable()) {
+            System.out.printf("LLM still unavailable, %d emails left queued for re-analysis\n", queued.size());
+            return;
         }
+
+        System.out.printf("Re-analysing %d emails classified while the LLM was unavailable\n", queued.size());
+        Set<String> stillQueued = new LinkedHashSet<>(queued);
+
+        // Catch-up work; new mail and anyone waiting on the LLM go first
+        emailAnalysisService.withPriority(RequestPriority.BACKFILL).analyzeEmails(fetchEmails(queued), batch -> {
+            for (JobApplicationData jobData : batch) {
+                if (!jobData.isNeedsReanalysis()) {
+                    stillQueued.remove(jobData.getEmailId());
+                }
+                if (jobData.isJobRelated()) {
+                    jobApplicationsDb.put(jobData.getEmailId(), jobData);
+                } else {
+                    jobApplicationsDb.remove(jobData.getEmailId());
+                }
+                // Appended records supersede the degraded ones on the next load; a
+                // non-job one drops the email from the db
+                dataStorage.saveJobApplicationData(jobData);
+            }
+            dataStorage.saveReanalysisQueue(stillQueued);
+        });
     }
 
-    private void processSingleEmail(GmailService.EmailData emailData) {
+    /**
+     * Re-fetch and reclassify every email in the application history as
+     * offline batch jobs. Updated records are appended, superseding the old ones.
+     */
+    public void backfillApplicationHistory() {
+        System.out.println("\n=== Reclassifying Application History (batch mode) ===");
+
+        BatchJobClient batchClient = BatchJobClient.forEndpoint(ApplicationConfig.getBatchEndpoint());
+        AtomicInteger reclassified = new AtomicInteger();
+        AtomicInteger stillJobRelated = new AtomicInteger();
+        emailAnalysisService.withPriority(RequestPriority.BACKFILL).analyzeEmailsWithBatchJob(
+                fetchEmails(new ArrayList<>(jobApplicationsDb.keySet())), batchClient, batch -> {
+                    for (JobApplicationData jobData : batch) {
+                        if (jobData.isJobRelated()) {
+                            jobApplicationsDb.put(jobData.getEmailId(), jobData);
+                            stillJobRelated.incrementAndGet();
+                        } else {
+                            jobApplicationsDb.remove(jobData.getEmailId());
+                        }
+                        dataStorage.saveJobApplicationData(jobData);
+                        reclassified.incrementAndGet();
+                    }
+                });
+
+        System.out.printf("Reclassified %d emails, %d still job-related\n", reclassified.get(), stillJobRelated.get());
+    }
 
-        JobApplicationData jobData = emailAnalysisService.analyzeEmail(
-                emailData.getId(),
-                emailData.getSubject(),
-                emailData.getFrom(),
-                emailData.getDate(),
-                emailData.getBody()
-        );
+    /**
+     * Fetches each email only when the classifier reads the next one, so a
+     * batch is saved before the emails after it are fetched. Emails that
+     * could not be fetched are skipped.
+     */
+    private Iterable<GmailService.EmailData> fetchEmails(Collection<String> emailIds) {
+        return () -> new Iterator<>() {
+            private final Iterator<String> ids = emailIds.iterator();
+            private GmailService.EmailData next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && ids.hasNext() && !Thread.currentThread().isInterrupted()) {
+                    String emailId = ids.next();
+                    try {
+                        next = gmailService.getEmailContent(emailId);
+                        Thread.sleep(100); // Rate limiting
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        System.err.printf("Failed to fetch email %s: %s\n", emailId, e.getMessage());
+                    }
+                }
+                return next != null;
+            }
 
-        updateApplicationDatabase(jobData);
+            @Override
+            public GmailService.EmailData next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                GmailService.EmailData email = next;
+                next = null;
+                return email;
+            }
+        };
     }
 
     private void updateApplicationDatabase(JobApplicationData jobData) {
         processedEmailIds.add(jobData.getEmailId());
         dataStorage.saveProcessedEmailId(jobData.getEmailId());
+        if (jobData.isNeedsReanalysis()) {
+            dataStorage.addToReanalysisQueue(jobData.getEmailId());
+        }
 
         if (jobData.isJobRelated()) {
             jobApplicationsDb.put(jobData.getEmailId(), jobData);
@@ -204,10 +324,17 @@ public class ApplicationManager {
         ApplicationManager manager = new ApplicationManager();
         try {
             manager.initialize();
-            manager.processJobApplicationEmails();
+            if (args.length > 0 && args[0].equals("--backfill")) {
+                manager.backfillApplicationHistory();
+            } else {
+                manager.processJobApplicationEmails();
+            }
             manager.syncAllApplicationsToGoogleSheets();
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            LLMTelemetry.getInstance().dumpSummary(Paths.get("metrics"));
+            LLMClientRegistry.getInstance().shutdown();
         }
     }
 }
@@ -7,6 +7,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
@@ -81,8 +82,14 @@ public class DataStorage {
                     String line = scanner.nextLine().trim();
                     if (!line.isEmpty()) {
                         JobApplicationData data = JobApplicationData.deserialize(line);
-                        if (data != null) {
+                        // The last line for an email wins; a non-job record drops it
+                        if (data == null) {
+                            continue;
+                        }
+                        if (data.isJobRelated()) {
                             db.put(data.getEmailId(), data);
+                        } else {
+                            db.remove(data.getEmailId());
                         }
                     }
                 }
@@ -111,6 +118,46 @@ public class DataStorage {
         }
     }
 
+    /**
+     * Emails classified by the rule-based fallback, to be sent back through
+     * the LLM once it is reachable again.
+     */
+    public Set<String> loadReanalysisQueue() {
+        Set<String> ids = new LinkedHashSet<>();
+        File file = new File(ApplicationConfig.REANALYSIS_QUEUE_FILE);
+        if (file.exists()) {
+            try (Scanner scanner = new Scanner(file)) {
+                while (scanner.hasNextLine()) {
+                    String line = scanner.nextLine().trim();
+                    if (!line.isEmpty()) {
+                        ids.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error loading re-analysis queue: " + e.getMessage());
+            }
+        }
+        return ids;
+    }
+
+    public void addToReanalysisQueue(String emailId) {
+        try (FileWriter writer = new FileWriter(ApplicationConfig.REANALYSIS_QUEUE_FILE, true)) {
+            writer.write(emailId + "\n");
+        } catch (IOException e) {
+            System.err.println("Error saving re-analysis queue: " + e.getMessage());
+        }
+    }
+
+    public void saveReanalysisQueue(Set<String> emailIds) {
+        try (FileWriter writer = new FileWriter(ApplicationConfig.REANALYSIS_QUEUE_FILE)) {
+            for (String emailId : emailIds) {
+                writer.write(emailId + "\n");
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving re-analysis queue: " + e.getMessage());
+        }
+    }
+
     public void saveSystemState() {
         try (FileWriter writer = new FileWriter(ApplicationConfig.SYSTEM_STATE_FILE)) {
             writer.write("last_run=" + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "\n");
@@ -1,36 +1,282 @@
 package com.cvmaker.application.management;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.cvmaker.service.ai.AiService;
+import com.cvmaker.service.ai.BatchJobClient;
+import com.cvmaker.service.ai.CascadePolicy;
+import com.cvmaker.service.ai.JsonResponseDecoder;
+import com.cvmaker.service.ai.LLMRequest;
+import com.cvmaker.service.ai.LLMResponse;
+import com.cvmaker.service.ai.LLMTelemetry;
+import com.cvmaker.service.ai.RequestPriority;
+import com.cvmaker.service.ai.ResponseSchema;
+import com.cvmaker.service.ai.StopGeneration;
+import com.cvmaker.service.ai.TokenCounter;
 import com.cvmaker.websearch.SearchResult;
 import com.cvmaker.websearch.SearchService;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class EmailAnalysisService {
 
+    // Batch classification: emails are packed until the prompt reaches this budget
+    private static final int BATCH_PROMPT_TOKEN_BUDGET = 12_000;
+    private static final int MAX_EMAILS_PER_BATCH = 20;
+    // Recruiter emails say what matters up front; quoted threads and footers follow
+    private static final int EMAIL_BODY_TOKEN_BUDGET = 750;
+    private static final int OUTPUT_TOKENS_PER_EMAIL = 400;
+    // Backfills are split into jobs of this size so results are saved as each one lands
+    private static final int MAX_EMAILS_PER_BATCH_JOB = 200;
+
+    // Used when the model leaves out or garbles its confidence
+    private static final double DEFAULT_CONFIDENCE = 0.7;
+    private static final Pattern EMAIL_ADDRESS = Pattern.compile("[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,6}");
+    private static final List<String> DETAIL_FIELDS = List.of("category", "companyName", "positionTitle",
+            "applicationStatus", "provider", "workLocation", "workType", "salaryRange", "contactPerson",
+            "contactEmail", "nextSteps", "applicationDeadline", "requiredSkills", "rejectionReason", "offerDetails",
+            "interviewDate", "interviewLocation", "extractedInfo", "applicationUrl");
+    private static final ResponseSchema CLASSIFICATION_SCHEMA = buildClassificationSchema();
+    private static final String FULL_NOT_JOB_RELATED_ANSWER = buildFullNotJobRelatedAnswer();
+
     private final AiService aiService;
+    private final CascadePolicy cascade;
     private final SearchService searchService;
 
     public EmailAnalysisService(AiService aiService) {
+        this(aiService, null);
+    }
+
+    /**
+     * With a cascade, emails are classified by its cheap model first and only
+     * re-run on the strong model when the answer is unsure or the email is
+     * job-related with details missing.
+     */
+    public EmailAnalysisService(AiService aiService, CascadePolicy cascade) {
         this.aiService = aiService;
+        this.cascade = cascade;
         this.searchService = new SearchService(ApplicationConfig.getExaApiKey());
     }
 
+    /**
+     * The same analysis with its LLM calls queued at {@code priority}.
+     */
+    public EmailAnalysisService withPriority(RequestPriority priority) {
+        return new EmailAnalysisService(aiService.withPriority(priority), cascade);
+    }
+
     public JobApplicationData analyzeEmail(String emailId, String subject, String from, String date, String body) {
-        // Extract plain text from HTML
-        String cleanBody = extractTextFromHtml(body);
-        String cleanSubject = extractTextFromHtml(subject);
+        return analyzeCleanEmail(clean(emailId, subject, from, date, body));
+    }
+
+    /**
+     * Classify many emails with as few round trips as possible. Emails are
+     * packed into shared prompts sized to a token budget; any email whose
+     * entry in the returned array is missing or malformed is retried alone.
+     * Emails are read only as each batch is packed, and every batch's
+     * results go to {@code onBatch} before the next email is read, so
+     * callers can save as they go.
+     */
+    public void analyzeEmails(Iterable<GmailService.EmailData> emails, Consumer<List<JobApplicationData>> onBatch) {
+        List<CleanEmail> batch = new ArrayList<>();
+        int batchTokens = 0;
+
+        for (GmailService.EmailData email : emails) {
+            CleanEmail cleanEmail = clean(email.getId(), email.getSubject(), email.getFrom(), email.getDate(), email.getBody());
+            int emailTokens = estimateTokens(formatBatchEmail(cleanEmail));
+
+            if (!batch.isEmpty() && (batchTokens + emailTokens > BATCH_PROMPT_TOKEN_BUDGET || batch.size() >= MAX_EMAILS_PER_BATCH)) {
+                onBatch.accept(analyzeBatch(batch));
+                batch = new ArrayList<>();
+                batchTokens = 0;
+            }
+            batch.add(cleanEmail);
+            batchTokens += emailTokens;
+        }
+
+        if (!batch.isEmpty()) {
+            onBatch.accept(analyzeBatch(batch));
+        }
+    }
+
+    /**
+     * Classify emails through offline batch jobs, for backfills where
+     * latency does not matter. Emails the batch could not answer are
+     * classified interactively instead. Each job's results go to
+     * {@code onBatch} before the emails for the next job are read.
+     */
+    public void analyzeEmailsWithBatchJob(Iterable<GmailService.EmailData> emails, BatchJobClient batchClient,
+            Consumer<List<JobApplicationData>> onBatch) {
+        List<GmailService.EmailData> chunk = new ArrayList<>();
+        for (GmailService.EmailData email : emails) {
+            chunk.add(email);
+            if (chunk.size() >= MAX_EMAILS_PER_BATCH_JOB) {
+                onBatch.accept(runBatchJob(chunk, batchClient));
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            onBatch.accept(runBatchJob(chunk, batchClient));
+        }
+    }
+
+    private List<JobApplicationData> runBatchJob(List<GmailService.EmailData> emails, BatchJobClient batchClient) {
+        Map<String, CleanEmail> emailsById = new LinkedHashMap<>();
+        Map<String, LLMRequest> requests = new LinkedHashMap<>();
+        for (GmailService.EmailData email : emails) {
+            CleanEmail cleanEmail = clean(email.getId(), email.getSubject(), email.getFrom(), email.getDate(), email.getBody());
+            emailsById.put(cleanEmail.id(), cleanEmail);
+            requests.put(cleanEmail.id(), aiService.createRequest(
+                    buildEnhancedCategorizationPrompt(cleanEmail.subject(), cleanEmail.from(), cleanEmail.body())));
+        }
+
+        Map<String, LLMResponse> responses = Map.of();
+        try {
+            responses = batchClient.run(requests);
+        } catch (Exception e) {
+            System.err.println("Batch job failed, classifying interactively: " + e.getMessage());
+        }
+
+        List<JobApplicationData> results = new ArrayList<>();
+        for (CleanEmail email : emailsById.values()) {
+            LLMResponse response = responses.get(email.id());
+            if (response != null) {
+                results.add(parseEnhancedAIResponse(email.id(), email.subject(), email.from(), email.date(), email.body(), response.getContent()));
+            } else {
+                results.add(analyzeCleanEmail(email));
+            }
+        }
+        return results;
+    }
+
+    private List<JobApplicationData> analyzeBatch(List<CleanEmail> batch) {
+        if (cascade == null) {
+            return analyzeBatch(batch, aiService);
+        }
+
+        List<JobApplicationData> results = analyzeBatch(batch, aiService.withModel(cascade.getCheapModel()));
+
+        List<Integer> escalated = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            JobApplicationData data = results.get(i);
+            if (!data.isNeedsReanalysis() && cascade.check(data.getConfidenceScore(), needsDetail(data)) != null) {
+                escalated.add(i);
+            }
+        }
+        if (escalated.isEmpty()) {
+            return results;
+        }
+
+        System.out.printf("  ⤴️ Escalating %d of %d emails to %s\n",
+                escalated.size(), batch.size(), cascade.getStrongModel().getModelName());
+        List<JobApplicationData> strongResults = analyzeBatch(
+                escalated.stream().map(batch::get).toList(),
+                aiService.withModel(cascade.getStrongModel()));
+        for (int i = 0; i < escalated.size(); i++) {
+            results.set(escalated.get(i), strongResults.get(i));
+        }
+        return results;
+    }
 
-        System.out.printf("  ≡ƒöì Extracted text length: %d characters\n", cleanBody.length());
+    private List<JobApplicationData> analyzeBatch(List<CleanEmail> batch, AiService service) {
+        if (batch.size() == 1) {
+            return new ArrayList<>(List.of(analyzeCleanEmail(batch.get(0), service)));
+        }
+        if (service.isCircuitOpen()) {
+            System.out.printf("  🔌 LLM unavailable, classifying %d emails by rules\n", batch.size());
+            return new ArrayList<>(batch.stream().map(this::createDegradedData).toList());
+        }
 
-        String prompt = buildEnhancedCategorizationPrompt(cleanSubject, from, cleanBody);
+        System.out.printf("  📦 Classifying %d emails in one request\n", batch.size());
 
+        Map<String, Map<String, String>> itemsById = new HashMap<>();
         try {
-            String aiResponse = aiService.query(prompt);
-            JobApplicationData jobData = parseEnhancedAIResponse(emailId, cleanSubject, from, date, cleanBody, aiResponse);
+            String aiResponse = service.query(buildBatchCategorizationPrompt(batch), batch.size() * OUTPUT_TOKENS_PER_EMAIL);
+            for (Map<String, String> item : JsonResponseDecoder.decodeObjects(aiResponse)) {
+                String id = item.get("emailId");
+                if (id != null && item.get("isJobRelated") != null) {
+                    itemsById.put(id, item);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error in batch AI categorization: " + e.getMessage());
+        }
+
+        List<JobApplicationData> results = new ArrayList<>();
+        int retried = 0;
+        for (CleanEmail email : batch) {
+            Map<String, String> item = itemsById.get(email.id());
+            if (item != null) {
+                results.add(toJobData(email, item));
+            } else {
+                retried++;
+                results.add(analyzeCleanEmail(email, service));
+            }
+        }
+
+        if (retried > 0) {
+            System.out.printf("  🔁 Retried %d of %d emails individually\n", retried, batch.size());
+        }
+        return results;
+    }
+
+    private JobApplicationData analyzeCleanEmail(CleanEmail email) {
+        if (cascade == null) {
+            return analyzeCleanEmail(email, aiService);
+        }
+        // A rule-based answer is queued for re-analysis rather than escalated
+        return cascade.run(
+                model -> analyzeCleanEmail(email, aiService.withModel(model)),
+                data -> data.isNeedsReanalysis() ? 1.0 : data.getConfidenceScore(),
+                data -> !data.isNeedsReanalysis() && needsDetail(data));
+    }
+
+    /**
+     * A cheap model's answer is good enough to reject an email, but a
+     * job-related one needs the stronger model unless the fields that drive
+     * tracking were all extracted.
+     */
+    private boolean needsDetail(JobApplicationData data) {
+        return data.isJobRelated()
+                && (isBlank(data.getCompanyName()) || isBlank(data.getPositionTitle()) || isBlank(data.getApplicationStatus()));
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private JobApplicationData analyzeCleanEmail(CleanEmail email, AiService service) {
+        if (service.isCircuitOpen()) {
+            return createDegradedData(email);
+        }
+
+        System.out.printf("  ≡ƒöì Extracted text length: %d characters\n", email.body().length());
+
+        String prompt = buildEnhancedCategorizationPrompt(email.subject(), email.from(), email.body());
+
+        try {
+            EarlyVerdict verdict = new EarlyVerdict();
+            String aiResponse = service.queryStructuredStreaming(prompt, CLASSIFICATION_SCHEMA,
+                    JsonResponseDecoder.incremental(verdict)::feed);
+
+            if (verdict.stopped) {
+                recordEarlyStop(service, aiResponse);
+                JobApplicationData notJobRelated = new JobApplicationData(email.id(), email.subject(), email.from(), email.date());
+                notJobRelated.setJobRelated(false);
+                notJobRelated.setConfidenceScore(verdict.confidence);
+                return notJobRelated;
+            }
+
+            JobApplicationData jobData = parseEnhancedAIResponse(email.id(), email.subject(), email.from(), email.date(), email.body(), aiResponse);
 
             // Only perform web search if the email is job-related
             // if (jobData.isJobRelated() && jobData.getCompanyName() != null) {
@@ -40,10 +286,49 @@ public class EmailAnalysisService {
             return jobData;
         } catch (Exception e) {
             System.err.println("Error in AI categorization: " + e.getMessage());
-            return createFallbackData(emailId, cleanSubject, from, date, cleanBody);
+            return createDegradedData(email);
         }
     }
 
+    /**
+     * True while the classification model's provider is refusing calls.
+     */
+    public boolean isLlmUnavailable() {
+        return aiService.isCircuitOpen();
+    }
+
+    /**
+     * Rule-based answer used when the LLM could not be asked, marked so the
+     * email is classified again once it is back.
+     */
+    private JobApplicationData createDegradedData(CleanEmail email) {
+        JobApplicationData data = createFallbackData(email.id(), email.subject(), email.from(), email.date(), email.body());
+        data.setNeedsReanalysis(true);
+        return data;
+    }
+
+    /**
+     * Tokens not generated because the stream was cut, estimated against the
+     * full answer the strict schema would otherwise produce.
+     */
+    private void recordEarlyStop(AiService service, String partialResponse) {
+        String model = service.getModel().getModelName();
+        long saved = TokenCounter.count(model, FULL_NOT_JOB_RELATED_ANSWER) - TokenCounter.count(model, partialResponse);
+        if (saved > 0) {
+            LLMTelemetry.getInstance().metricsFor(model, service.getCallSite()).recordEarlyStop(saved);
+        }
+    }
+
+    private CleanEmail clean(String emailId, String subject, String from, String date, String body) {
+        // Extract plain text from HTML
+        String text = TokenCounter.truncate(extractTextFromHtml(body), EMAIL_BODY_TOKEN_BUDGET);
+        return new CleanEmail(emailId, extractTextFromHtml(subject), from, date, text);
+    }
+
+    private int estimateTokens(String text) {
+        return TokenCounter.count(text);
+    }
+
     private void enrichWithWebSearch(JobApplicationData jobData) {
         try {
             // Search for job application page
@@ -84,10 +369,11 @@ public class EmailAnalysisService {
             String enrichmentResponse = aiService.query(enrichmentPrompt);
             System.out.println("Enrichment AI Response: " + enrichmentResponse);
             // Parse the enrichment response
-            String applicationUrl = extractJsonValue(enrichmentResponse, "applicationUrl");
-            String contactPerson = extractJsonValue(enrichmentResponse, "contactPerson");
-            String contactEmail = extractJsonValue(enrichmentResponse, "contactEmail");
-            String extractedInfo = extractJsonValue(enrichmentResponse, "extractedInfo");
+            Map<String, String> enrichment = JsonResponseDecoder.decodeFields(enrichmentResponse);
+            String applicationUrl = enrichment.get("applicationUrl");
+            String contactPerson = enrichment.get("contactPerson");
+            String contactEmail = enrichment.get("contactEmail");
+            String extractedInfo = enrichment.get("extractedInfo");
             // Set the enriched data in the job application data
             if (applicationUrl != null && !applicationUrl.isEmpty()) {
                 jobData.setApplicationUrl(applicationUrl);
@@ -108,8 +394,7 @@ public class EmailAnalysisService {
     }
 
     private String extractEmailFromText(String text) {
-        Pattern pattern = Pattern.compile("[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,6}");
-        Matcher matcher = pattern.matcher(text);
+        Matcher matcher = EMAIL_ADDRESS.matcher(text);
         return matcher.find() ? matcher.group() : null;
     }
 
@@ -131,17 +416,10 @@ public class EmailAnalysisService {
                 .replaceAll("\\s+", " ")
                 .trim();
 
-        if (text.length() > 2000) {
-            text = text.substring(0, 2000) + "...";
-        }
-
         return text;
     }
 
-    private String buildEnhancedCategorizationPrompt(String subject, String from, String body) {
-        return String.format("""
-        Analyze this email and determine if it's STRICTLY related to the user's PERSONAL job application process. 
-            
+    private static final String CLASSIFICATION_CRITERIA = """
         ONLY CONSIDER AN EMAIL JOB-RELATED IF IT MEETS ONE OF THESE SPECIFIC CRITERIA:
         1. Direct response to a job application the user has submitted (confirmation, status update, rejection, offer)
         2. Interview scheduling/confirmation for a position the user has applied to
@@ -151,7 +429,7 @@ public class EmailAnalysisService {
         OR
 
         1. email contains "We've sent your application to X" and similar themes, as they are likely related to the user's job application
-            
+
         EXPLICITLY IGNORE ALL OF THESE (even if they contain job-related keywords):
         - General career advice or tips
         - Job boards or career sites sending general updates or listings
@@ -162,15 +440,15 @@ public class EmailAnalysisService {
         - Industry webinars or educational content
         - ANY mass email or newsletter that's not about the user's specific application
         - Opt-in forms or general job alerts
-            
+
         IF IN DOUBT, CLASSIFY AS NOT JOB-RELATED. Be extremely strict and conservative.
-            
-        Return a JSON response with these fields:
-            
+        """;
+
+    private static final String CLASSIFICATION_FIELDS = """
         Required fields:
         - isJobRelated: true/false (must be false unless it's DEFINITELY about the user's specific job application)
         - confidenceScore: Your confidence in this determination (0.0-1.0)
-            
+
         If isJobRelated is true, also include:
         - category: One of [%s]
         - companyName: Company name (extract from email or content)
@@ -187,96 +465,200 @@ public class EmailAnalysisService {
         - requiredSkills: Key skills or requirements mentioned
         - rejectionReason: Specific reason for rejection (if it's a rejection email)
         - offerDetails: Salary, benefits, start date (if it's an offer email)
-            
+
         Optional fields (if mentioned):
         - interviewDate: Any interview date mentioned
         - interviewLocation: Interview location (virtual / physical address)
         - extractedInfo: Brief summary of key information (max 100 words)
         - applicationUrl: Extract any URL related to the job application (application portal, job description page, etc.)
-            
+        """;
+
+    /**
+     * Strict structured-output schema for one classification. Strict mode
+     * requires every field, so the detail fields are nullable and the two
+     * verdict fields come first.
+     */
+    private static ResponseSchema buildClassificationSchema() {
+        ObjectNode schema = JsonNodeFactory.instance.objectNode();
+        schema.put("type", "object");
+        schema.put("additionalProperties", false);
+        ObjectNode properties = schema.putObject("properties");
+        ArrayNode required = schema.putArray("required");
+
+        properties.putObject("isJobRelated").put("type", "boolean");
+        properties.putObject("confidenceScore").put("type", "number");
+        required.add("isJobRelated").add("confidenceScore");
+
+        for (String field : DETAIL_FIELDS) {
+            properties.putObject(field).putArray("type").add("string").add("null");
+            required.add(field);
+        }
+        return new ResponseSchema("email_classification", schema.toString());
+    }
+
+    /**
+     * What strict mode makes the model write for a non-job email when it is
+     * left to finish: the verdict plus every detail field as null.
+     */
+    private static String buildFullNotJobRelatedAnswer() {
+        ObjectNode answer = JsonNodeFactory.instance.objectNode();
+        answer.put("isJobRelated", false);
+        answer.put("confidenceScore", 0.95);
+        DETAIL_FIELDS.forEach(answer::putNull);
+        return answer.toString();
+    }
+
+    private String buildEnhancedCategorizationPrompt(String subject, String from, String body) {
+        return String.format("""
+        Analyze this email and determine if it's STRICTLY related to the user's PERSONAL job application process.
+
+        %s
+        Return a JSON response with these fields:
+
+        %s
         If isJobRelated is false, simply return {"isJobRelated": false, "confidenceScore": 0.9} and ignore other fields.
-            
-        IMPORTANT: Only extract information that is explicitly mentioned or strongly implied in the email content. 
+
+        IMPORTANT: Only extract information that is explicitly mentioned or strongly implied in the email content.
         Do not make assumptions or add generic information. If something is not mentioned, leave it empty.
-            
+
         Email Details:
         Subject: %s
         From: %s
         Body (plain text): %s
-            
+
         Return only valid JSON without any additional text or explanations.
         """,
-                EmailCategory.getAllCategories(),
+                CLASSIFICATION_CRITERIA,
+                CLASSIFICATION_FIELDS.formatted(EmailCategory.getAllCategories()),
                 subject, from, body
         );
     }
 
+    private String buildBatchCategorizationPrompt(List<CleanEmail> emails) {
+        StringBuilder emailBlocks = new StringBuilder();
+        for (CleanEmail email : emails) {
+            emailBlocks.append(formatBatchEmail(email));
+        }
+
+        return String.format("""
+        Analyze each of the emails below and determine, for each one, if it's STRICTLY related to the user's PERSONAL job application process.
+
+        %s
+        Return a JSON array with exactly one object per email, in any order. Every object MUST include
+        "emailId" copied exactly from the email's ID line, plus these fields:
+
+        %s
+        For an email that is not job-related, return just {"emailId": "<id>", "isJobRelated": false, "confidenceScore": 0.9}.
+
+        IMPORTANT: Judge every email on its own content only. Only extract information that is explicitly mentioned
+        or strongly implied in that email. If something is not mentioned, leave it empty.
+
+        Emails (%d):
+        %s
+        Return only a valid JSON array without any additional text or explanations.
+        """,
+                CLASSIFICATION_CRITERIA,
+                CLASSIFICATION_FIELDS.formatted(EmailCategory.getAllCategories()),
+                emails.size(),
+                emailBlocks
+        );
+    }
+
+    private String formatBatchEmail(CleanEmail email) {
+        return "--- EMAIL ---\n"
+                + "ID: " + email.id() + "\n"
+                + "Subject: " + email.subject() + "\n"
+                + "From: " + email.from() + "\n"
+                + "Body (plain text): " + email.body() + "\n\n";
+    }
+
     private JobApplicationData parseEnhancedAIResponse(String emailId, String subject, String from, String date, String body, String aiResponse) {
         JobApplicationData data = new JobApplicationData(emailId, subject, from, date);
+        data.setConfidenceScore(DEFAULT_CONFIDENCE);
 
         try {
-            String cleanResponse = aiResponse.trim();
-            if (cleanResponse.startsWith("```json")) {
-                cleanResponse = cleanResponse.substring(7);
-            }
-            if (cleanResponse.endsWith("```")) {
-                cleanResponse = cleanResponse.substring(0, cleanResponse.length() - 3);
+            if (!JsonResponseDecoder.decodeObject(aiResponse, (field, value) -> applyField(data, field, value))) {
+                throw new IOException("no JSON object in response");
             }
+        } catch (IOException e) {
+            System.err.println("Error parsing AI response: " + e.getMessage());
+            return createFallbackData(emailId, subject, from, date, body);
+        }
 
-            String isJobRelatedStr = extractJsonValue(cleanResponse, "isJobRelated");
-            boolean isJobRelated = "true".equalsIgnoreCase(isJobRelatedStr);
-            data.setJobRelated(isJobRelated);
+        return finishParsing(data, from, body);
+    }
 
-            String confidenceStr = extractJsonValue(cleanResponse, "confidenceScore");
-            if (confidenceStr != null) {
-                try {
-                    data.setConfidenceScore(Double.parseDouble(confidenceStr));
-                } catch (NumberFormatException e) {
-                    data.setConfidenceScore(0.7);
-                }
-            } else {
-                data.setConfidenceScore(0.7);
-            }
+    private JobApplicationData toJobData(CleanEmail email, Map<String, String> fields) {
+        JobApplicationData data = new JobApplicationData(email.id(), email.subject(), email.from(), email.date());
+        data.setConfidenceScore(DEFAULT_CONFIDENCE);
+        fields.forEach((field, value) -> applyField(data, field, value));
+        return finishParsing(data, email.from(), email.body());
+    }
 
-            if (!isJobRelated) {
-                return data;
-            }
+    private JobApplicationData finishParsing(JobApplicationData data, String from, String body) {
+        if (data.isJobRelated()) {
+            data.setProvider(determineProvider(from, body, data.getProvider()));
+        }
+        return data;
+    }
 
-            // Basic fields
-            String category = extractJsonValue(cleanResponse, "category");
-            try {
-                data.setCategory(EmailCategory.valueOf(category));
-            } catch (IllegalArgumentException e) {
-                // Use fallback categorization
+    /**
+     * Copy one field of the model's answer onto {@code data}. Fields arrive
+     * in whatever order the model wrote them; unknown ones are ignored.
+     */
+    private void applyField(JobApplicationData data, String field, String value) {
+        switch (field) {
+            case "isJobRelated" -> data.setJobRelated("true".equalsIgnoreCase(value));
+            case "confidenceScore" -> data.setConfidenceScore(parseConfidence(value));
+            case "category" -> {
+                EmailCategory category = parseCategory(value);
+                if (category != null) {
+                    data.setCategory(category);
+                }
             }
+            case "companyName" -> data.setCompanyName(value);
+            case "positionTitle" -> data.setPositionTitle(value);
+            case "applicationStatus" -> data.setApplicationStatus(value);
+            case "interviewDate" -> data.setInterviewDate(value);
+            case "interviewLocation" -> data.setInterviewLocation(value);
+            case "extractedInfo" -> data.setExtractedInfo(value);
+            case "applicationUrl" -> data.setApplicationUrl(value);
+            case "provider" -> data.setProvider(value);
+            case "workLocation" -> data.setWorkLocation(value);
+            case "workType" -> data.setWorkType(value);
+            case "salaryRange" -> data.setSalaryRange(value);
+            case "contactPerson" -> data.setContactPerson(value);
+            case "contactEmail" -> data.setContactEmail(value);
+            case "nextSteps" -> data.setNextSteps(value);
+            case "applicationDeadline" -> data.setApplicationDeadline(value);
+            case "requiredSkills" -> data.setRequiredSkills(value);
+            case "rejectionReason" -> data.setRejectionReason(value);
+            case "offerDetails" -> data.setOfferDetails(value);
+            default -> {
+            }
+        }
+    }
 
-            data.setCompanyName(extractJsonValue(cleanResponse, "companyName"));
-            data.setPositionTitle(extractJsonValue(cleanResponse, "positionTitle"));
-            data.setApplicationStatus(extractJsonValue(cleanResponse, "applicationStatus"));
-            data.setInterviewDate(extractJsonValue(cleanResponse, "interviewDate"));
-            data.setInterviewLocation(extractJsonValue(cleanResponse, "interviewLocation"));
-            data.setExtractedInfo(extractJsonValue(cleanResponse, "extractedInfo"));
-            data.setApplicationUrl(extractJsonValue(cleanResponse, "applicationUrl"));
-
-            // Enhanced fields
-            data.setProvider(determineProvider(from, body, extractJsonValue(cleanResponse, "provider")));
-            data.setWorkLocation(extractJsonValue(cleanResponse, "workLocation"));
-            data.setWorkType(extractJsonValue(cleanResponse, "workType"));
-            data.setSalaryRange(extractJsonValue(cleanResponse, "salaryRange"));
-            data.setContactPerson(extractJsonValue(cleanResponse, "contactPerson"));
-            data.setContactEmail(extractJsonValue(cleanResponse, "contactEmail"));
-            data.setNextSteps(extractJsonValue(cleanResponse, "nextSteps"));
-            data.setApplicationDeadline(extractJsonValue(cleanResponse, "applicationDeadline"));
-            data.setRequiredSkills(extractJsonValue(cleanResponse, "requiredSkills"));
-            data.setRejectionReason(extractJsonValue(cleanResponse, "rejectionReason"));
-            data.setOfferDetails(extractJsonValue(cleanResponse, "offerDetails"));
-
-        } catch (Exception e) {
-            System.err.println("Error parsing AI response: " + e.getMessage());
-            return createFallbackData(emailId, subject, from, date, body);
+    private static double parseConfidence(String value) {
+        if (value == null) {
+            return DEFAULT_CONFIDENCE;
         }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return DEFAULT_CONFIDENCE;
+        }
+    }
 
-        return data;
+    private EmailCategory parseCategory(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return EmailCategory.valueOf(value.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
     private String determineProvider(String from, String body, String aiProvider) {
@@ -307,16 +689,6 @@ public class EmailAnalysisService {
         }
     }
 
-    private String extractJsonValue(String json, String key) {
-        Pattern pattern = Pattern.compile("\"" + key + "\"\\s*:\\s*\"([^\"]*)\"|\"" + key + "\"\\s*:\\s*([^,}\\]]+)");
-        Matcher matcher = pattern.matcher(json);
-        if (matcher.find()) {
-            String value = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
-            return value != null ? value.trim().replaceAll("\"$", "") : null;
-        }
-        return null;
-    }
-
     private JobApplicationData createFallbackData(String emailId, String subject, String from, String date, String body) {
         JobApplicationData fallbackData = new JobApplicationData(emailId, subject, from, date);
 
@@ -398,4 +770,32 @@ public class EmailAnalysisService {
 
         return EmailCategory.APPLICATION_CONFIRMATION;
     }
+
+    /**
+     * Watches a streamed classification and stops generation as soon as the
+     * model has said the email is not job-related and how sure it is; nothing
+     * after that would be used.
+     */
+    private static final class EarlyVerdict implements JsonResponseDecoder.FieldHandler {
+
+        Boolean jobRelated;
+        Double confidence;
+        boolean stopped;
+
+        @Override
+        public void field(String name, String value) {
+            if ("isJobRelated".equals(name)) {
+                jobRelated = "true".equalsIgnoreCase(value);
+            } else if ("confidenceScore".equals(name)) {
+                confidence = parseConfidence(value);
+            }
+            if (Boolean.FALSE.equals(jobRelated) && confidence != null) {
+                stopped = true;
+                throw new StopGeneration();
+            }
+        }
+    }
+
+    private record CleanEmail(String id, String subject, String from, String date, String body) {
+    }
 }
@@ -37,6 +37,7 @@ public class JobApplicationData {
     private String offerDetails;
     private String lastUpdated;
     private String emailTimestamp; // Added for email chronology tracking
+    private boolean needsReanalysis; // Classified by rules while the LLM was unavailable
 
     // Constructors
     public JobApplicationData() {
@@ -151,6 +152,9 @@ public class JobApplicationData {
     public String getEmailTimestamp() { return emailTimestamp; }
     public void setEmailTimestamp(String emailTimestamp) { this.emailTimestamp = emailTimestamp; }
 
+    public boolean isNeedsReanalysis() { return needsReanalysis; }
+    public void setNeedsReanalysis(boolean needsReanalysis) { this.needsReanalysis = needsReanalysis; }
+
     public String serialize() {
         return String.join("||",
                 emailId != null ? emailId : "",
@@ -181,7 +185,8 @@ public class JobApplicationData {
                 rejectionReason != null ? rejectionReason : "",
                 offerDetails != null ? offerDetails : "",
                 lastUpdated != null ? lastUpdated : "",
-                emailTimestamp != null ? emailTimestamp : ""
+                emailTimestamp != null ? emailTimestamp : "",
+                String.valueOf(needsReanalysis)
         );
     }
 
@@ -237,6 +242,7 @@ public class JobApplicationData {
         if (parts.length > 26) data.setOfferDetails(parts[26].isEmpty() ? null : parts[26]);
         if (parts.length > 27) data.setLastUpdated(parts[27].isEmpty() ? null : parts[27]);
         if (parts.length > 28) data.setEmailTimestamp(parts[28].isEmpty() ? null : parts[28]);
+        if (parts.length > 29) data.setNeedsReanalysis(Boolean.parseBoolean(parts[29]));
 
         return data;
     }
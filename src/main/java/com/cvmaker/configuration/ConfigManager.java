@@ -6,10 +6,21 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
+import com.cvmaker.service.ai.Endpoint;
+import com.cvmaker.service.ai.LLMClientRegistry;
 import com.cvmaker.service.ai.LLMModel;
+import com.cvmaker.service.ai.LLMProvider;
+import com.cvmaker.service.ai.LLMResponseCache;
+import com.cvmaker.service.ai.LLMScheduler;
+import com.cvmaker.service.ai.RateLimiter;
+import com.cvmaker.service.ai.RequestPriority;
+import com.cvmaker.service.ai.RetryPolicy;
 
 import lombok.Data;
 import lombok.ToString;
@@ -30,6 +41,7 @@ public class ConfigManager {
     private String jobDescriptionFile;
     private String cvPromptFile;
     private String coverLetterPromptFile;
+    private String profilesDirectory;
 
     // Content (loaded from files)
     private String userDataContent;
@@ -50,17 +62,58 @@ public class ConfigManager {
     private int aiRequestDelayMs;
     private int aiMaxRetries;
     private int aiTimeoutSeconds;
+    private int aiRequestsPerMinute;
+    private int aiTokensPerMinute;
+    private String aiBatchEndpoint;
+    private LLMModel aiHedgeModel;
+    private List<String> aiLocalEndpoints;
+    private int aiCircuitFailureThreshold;
+    private long aiCircuitLatencySloMs;
+    private Map<String, Long> aiCircuitCallSiteLatencySloMs;
+    private long aiCircuitOpenMs;
+    private String aiProviderMode;
+    private String aiCorpusDirectory;
+    private double aiReplayLatencyScale;
+    private int aiSchedulerMaxConcurrent;
+    private Map<RequestPriority, Integer> aiSchedulerClassLimits;
+    private long aiSchedulerAgingMs;
+    private Map<String, Integer> aiInputTokenBudgets;
+
+    // AI response cache settings
+    private boolean aiCacheEnabled;
+    private String aiCacheDirectory;
+    private int aiCacheMemoryEntries;
+    private int aiCacheDiskMaxMb;
+    private List<String> aiCacheDisabledCallSites;
 
     // Debug settings
     private boolean saveGeneratedLatex;
     private boolean saveAiResponses;
     private boolean generateCoverLetter;
+    private int maxConcurrentJobs;
+
+    // Batch pipeline settings (--pipeline)
+    private int pipelineFetchWorkers;
+    private int pipelineGenerateWorkers;
+    private int pipelineCompileWorkers;
+    private int pipelineCleanupWorkers;
+    private int pipelineQueueCapacity;
 
     // LaTeX compilation settings
     private String latexCompiler;
     private List<String> latexCompilerArgs;
     private List<String> cleanupExtensions;
     private int progressReportInterval;
+    private boolean latexPrecompiledFormats;
+    private boolean latexCompileCacheEnabled;
+    private String latexCompileCacheDirectory;
+    private int latexCompileCacheMaxEntries;
+    private int latexCompileCacheMaxMb;
+    private boolean latexCompileCacheHardLinks;
+
+    // PDF rendering: "latex" runs latexCompiler, "itext" lays the document out in-process
+    private String renderEngine;
+    private String renderItextTemplate;
 
     public ConfigManager() throws IOException {
         this(DEFAULT_CONFIG_FILE);
@@ -96,6 +149,7 @@ public class ConfigManager {
         this.jobDescriptionFile = "";
         this.cvPromptFile = "cv_prompt.txt";
         this.coverLetterPromptFile = "cover_letter_prompt.txt";
+        this.profilesDirectory = "profiles";
 
         // Output defaults
         this.outputDirectory = "generation";
@@ -110,17 +164,58 @@ public class ConfigManager {
         this.aiRequestDelayMs = 1000;
         this.aiMaxRetries = 3;
         this.aiTimeoutSeconds = 60;
+        this.aiRequestsPerMinute = 0;
+        this.aiTokensPerMinute = 0;
+        this.aiBatchEndpoint = Endpoint.OPENAI_API.getUrl();
+        this.aiCircuitFailureThreshold = 5;
+        this.aiCircuitLatencySloMs = 45_000;
+        // CV answers run to thousands of tokens in one unstreamed call; judge them on errors only
+        this.aiCircuitCallSiteLatencySloMs = new HashMap<>(Map.of("cv", 0L));
+        this.aiCircuitOpenMs = 60_000;
+        this.aiProviderMode = "";
+        this.aiCorpusDirectory = "corpus";
+        this.aiReplayLatencyScale = 1.0;
+        this.aiSchedulerMaxConcurrent = 16;
+        this.aiSchedulerClassLimits = LLMScheduler.defaultLimits(aiSchedulerMaxConcurrent);
+        this.aiSchedulerAgingMs = 10_000;
+        this.aiInputTokenBudgets = new HashMap<>(Map.of(
+                "cv", 16000,
+                "form-analyze", 8000,
+                "form-field", 4000));
+
+        // AI response cache defaults (form analysis runs hot and must stay non-deterministic)
+        this.aiCacheEnabled = true;
+        this.aiCacheDirectory = "cache";
+        this.aiCacheMemoryEntries = 256;
+        this.aiCacheDiskMaxMb = 64;
+        this.aiCacheDisabledCallSites = Arrays.asList("form-analyze");
 
         // Debug defaults
         this.saveGeneratedLatex = false;
         this.saveAiResponses = false;
         this.generateCoverLetter = true;
+        this.maxConcurrentJobs = 4;
+
+        // Batch pipeline defaults: generation waits on the LLM, compilation needs a core (0 = one per core)
+        this.pipelineFetchWorkers = 2;
+        this.pipelineGenerateWorkers = 8;
+        this.pipelineCompileWorkers = 0;
+        this.pipelineCleanupWorkers = 1;
+        this.pipelineQueueCapacity = 16;
 
         // LaTeX compilation defaults
         this.latexCompiler = "pdflatex";
         this.latexCompilerArgs = Arrays.asList("-interaction=nonstopmode");
         this.cleanupExtensions = Arrays.asList(".tex", ".log", ".aux", ".out", ".fdb_latexmk", ".fls", ".synctex.gz");
         this.progressReportInterval = 5;
+        this.latexPrecompiledFormats = true;
+        this.latexCompileCacheEnabled = true;
+        this.latexCompileCacheDirectory = "cache/pdf";
+        this.latexCompileCacheMaxEntries = 200;
+        this.latexCompileCacheMaxMb = 256;
+        this.latexCompileCacheHardLinks = true;
+        this.renderEngine = "latex";
+        this.renderItextTemplate = "";
     }
 
     private void loadConfiguration(String configFilePath) throws IOException {
@@ -144,7 +239,9 @@ public class ConfigManager {
         loadAiSettings(properties);
         loadDebugSettings(properties);
         loadPerformanceSettings(properties);
+        loadCacheSettings(properties);
         loadLatexSettings(properties);
+        loadPipelineSettings(properties);
 
         // Load file contents
         loadFileContents();
@@ -163,6 +260,7 @@ public class ConfigManager {
         this.jobDescriptionFile = properties.getProperty("input.job.description.file", this.jobDescriptionFile).trim();
         this.cvPromptFile = properties.getProperty("input.cv.prompt.file", this.cvPromptFile);
         this.coverLetterPromptFile = properties.getProperty("input.cover.letter.prompt.file", this.coverLetterPromptFile);
+        this.profilesDirectory = properties.getProperty("input.profiles.directory", this.profilesDirectory).trim();
     }
 
     private void loadOutputSettings(Properties properties) {
@@ -172,6 +270,7 @@ public class ConfigManager {
         this.cvTexFilename = properties.getProperty("output.cv.tex.filename", this.cvTexFilename);
         this.coverLetterTexFilename = properties.getProperty("output.cover.letter.tex.filename", this.coverLetterTexFilename);
         this.generateCoverLetter = Boolean.parseBoolean(properties.getProperty("output.generate.cover.letter", String.valueOf(this.generateCoverLetter)));
+        this.maxConcurrentJobs = Math.max(1, Integer.parseInt(properties.getProperty("output.max_concurrent_jobs", String.valueOf(this.maxConcurrentJobs))));
     }
 
     private void loadAiSettings(Properties properties) {
@@ -202,6 +301,92 @@ public class ConfigManager {
         this.aiRequestDelayMs = Integer.parseInt(properties.getProperty("ai.request_delay_ms", String.valueOf(this.aiRequestDelayMs)));
         this.aiMaxRetries = Integer.parseInt(properties.getProperty("ai.max_retries", String.valueOf(this.aiMaxRetries)));
         this.aiTimeoutSeconds = Integer.parseInt(properties.getProperty("ai.timeout_seconds", String.valueOf(this.aiTimeoutSeconds)));
+        this.aiRequestsPerMinute = Integer.parseInt(properties.getProperty("ai.rate_limit.requests_per_minute", String.valueOf(this.aiRequestsPerMinute)));
+        this.aiTokensPerMinute = Integer.parseInt(properties.getProperty("ai.rate_limit.tokens_per_minute", String.valueOf(this.aiTokensPerMinute)));
+        this.aiBatchEndpoint = properties.getProperty("ai.batch.endpoint", this.aiBatchEndpoint);
+
+        String hedgeModelName = properties.getProperty("ai.hedge.model", "").trim();
+        if (!hedgeModelName.isEmpty()) {
+            try {
+                this.aiHedgeModel = LLMModel.valueOf(hedgeModelName);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Warning: Invalid hedge model '" + hedgeModelName + "', hedging disabled");
+            }
+        }
+
+        String localEndpoints = properties.getProperty("ai.local.endpoints", "").trim();
+        if (!localEndpoints.isEmpty()) {
+            this.aiLocalEndpoints = Arrays.stream(localEndpoints.split(","))
+                    .map(String::trim)
+                    .filter(url -> !url.isEmpty())
+                    .toList();
+            LLMClientRegistry.getInstance().setLocalEndpoints(aiLocalEndpoints);
+        }
+
+        // ai.budget.<call-site>.input_tokens
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("ai.budget.") && key.endsWith(".input_tokens")) {
+                String callSite = key.substring("ai.budget.".length(), key.length() - ".input_tokens".length());
+                this.aiInputTokenBudgets.put(callSite, Integer.parseInt(properties.getProperty(key).trim()));
+            }
+        }
+
+        this.aiCircuitFailureThreshold = Integer.parseInt(properties.getProperty("ai.circuit.failure_threshold", String.valueOf(this.aiCircuitFailureThreshold)));
+        this.aiCircuitLatencySloMs = Long.parseLong(properties.getProperty("ai.circuit.latency_slo_ms", String.valueOf(this.aiCircuitLatencySloMs)));
+        this.aiCircuitOpenMs = Long.parseLong(properties.getProperty("ai.circuit.open_ms", String.valueOf(this.aiCircuitOpenMs)));
+        // ai.circuit.latency_slo_ms.<call-site>
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("ai.circuit.latency_slo_ms.")) {
+                String callSite = key.substring("ai.circuit.latency_slo_ms.".length());
+                this.aiCircuitCallSiteLatencySloMs.put(callSite, Long.parseLong(properties.getProperty(key).trim()));
+            }
+        }
+
+        LLMClientRegistry.getInstance().setRetryPolicy(
+                new RetryPolicy(aiMaxRetries, aiRequestDelayMs, aiTimeoutSeconds * 1000L));
+        LLMClientRegistry.getInstance().configureCircuitBreakers(aiCircuitFailureThreshold, aiCircuitLatencySloMs,
+                aiCircuitCallSiteLatencySloMs, aiCircuitOpenMs);
+
+        // ai.scheduler.<priority>.max_concurrent caps each class within ai.scheduler.max_concurrent
+        this.aiSchedulerMaxConcurrent = Integer.parseInt(properties.getProperty("ai.scheduler.max_concurrent", String.valueOf(this.aiSchedulerMaxConcurrent)));
+        this.aiSchedulerClassLimits = LLMScheduler.defaultLimits(aiSchedulerMaxConcurrent);
+        for (RequestPriority priority : RequestPriority.values()) {
+            String limit = properties.getProperty("ai.scheduler." + priority.name().toLowerCase() + ".max_concurrent");
+            if (limit != null && !limit.isBlank()) {
+                this.aiSchedulerClassLimits.put(priority, Integer.parseInt(limit.trim()));
+            }
+        }
+        this.aiSchedulerAgingMs = Long.parseLong(properties.getProperty("ai.scheduler.aging_ms", String.valueOf(this.aiSchedulerAgingMs)));
+        LLMClientRegistry.getInstance().configureSchedulers(aiSchedulerMaxConcurrent, aiSchedulerClassLimits, aiSchedulerAgingMs);
+
+        // RECORD tees live calls into the corpus, REPLAY answers from it offline
+        this.aiProviderMode = properties.getProperty("ai.provider.mode", this.aiProviderMode).trim();
+        this.aiCorpusDirectory = properties.getProperty("ai.corpus.directory", this.aiCorpusDirectory);
+        this.aiReplayLatencyScale = Double.parseDouble(properties.getProperty("ai.replay.latency_scale", String.valueOf(this.aiReplayLatencyScale)));
+        if (!aiProviderMode.isEmpty()) {
+            LLMClientRegistry.getInstance().setProviderMode(LLMProvider.valueOf(aiProviderMode.toUpperCase()),
+                    Paths.get(aiCorpusDirectory), aiReplayLatencyScale);
+        }
+
+        // Only override the provider's built-in quota when a limit is given
+        if (aiRequestsPerMinute > 0 || aiTokensPerMinute > 0) {
+            RateLimiter.getInstance().configure(aiModel.getProvider(), aiRequestsPerMinute, aiTokensPerMinute);
+        }
+    }
+
+    private void loadCacheSettings(Properties properties) {
+        this.aiCacheEnabled = Boolean.parseBoolean(properties.getProperty("ai.cache.enabled", String.valueOf(this.aiCacheEnabled)));
+        this.aiCacheDirectory = properties.getProperty("ai.cache.directory", this.aiCacheDirectory);
+        this.aiCacheMemoryEntries = Integer.parseInt(properties.getProperty("ai.cache.memory.entries", String.valueOf(this.aiCacheMemoryEntries)));
+        this.aiCacheDiskMaxMb = Integer.parseInt(properties.getProperty("ai.cache.disk.max.mb", String.valueOf(this.aiCacheDiskMaxMb)));
+
+        String disabledStr = properties.getProperty("ai.cache.disabled.call.sites", String.join(",", this.aiCacheDisabledCallSites));
+        this.aiCacheDisabledCallSites = Arrays.stream(disabledStr.split(","))
+                .map(String::trim)
+                .filter(site -> !site.isEmpty())
+                .collect(Collectors.toList());
+
+        LLMResponseCache.configureDefault(Paths.get(aiCacheDirectory), aiCacheMemoryEntries, aiCacheDiskMaxMb * 1024L * 1024L);
     }
 
     private void loadLatexSettings(Properties properties) {
@@ -214,6 +399,27 @@ public class ConfigManager {
         this.cleanupExtensions = Arrays.asList(cleanupExtStr.split(","));
 
         this.progressReportInterval = Integer.parseInt(properties.getProperty("latex.progress.report.interval", String.valueOf(this.progressReportInterval)));
+        this.latexPrecompiledFormats = Boolean.parseBoolean(properties.getProperty("latex.precompiled.formats", String.valueOf(this.latexPrecompiledFormats)));
+
+        this.latexCompileCacheEnabled = Boolean.parseBoolean(properties.getProperty("latex.compile.cache.enabled", String.valueOf(this.latexCompileCacheEnabled)));
+        this.latexCompileCacheDirectory = properties.getProperty("latex.compile.cache.directory", this.latexCompileCacheDirectory);
+        this.latexCompileCacheMaxEntries = Integer.parseInt(properties.getProperty("latex.compile.cache.max.entries", String.valueOf(this.latexCompileCacheMaxEntries)));
+        this.latexCompileCacheMaxMb = Integer.parseInt(properties.getProperty("latex.compile.cache.max.mb", String.valueOf(this.latexCompileCacheMaxMb)));
+        this.latexCompileCacheHardLinks = Boolean.parseBoolean(properties.getProperty("latex.compile.cache.hard_links", String.valueOf(this.latexCompileCacheHardLinks)));
+
+        this.renderEngine = properties.getProperty("render.engine", this.renderEngine).trim().toLowerCase();
+        if (!renderEngine.equals("latex") && !renderEngine.equals("itext")) {
+            throw new IllegalArgumentException("render.engine must be latex or itext, not " + renderEngine);
+        }
+        this.renderItextTemplate = properties.getProperty("render.itext.template", this.renderItextTemplate).trim();
+    }
+
+    private void loadPipelineSettings(Properties properties) {
+        this.pipelineFetchWorkers = Math.max(1, Integer.parseInt(properties.getProperty("pipeline.fetch.workers", String.valueOf(this.pipelineFetchWorkers))));
+        this.pipelineGenerateWorkers = Math.max(1, Integer.parseInt(properties.getProperty("pipeline.generate.workers", String.valueOf(this.pipelineGenerateWorkers))));
+        this.pipelineCompileWorkers = Math.max(0, Integer.parseInt(properties.getProperty("pipeline.compile.workers", String.valueOf(this.pipelineCompileWorkers))));
+        this.pipelineCleanupWorkers = Math.max(1, Integer.parseInt(properties.getProperty("pipeline.cleanup.workers", String.valueOf(this.pipelineCleanupWorkers))));
+        this.pipelineQueueCapacity = Math.max(1, Integer.parseInt(properties.getProperty("pipeline.queue.capacity", String.valueOf(this.pipelineQueueCapacity))));
     }
 
     private void loadFileContents() throws IOException {
@@ -267,6 +473,28 @@ public class ConfigManager {
         loadFileContents();
     }
 
+    // Whether PDFs are laid out in-process with iText instead of compiled with LaTeX
+    public boolean isItextRenderEnabled() {
+        return "itext".equals(renderEngine);
+    }
+
+    // iText layout to use: render.itext.template if set, otherwise the one matching template.name
+    public String getItextTemplateName() {
+        return renderItextTemplate.isEmpty() ? templateName : renderItextTemplate;
+    }
+
+    /**
+     * Prompt token budget for a call site, or 0 if it has none.
+     */
+    public int getAiInputTokenBudget(String callSite) {
+        return aiInputTokenBudgets.getOrDefault(callSite, 0);
+    }
+
+    // Check whether a call site (e.g. "cv", "form-analyze") may reuse cached AI responses
+    public boolean isAiCacheEnabledFor(String callSite) {
+        return aiCacheEnabled && !aiCacheDisabledCallSites.contains(callSite);
+    }
+
     // Check if job URL is provided
     public boolean hasJobUrl() {
         return jobUrl != null && !jobUrl.trim().isEmpty();
@@ -38,6 +38,9 @@ public abstract class AbstractJobCrawler implements JobCrawler {
     protected int jobsChecked = 0;
     protected int easyApplyJobsFound = 0;
 
+    // Reused across jobs; its AiService shares the process-wide LLM clients
+    private CVGenerator cvGenerator;
+
     public AbstractJobCrawler() throws Exception {
         this(new CrawlerConfig());
     }
@@ -172,8 +175,11 @@ public abstract class AbstractJobCrawler implements JobCrawler {
             // Create config for this specific job
             config.setJobDescriptionContent(jobContent);
 
-            // Generate CV using the simplified CVGenerator
-            CVGenerator generator = new CVGenerator(config);
+            // Generate CV using the shared CVGenerator
+            if (cvGenerator == null) {
+                cvGenerator = new CVGenerator(config);
+            }
+            CVGenerator generator = cvGenerator;
 
             // Temporarily update config output directory
             String originalOutputDir = config.getOutputDirectory();
@@ -184,8 +190,6 @@ public abstract class AbstractJobCrawler implements JobCrawler {
             // Restore original output directory
             config.setOutputDirectory(originalOutputDir);
 
-            generator.shutdown();
-
             Path cvPath = jobFolderPath.resolve(config.getOutputPdfName());
             if (Files.exists(cvPath)) {
                 System.out.println("CV generated successfully: " + cvPath.toAbsolutePath());
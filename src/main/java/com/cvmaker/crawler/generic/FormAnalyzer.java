@@ -3,11 +3,14 @@ package com.cvmaker.crawler.generic;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.cvmaker.configuration.ConfigManager;
 import com.cvmaker.configuration.CrawlerConfig;
 import com.cvmaker.crawler.generic.utils.AIResponseParser;
 import com.cvmaker.crawler.generic.utils.FieldExtractor;
 import com.cvmaker.service.ai.AiService;
 import com.cvmaker.service.ai.LLMModel;
+import com.cvmaker.service.ai.OutputProfile;
+import com.cvmaker.service.ai.RequestPriority;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 
@@ -21,10 +24,14 @@ public class FormAnalyzer {
     private final AiService aiService;
     private final Map<String, String> formContext = new HashMap<>();
 
-    public FormAnalyzer(Page page, CrawlerConfig config) {
+    public FormAnalyzer(Page page, CrawlerConfig config, ConfigManager cvConfig) {
         this.page = page;
         this.config = config;
-        this.aiService = new AiService(LLMModel.GPT_5_1_MINI, 0.7); // creative responses
+        this.aiService = new AiService(LLMModel.GPT_5_1_MINI, 0.7, cvConfig.isAiCacheEnabledFor("form-analyze")) // creative responses
+                .setInputTokenBudget(cvConfig.getAiInputTokenBudget("form-analyze"))
+                .setCallSite("form-analyze")
+                .setOutputProfile(OutputProfile.FORM_ANALYSIS)
+                .setPriority(RequestPriority.INTERACTIVE);
     }
 
     /**
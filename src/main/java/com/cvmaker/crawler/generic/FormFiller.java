@@ -5,10 +5,13 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import com.cvmaker.configuration.ConfigManager;
 import com.cvmaker.configuration.CrawlerConfig;
 import com.cvmaker.crawler.FormField;
 import com.cvmaker.service.ai.AiService;
 import com.cvmaker.service.ai.LLMModel;
+import com.cvmaker.service.ai.OutputProfile;
+import com.cvmaker.service.ai.RequestPriority;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.options.LoadState;
@@ -22,11 +25,15 @@ public class FormFiller {
     private final FieldHandler fieldHandler;
     private final AiService aiService;
 
-    public FormFiller(Page page, CrawlerConfig config) {
+    public FormFiller(Page page, CrawlerConfig config, ConfigManager cvConfig) {
         this.page = page;
         this.config = config;
         this.fieldHandler = new FieldHandler(page);
-        this.aiService = new AiService(LLMModel.GPT_5_1_MINI, 0.5); // more deterministic than analyzer
+        this.aiService = new AiService(LLMModel.GPT_5_1_MINI, 0.5, cvConfig.isAiCacheEnabledFor("form-field")) // more deterministic than analyzer
+                .setInputTokenBudget(cvConfig.getAiInputTokenBudget("form-field"))
+                .setCallSite("form-field")
+                .setOutputProfile(OutputProfile.FORM_FIELD)
+                .setPriority(RequestPriority.INTERACTIVE);
     }
 
     /**
@@ -20,8 +20,8 @@ public class GenericCrawler extends AbstractJobCrawler {
 
     public GenericCrawler(CrawlerConfig crawlerConfig) throws Exception {
         super(crawlerConfig);
-        this.analyzer = new FormAnalyzer(page, crawlerConfig);
-        this.filler = new FormFiller(page, crawlerConfig);
+        this.analyzer = new FormAnalyzer(page, crawlerConfig, config);
+        this.filler = new FormFiller(page, crawlerConfig, config);
     }
 
     @Override
@@ -1,6 +1,6 @@
 package com.cvmaker.crawler.generic.utils;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.cvmaker.service.ai.JsonResponseDecoder;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -23,17 +23,13 @@ public class AIResponseParser {
         }
 
         try {
-            String jsonStr = aiResponse.substring(
-                aiResponse.indexOf("{"),
-                aiResponse.lastIndexOf("}") + 1
-            );
-
-            Map<String, Object> parsed = new ObjectMapper().readValue(jsonStr, Map.class);
-
-            for (Map.Entry<String, Object> entry : parsed.entrySet()) {
-                if (entry.getValue() != null) {
-                    context.put(entry.getKey(), entry.getValue().toString());
+            boolean found = JsonResponseDecoder.decodeObject(aiResponse, (field, value) -> {
+                if (value != null) {
+                    context.put(field, value);
                 }
+            });
+            if (!found) {
+                System.out.println("Warning: No JSON object in AI response");
             }
         } catch (Exception e) {
             System.out.println("Warning: Could not parse AI response as JSON: " + e.getMessage());
@@ -2,6 +2,7 @@ package com.cvmaker.crawler.reed;
 
 import com.cvmaker.configuration.CrawlerConfig;
 import com.cvmaker.crawler.JobInfo;
+import com.cvmaker.service.ai.TokenCounter;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 
@@ -28,6 +29,10 @@ public class JobDescriptionExtractor {
         "[data-testid*='description']"
     };
 
+    // The whole-page fallback drags in navigation, cookie banners and footers
+    private static final int FALLBACK_TOKEN_BUDGET = 2000;
+    private static final int MIN_WORDS_PER_LINE = 6;
+
     public JobDescriptionExtractor(Page page, CrawlerConfig config) {
         this.page = page;
         this.config = config;
@@ -59,10 +64,10 @@ public class JobDescriptionExtractor {
                 }
             }
 
-            // 3. Fallback: entire body
-            String bodyText = page.textContent("body");
+            // 3. Fallback: prose lines of the page body, within a token budget
+            String bodyText = page.innerText("body");
             if (bodyText != null && !bodyText.isEmpty()) {
-                description.append(bodyText);
+                description.append(TokenCounter.truncate(keepProseLines(bodyText), FALLBACK_TOKEN_BUDGET));
             }
 
         } catch (Exception e) {
@@ -71,4 +76,18 @@ public class JobDescriptionExtractor {
 
         return description.toString();
     }
+
+    /**
+     * Drop menu items, buttons and other short lines, keeping sentences.
+     */
+    private String keepProseLines(String text) {
+        StringBuilder prose = new StringBuilder();
+        for (String line : text.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.split("\\s+").length >= MIN_WORDS_PER_LINE) {
+                prose.append(trimmed).append("\n");
+            }
+        }
+        return prose.toString();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.cvmaker.render;
+
+import java.util.List;
+
+/**
+ * A CV or cover letter reduced to plain-text sections, ready to be laid out
+ * by {@link ITextCvRenderer}. {@code name} and the header lines may be
+ * empty; a section title is null for text that comes before any section,
+ * such as the body of a letter.
+ */
+public record CvDocument(String name, List<String> headerLines, List<Section> sections) {
+
+    public record Section(String title, List<Block> blocks) {
+    }
+
+    public interface Block {
+    }
+
+    /**
+     * A dated item such as a job or degree: a title, lines under it, and
+     * lines set apart beside it (dates, places).
+     */
+    public record Entry(String title, List<String> details, List<String> aside) implements Block {
+    }
+
+    public record Bullet(String text) implements Block {
+    }
+
+    /**
+     * Running text; line breaks inside it are kept.
+     */
+    public record Paragraph(String text) implements Block {
+    }
+}
@@ -0,0 +1,250 @@
+package com.cvmaker.render;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.borders.Border;
+import com.itextpdf.layout.borders.SolidBorder;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Div;
+import com.itextpdf.layout.element.List;
+import com.itextpdf.layout.element.ListItem;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.element.Text;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import com.itextpdf.layout.properties.VerticalAlignment;
+
+/**
+ * Lays out a {@link CvDocument} as a PDF inside the JVM, with no TeX
+ * process. Each {@link Template} mirrors one of the LaTeX templates closely
+ * enough to stand in for it; a render takes milliseconds instead of the
+ * seconds a pdflatex run does. Uses the standard PDF fonts, so nothing is
+ * embedded and characters outside Latin-1 are dropped.
+ */
+public class ITextCvRenderer {
+
+    private static final float CM = 28.35f;
+
+    /**
+     * Layouts equivalent to the LaTeX templates of the same name.
+     */
+    public enum Template {
+        // RenderCV-style: serif, centred header, ruled section titles, dates on the right
+        CLASSIC(PageSize.LETTER, 2 * CM, StandardFonts.TIMES_ROMAN, StandardFonts.TIMES_BOLD, StandardFonts.TIMES_ITALIC,
+                new DeviceRgb(0, 79, 144), 10.5f),
+        // Hipster-style: sans, dark header band, labelled section titles, dates on the left
+        MODERN(PageSize.A4, 1.5f * CM, StandardFonts.HELVETICA, StandardFonts.HELVETICA_BOLD, StandardFonts.HELVETICA_OBLIQUE,
+                new DeviceRgb(46, 139, 111), 9.5f);
+
+        private final PageSize pageSize;
+        private final float margin;
+        private final String regularFont;
+        private final String boldFont;
+        private final String italicFont;
+        private final Color accent;
+        private final float fontSize;
+
+        Template(PageSize pageSize, float margin, String regularFont, String boldFont, String italicFont, Color accent, float fontSize) {
+            this.pageSize = pageSize;
+            this.margin = margin;
+            this.regularFont = regularFont;
+            this.boldFont = boldFont;
+            this.italicFont = italicFont;
+            this.accent = accent;
+            this.fontSize = fontSize;
+        }
+
+        /**
+         * The layout for a LaTeX template name, or null for a template whose
+         * markup {@link LatexCvParser} does not read. With no name, classic.
+         */
+        public static Template forName(String templateName) {
+            if (templateName == null || templateName.isBlank()) {
+                return CLASSIC;
+            }
+            String name = templateName.toLowerCase(Locale.ROOT);
+            if (name.startsWith("modern")) {
+                return MODERN;
+            }
+            // professional is RenderCV markup too, with a header environment
+            return name.equals("classic") || name.equals("professional") ? CLASSIC : null;
+        }
+    }
+
+    private final Template template;
+
+    public ITextCvRenderer(Template template) {
+        this.template = template;
+    }
+
+    public Template getTemplate() {
+        return template;
+    }
+
+    /**
+     * Written to a temporary file and moved over {@code pdfFile}, so a PDF
+     * hard-linked from {@link com.cvmaker.PdfCompileCache} is replaced
+     * rather than rewritten.
+     */
+    public void render(CvDocument cv, Path pdfFile) throws IOException {
+        Path tmp = pdfFile.resolveSibling(pdfFile.getFileName() + ".tmp");
+        try {
+            write(cv, tmp);
+            Files.move(tmp, pdfFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void write(CvDocument cv, Path pdfFile) throws IOException {
+        // Fonts belong to one document, so are created per render
+        PdfFont regular = PdfFontFactory.createFont(template.regularFont);
+        PdfFont bold = PdfFontFactory.createFont(template.boldFont);
+        PdfFont italic = PdfFontFactory.createFont(template.italicFont);
+
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(pdfFile.toString()))) {
+            if (!cv.name().isEmpty()) {
+                pdf.getDocumentInfo().setTitle(cv.name()).setAuthor(cv.name());
+            }
+            pdf.getDocumentInfo().setCreator("cvmaker");
+
+            Document document = new Document(pdf, template.pageSize, false);
+            document.setMargins(template.margin, template.margin, template.margin, template.margin);
+            document.setFont(regular).setFontSize(template.fontSize);
+
+            addHeader(document, cv, regular, bold);
+            for (CvDocument.Section section : cv.sections()) {
+                if (section.title() != null) {
+                    addSectionTitle(document, section.title(), bold);
+                }
+                List bullets = null;
+                for (CvDocument.Block block : section.blocks()) {
+                    if (block instanceof CvDocument.Bullet bullet) {
+                        if (bullets == null) {
+                            bullets = newBulletList();
+                        }
+                        bullets.add(new ListItem(bullet.text()));
+                        continue;
+                    }
+                    if (bullets != null) {
+                        document.add(bullets);
+                        bullets = null;
+                    }
+                    if (block instanceof CvDocument.Entry entry) {
+                        document.add(entryTable(entry, bold, italic));
+                    } else if (block instanceof CvDocument.Paragraph paragraph) {
+                        document.add(new Paragraph(paragraph.text()).setMarginTop(2).setMarginBottom(4));
+                    }
+                }
+                if (bullets != null) {
+                    document.add(bullets);
+                }
+            }
+
+            // Page footer on CVs only; a letter has no sections
+            if (cv.sections().stream().anyMatch(section -> section.title() != null)) {
+                addFooter(document, pdf, cv.name(), italic);
+            }
+            document.close();
+        }
+    }
+
+    private void addHeader(Document document, CvDocument cv, PdfFont regular, PdfFont bold) {
+        if (cv.name().isEmpty() && cv.headerLines().isEmpty()) {
+            return;
+        }
+        if (template == Template.CLASSIC) {
+            document.add(new Paragraph(cv.name()).setFont(bold).setFontSize(24)
+                    .setTextAlignment(TextAlignment.CENTER).setMarginBottom(4));
+            for (String line : cv.headerLines()) {
+                document.add(new Paragraph(line).setTextAlignment(TextAlignment.CENTER).setMargin(0));
+            }
+            document.add(new Paragraph().setMarginBottom(6));
+            return;
+        }
+
+        Div band = new Div().setBackgroundColor(new DeviceRgb(51, 51, 51)).setPadding(14).setMarginBottom(10);
+        band.add(new Paragraph(cv.name()).setFont(bold).setFontSize(26).setFontColor(ColorConstants.WHITE).setMargin(0));
+        for (String line : cv.headerLines()) {
+            band.add(new Paragraph(line).setFont(regular).setFontSize(9).setFontColor(ColorConstants.WHITE).setMargin(0));
+        }
+        document.add(band);
+    }
+
+    private void addSectionTitle(Document document, String title, PdfFont bold) {
+        if (template == Template.CLASSIC) {
+            document.add(new Paragraph(title).setFont(bold).setFontSize(12)
+                    .setBorderBottom(new SolidBorder(0.6f)).setMarginTop(8).setMarginBottom(4).setKeepWithNext(true));
+            return;
+        }
+        document.add(new Paragraph(new Text(" " + title.toUpperCase(Locale.ROOT) + " ")
+                .setFont(bold).setFontSize(10).setFontColor(ColorConstants.WHITE).setBackgroundColor(template.accent))
+                .setMarginTop(10).setMarginBottom(4).setKeepWithNext(true));
+    }
+
+    /**
+     * Classic puts dates and places in a right-hand column, modern in a left-hand one.
+     */
+    private Table entryTable(CvDocument.Entry entry, PdfFont bold, PdfFont italic) {
+        Paragraph main = new Paragraph().setMargin(0).add(new Text(entry.title()).setFont(bold));
+        for (String detail : entry.details()) {
+            main.add("\n").add(new Text(detail).setFont(italic));
+        }
+        Paragraph aside = new Paragraph(String.join("\n", entry.aside())).setMargin(0).setFont(italic)
+                .setFontSize(template.fontSize - 0.5f);
+
+        boolean asideFirst = template == Template.MODERN;
+        Table table = new Table(UnitValue.createPercentArray(asideFirst ? new float[]{22, 78} : new float[]{76, 24}))
+                .useAllAvailableWidth().setMarginTop(4).setMarginBottom(2).setKeepTogether(true);
+        Cell mainCell = new Cell().add(main).setBorder(Border.NO_BORDER).setPadding(0);
+        Cell asideCell = new Cell().add(aside).setBorder(Border.NO_BORDER).setPadding(0)
+                .setTextAlignment(TextAlignment.RIGHT).setVerticalAlignment(VerticalAlignment.TOP);
+        if (asideFirst) {
+            asideCell.setFontColor(ColorConstants.GRAY).setPaddingRight(8)
+                    .setBorderRight(new SolidBorder(template.accent, 1));
+            mainCell.setPaddingLeft(8);
+            table.addCell(asideCell).addCell(mainCell);
+        } else {
+            table.addCell(mainCell).addCell(asideCell);
+        }
+        return table;
+    }
+
+    private List newBulletList() {
+        List list = new List().setSymbolIndent(6).setMarginLeft(template == Template.CLASSIC ? 14 : 8)
+                .setMarginTop(1).setMarginBottom(3);
+        if (template == Template.CLASSIC) {
+            list.setListSymbol("•");
+        } else {
+            list.setListSymbol(new Text("›").setFontColor(template.accent));
+        }
+        return list;
+    }
+
+    private void addFooter(Document document, PdfDocument pdf, String name, PdfFont italic) {
+        if (template != Template.CLASSIC) {
+            return;
+        }
+        int pages = pdf.getNumberOfPages();
+        for (int page = 1; page <= pages; page++) {
+            String text = (name.isEmpty() ? "" : name + " - ") + "Page " + page + " of " + pages;
+            document.showTextAligned(new Paragraph(text).setFont(italic).setFontSize(9).setFontColor(ColorConstants.GRAY),
+                    template.pageSize.getWidth() / 2, CM, page, TextAlignment.CENTER, VerticalAlignment.BOTTOM, 0);
+        }
+    }
+}
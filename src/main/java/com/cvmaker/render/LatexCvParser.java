@@ -0,0 +1,482 @@
+package com.cvmaker.render;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the structure back out of the LaTeX the AI generates: the header,
+ * each {@code \section} and, inside them, entries, bullet points and
+ * paragraphs, all as plain text. Written against the markup the bundled
+ * templates use (RenderCV-style {@code twocolentry}, {@code itemize},
+ * hipster-style {@code \cvevent}); anything else degrades to paragraphs
+ * rather than failing.
+ */
+public final class LatexCvParser {
+
+    private static final Pattern SECTION = Pattern.compile("\\\\(?:sub)?section\\*?\\s*\\{");
+    private static final Pattern DIMENSION = Pattern.compile("\\s*[-+]?\\d*\\.?\\d+\\s*(pt|em|ex|cm|mm|in|bp|sp)");
+    private static final Pattern NUMBER = Pattern.compile("\\s*=?\\s*-?\\d+");
+    private static final Pattern BLANK_LINE = Pattern.compile("\\n[ \\t]*\\n\\s*");
+    private static final char HARD_BREAK = '\u2028';
+
+    // Commands whose arguments are layout, not text: name to number of {} arguments
+    private static final Map<String, Integer> DROPPED = Map.ofEntries(
+            Map.entry("color", 1), Map.entry("hspace", 1), Map.entry("vspace", 1), Map.entry("fontsize", 2),
+            Map.entry("setlength", 2), Map.entry("setcounter", 2), Map.entry("includegraphics", 1),
+            Map.entry("roundpic", 1), Map.entry("barrule", 3), Map.entry("rule", 2), Map.entry("phantom", 1),
+            Map.entry("label", 1), Map.entry("pagestyle", 1), Map.entry("thispagestyle", 1),
+            Map.entry("pictofraction", 6), Map.entry("icon", 3), Map.entry("newcommand", 2),
+            Map.entry("renewcommand", 2), Map.entry("newsavebox", 1), Map.entry("sbox", 2),
+            Map.entry("columnratio", 1), Map.entry("setcolumnwidth", 1), Map.entry("needspace", 1),
+            Map.entry("titlerule", 0), Map.entry("placelastupdatedtext", 0), Map.entry("switchcolumn", 0));
+
+    // Entry macros from the modern template, built from their arguments
+    private static final Map<String, Integer> ENTRY_MACRO_ARGS = Map.of("cvevent", 6, "cvdegree", 6);
+    private static final Map<String, Function<List<String>, CvDocument.Entry>> ENTRY_MACROS = Map.of(
+            "cvevent", args -> new CvDocument.Entry(args.get(1), lines(joinNonBlank(args.get(2), args.get(3)), args.get(4)), lines(args.get(0))),
+            "cvdegree", args -> new CvDocument.Entry(args.get(1), lines(joinNonBlank(args.get(2), args.get(3))), lines(args.get(0))));
+
+    private LatexCvParser() {
+    }
+
+    public static CvDocument parse(String latex) {
+        String body = stripComments(latex);
+        int begin = body.indexOf("\\begin{document}");
+        int end = body.lastIndexOf("\\end{document}");
+        body = body.substring(begin >= 0 ? begin + "\\begin{document}".length() : 0, end > begin ? end : body.length());
+
+        String name = "";
+        List<String> headerLines = new ArrayList<>();
+
+        // Header macros can sit anywhere, even inside the first section
+        Macro header = findMacro(body, "cvheader", 6);
+        if (header == null) {
+            header = findMacro(body, "simpleheader", 5);
+        }
+        if (header != null) {
+            List<String> args = header.args().stream().map(LatexCvParser::plain).toList();
+            if (header.name().equals("cvheader")) {
+                name = joinWith(" ", args.get(0), args.get(1));
+                headerLines.addAll(lines(args.get(2), joinWith(" | ", args.get(3), args.get(4), args.get(5))));
+            } else {
+                name = joinWith(" ", args.get(1), args.get(2));
+                headerLines.addAll(lines(args.get(3)));
+            }
+            body = body.substring(0, header.start()) + body.substring(header.end());
+        }
+
+        Matcher sectionMatcher = SECTION.matcher(body);
+        List<int[]> sectionSpans = new ArrayList<>();
+        while (sectionMatcher.find()) {
+            int close = matchingClose(body, sectionMatcher.end() - 1);
+            if (close < 0) {
+                break;
+            }
+            sectionSpans.add(new int[]{sectionMatcher.start(), sectionMatcher.end(), close});
+        }
+
+        String preamble = body.substring(0, sectionSpans.isEmpty() ? body.length() : sectionSpans.get(0)[0]);
+        if (header == null) {
+            // A header environment, or with sections, everything before the first one
+            String headerText = null;
+            for (String environment : List.of("header", "center")) {
+                int start = preamble.indexOf("\\begin{" + environment + "}");
+                int stop = preamble.indexOf("\\end{" + environment + "}");
+                // Definitions such as \newsavebox may come first; only text rules a header out
+                if (start >= 0 && stop > start && plain(preamble.substring(0, start)).isBlank()) {
+                    headerText = preamble.substring(start + environment.length() + 8, stop);
+                    preamble = preamble.substring(stop + environment.length() + 6);
+                    break;
+                }
+            }
+            if (headerText == null && !sectionSpans.isEmpty()) {
+                headerText = preamble;
+                preamble = "";
+            }
+            if (headerText != null) {
+                List<String> lines = lines(plain(headerText));
+                if (!lines.isEmpty()) {
+                    name = lines.get(0);
+                    headerLines.addAll(lines.subList(1, lines.size()));
+                }
+            }
+        }
+
+        List<CvDocument.Section> sections = new ArrayList<>();
+        List<CvDocument.Block> leading = blocks(preamble);
+        if (!leading.isEmpty()) {
+            sections.add(new CvDocument.Section(null, leading));
+        }
+        for (int i = 0; i < sectionSpans.size(); i++) {
+            int[] span = sectionSpans.get(i);
+            String title = plain(body.substring(span[1], span[2]));
+            String content = body.substring(span[2] + 1, i + 1 < sectionSpans.size() ? sectionSpans.get(i + 1)[0] : body.length());
+            List<CvDocument.Block> blocks = blocks(content);
+            if (!blocks.isEmpty()) {
+                sections.add(new CvDocument.Section(title.isBlank() ? null : title, blocks));
+            }
+        }
+        return new CvDocument(name, List.copyOf(headerLines), List.copyOf(sections));
+    }
+
+    private static List<CvDocument.Block> blocks(String latex) {
+        List<CvDocument.Block> blocks = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+        while (i < latex.length()) {
+            if (latex.startsWith("\\begin{twocolentry}", i)) {
+                flushParagraphs(text, blocks);
+                int next = skipOptional(latex, i + "\\begin{twocolentry}".length());
+                String aside = "";
+                if (next < latex.length() && latex.charAt(next) == '{') {
+                    int close = matchingClose(latex, next);
+                    if (close > 0) {
+                        aside = latex.substring(next + 1, close);
+                        next = close + 1;
+                    }
+                }
+                int stop = latex.indexOf("\\end{twocolentry}", next);
+                stop = stop < 0 ? latex.length() : stop;
+                List<String> lines = lines(plain(latex.substring(next, stop)));
+                if (!lines.isEmpty()) {
+                    blocks.add(new CvDocument.Entry(lines.get(0), lines.subList(1, lines.size()), lines(plain(aside))));
+                }
+                i = Math.min(latex.length(), stop + "\\end{twocolentry}".length());
+            } else if (isCommand(latex, i, "item")) {
+                flushParagraphs(text, blocks);
+                int start = skipOptional(latex, i + "\\item".length());
+                int stop = start;
+                while (stop < latex.length() && !isCommand(latex, stop, "item") && !latex.startsWith("\\end{", stop)
+                        && !latex.startsWith("\\begin{", stop)) {
+                    stop++;
+                }
+                String bullet = plain(latex.substring(start, stop)).replace('\n', ' ').trim();
+                if (!bullet.isEmpty()) {
+                    blocks.add(new CvDocument.Bullet(bullet));
+                }
+                i = stop;
+            } else if (entryMacroAt(latex, i) != null) {
+                flushParagraphs(text, blocks);
+                String macroName = entryMacroAt(latex, i);
+                Macro macro = readMacro(latex, i, macroName, ENTRY_MACRO_ARGS.get(macroName));
+                if (macro == null) {
+                    text.append(latex.charAt(i++));
+                    continue;
+                }
+                blocks.add(ENTRY_MACROS.get(macroName).apply(macro.args().stream().map(LatexCvParser::plain).toList()));
+                i = macro.end();
+            } else if (latex.startsWith("\\begin{", i) || latex.startsWith("\\end{", i)) {
+                flushParagraphs(text, blocks);
+                boolean opening = latex.startsWith("\\begin{", i);
+                int close = latex.indexOf('}', i);
+                i = close < 0 ? latex.length() : close + 1;
+                if (opening) {
+                    i = skipArguments(latex, i);
+                }
+            } else {
+                text.append(latex.charAt(i++));
+            }
+        }
+        flushParagraphs(text, blocks);
+        return blocks;
+    }
+
+    private static void flushParagraphs(StringBuilder text, List<CvDocument.Block> blocks) {
+        for (String chunk : BLANK_LINE.split(text)) {
+            String paragraph = plain(chunk);
+            if (!paragraph.isBlank()) {
+                blocks.add(new CvDocument.Paragraph(paragraph));
+            }
+        }
+        text.setLength(0);
+    }
+
+    /**
+     * LaTeX to plain text: formatting dropped, layout commands and their
+     * arguments removed, {@code \\} and blank lines turned into line breaks.
+     * Other commands keep the text of their last argument, which covers
+     * {@code \textbf}, {@code \href}, {@code \textcolor} and the like.
+     */
+    static String plain(String latex) {
+        StringBuilder out = new StringBuilder();
+        int i = 0;
+        while (i < latex.length()) {
+            char c = latex.charAt(i);
+            if (c == '\\') {
+                i = command(latex, i, out);
+            } else if (c == '{' || c == '}' || c == '$') {
+                i++;
+            } else if (c == '~') {
+                out.append(' ');
+                i++;
+            } else if (c == '&') {
+                out.append(" · ");
+                i++;
+            } else if (latex.startsWith("---", i)) {
+                out.append('—');
+                i += 3;
+            } else if (latex.startsWith("--", i)) {
+                out.append('–');
+                i += 2;
+            } else if (latex.startsWith("``", i)) {
+                out.append('“');
+                i += 2;
+            } else if (latex.startsWith("''", i)) {
+                out.append('”');
+                i += 2;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+
+        String text = BLANK_LINE.matcher(out).replaceAll(String.valueOf(HARD_BREAK));
+        text = text.replaceAll("\\s+", " ");
+        StringBuilder result = new StringBuilder();
+        for (String line : text.split(String.valueOf(HARD_BREAK))) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty()) {
+                result.append(result.length() > 0 ? "\n" : "").append(trimmed);
+            }
+        }
+        return result.toString();
+    }
+
+    private static int command(String latex, int start, StringBuilder out) {
+        if (start + 1 >= latex.length()) {
+            return start + 1;
+        }
+        char next = latex.charAt(start + 1);
+        if (next == '\\') {
+            out.append(HARD_BREAK);
+            return skipOptional(latex, start + 2);
+        }
+        if (!Character.isLetter(next)) {
+            // Escaped character or spacing command (\, \; \ )
+            out.append("%&$#_{}".indexOf(next) >= 0 ? String.valueOf(next) : " ");
+            return start + 2;
+        }
+
+        int i = start + 1;
+        while (i < latex.length() && Character.isLetter(latex.charAt(i))) {
+            i++;
+        }
+        String name = latex.substring(start + 1, i);
+        switch (name) {
+            case "AND" -> out.append(" | ");
+            case "today" -> out.append(LocalDate.now().format(DateTimeFormatter.ofPattern("MMMM d, yyyy", Locale.ENGLISH)));
+            case "LaTeX", "TeX", "log", "ln", "exp", "max", "min", "lim" -> out.append(name);
+            case "ldots", "dots" -> out.append('…');
+            case "textbullet", "cdot" -> out.append('·');
+            case "item" -> out.append(HARD_BREAK).append("• ");
+            case "par", "newline", "linebreak" -> out.append(HARD_BREAK);
+            case "begin", "end" -> {
+                out.append(HARD_BREAK);
+                int close = latex.indexOf('}', i);
+                return close < 0 ? latex.length() : (name.equals("begin") ? skipArguments(latex, close + 1) : close + 1);
+            }
+            case "kern", "hskip", "vskip" -> {
+                Matcher dimension = DIMENSION.matcher(latex).region(i, latex.length());
+                return dimension.lookingAt() ? dimension.end() : i;
+            }
+            case "hbadness", "vbadness", "tolerance", "pretolerance" -> {
+                Matcher number = NUMBER.matcher(latex).region(i, latex.length());
+                return number.lookingAt() ? number.end() : i;
+            }
+            default -> {
+                if (DROPPED.containsKey(name)) {
+                    return skipGroups(latex, skipOptional(latex, skipStar(latex, i)), DROPPED.get(name));
+                }
+                if (name.startsWith("fa") && name.length() > 2 && Character.isUpperCase(name.charAt(2))) {
+                    return skipOptional(latex, skipStar(latex, i));
+                }
+                // Keep the last argument's text
+                i = skipOptional(latex, skipStar(latex, i));
+                String last = null;
+                while (i < latex.length() && latex.charAt(i) == '{') {
+                    int close = matchingClose(latex, i);
+                    if (close < 0) {
+                        break;
+                    }
+                    last = latex.substring(i + 1, close);
+                    i = close + 1;
+                }
+                if (last != null) {
+                    out.append(plainKeepingBreaks(last));
+                }
+                return i;
+            }
+        }
+        return i;
+    }
+
+    private static String plainKeepingBreaks(String latex) {
+        return plain(latex).replace('\n', HARD_BREAK);
+    }
+
+    private record Macro(String name, int start, int end, List<String> args) {
+    }
+
+    private static Macro findMacro(String latex, String name, int argCount) {
+        int at = latex.indexOf("\\" + name + "{");
+        return at < 0 ? null : readMacro(latex, at, name, argCount);
+    }
+
+    private static Macro readMacro(String latex, int start, String name, int argCount) {
+        int i = start + name.length() + 1;
+        List<String> args = new ArrayList<>();
+        while (args.size() < argCount) {
+            while (i < latex.length() && Character.isWhitespace(latex.charAt(i))) {
+                i++;
+            }
+            if (i >= latex.length() || latex.charAt(i) != '{') {
+                return null;
+            }
+            int close = matchingClose(latex, i);
+            if (close < 0) {
+                return null;
+            }
+            args.add(latex.substring(i + 1, close));
+            i = close + 1;
+        }
+        return new Macro(name, start, i, args);
+    }
+
+    private static String entryMacroAt(String latex, int i) {
+        for (String name : ENTRY_MACROS.keySet()) {
+            if (latex.startsWith("\\" + name + "{", i)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isCommand(String latex, int i, String name) {
+        int end = i + name.length() + 1;
+        return latex.startsWith("\\" + name, i) && (end >= latex.length() || !Character.isLetter(latex.charAt(end)));
+    }
+
+    private static int skipStar(String latex, int i) {
+        return i < latex.length() && latex.charAt(i) == '*' ? i + 1 : i;
+    }
+
+    private static int skipOptional(String latex, int i) {
+        while (i < latex.length() && latex.charAt(i) == '[') {
+            int close = matchingClose(latex, i);
+            if (close < 0) {
+                return i;
+            }
+            i = close + 1;
+        }
+        return i;
+    }
+
+    private static int skipGroups(String latex, int i, int count) {
+        for (int n = 0; n < count; n++) {
+            while (i < latex.length() && Character.isWhitespace(latex.charAt(i)) && latex.charAt(i) != '\n') {
+                i++;
+            }
+            if (i < latex.length() && latex.charAt(i) == '\\') {
+                // A bare control sequence is an argument too, as in \sbox\ANDbox{...}
+                i++;
+                while (i < latex.length() && Character.isLetter(latex.charAt(i))) {
+                    i++;
+                }
+                continue;
+            }
+            if (i >= latex.length() || latex.charAt(i) != '{') {
+                return i;
+            }
+            int close = matchingClose(latex, i);
+            if (close < 0) {
+                return i;
+            }
+            i = skipOptional(latex, close + 1);
+        }
+        return i;
+    }
+
+    /**
+     * Skip an environment's immediate arguments, e.g. {@code {r|p{5cm}}} of a tabular.
+     */
+    private static int skipArguments(String latex, int i) {
+        i = skipOptional(latex, i);
+        while (i < latex.length() && latex.charAt(i) == '{') {
+            int close = matchingClose(latex, i);
+            if (close < 0) {
+                return i;
+            }
+            i = skipOptional(latex, close + 1);
+        }
+        return i;
+    }
+
+    private static int matchingClose(String latex, int open) {
+        char opening = latex.charAt(open);
+        char closing = opening == '[' ? ']' : '}';
+        int depth = 0;
+        for (int i = open; i < latex.length(); i++) {
+            char c = latex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == opening) {
+                depth++;
+            } else if (c == closing && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Remove comments the way TeX does: the rest of the line, its line end
+     * and the next line's leading spaces.
+     */
+    private static String stripComments(String latex) {
+        StringBuilder stripped = new StringBuilder(latex.length());
+        int i = 0;
+        while (i < latex.length()) {
+            char c = latex.charAt(i);
+            if (c == '\\' && i + 1 < latex.length()) {
+                stripped.append(c).append(latex.charAt(i + 1));
+                i += 2;
+            } else if (c == '%') {
+                while (i < latex.length() && latex.charAt(i) != '\n') {
+                    i++;
+                }
+                i++;
+                while (i < latex.length() && (latex.charAt(i) == ' ' || latex.charAt(i) == '\t')) {
+                    i++;
+                }
+            } else {
+                stripped.append(c);
+                i++;
+            }
+        }
+        return stripped.toString();
+    }
+
+    private static List<String> lines(String... texts) {
+        List<String> lines = new ArrayList<>();
+        for (String text : texts) {
+            Arrays.stream(text.split("\n")).map(String::trim).filter(line -> !line.isEmpty()).forEach(lines::add);
+        }
+        return lines;
+    }
+
+    private static String joinNonBlank(String... parts) {
+        return joinWith(" · ", parts);
+    }
+
+    private static String joinWith(String separator, String... parts) {
+        return String.join(separator, Arrays.stream(parts).map(String::trim).filter(part -> !part.isEmpty()).toList());
+    }
+}
@@ -1,39 +1,96 @@
 package com.cvmaker.service.ai;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Lightweight per-caller view onto the shared clients and executor held by
+ * {@link LLMClientRegistry}. Creating one is cheap; it opens no connections.
+ */
 public class AiService {
 
-    private final LLMClient llmClient;
+    private final LLMClientRegistry registry;
     private final ExecutorService executorService;
     private LLMModel model;
     private double temperature;
+    private boolean cacheEnabled;
+    private int inputTokenBudget;
+    private OutputProfile outputProfile = OutputProfile.DEFAULT;
+    private int maxOutputTokens;
+    private String callSite = "default";
+    private LLMModel hedgeModel;
+    private RequestPriority priority = RequestPriority.PIPELINE;
+
+    // Room for a reasoning model to think before it starts on the visible answer
+    private static final int REASONING_HEADROOM_TOKENS = 4096;
 
     public AiService(LLMModel model) {
-        this.temperature = 0.3;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this(model, 0.3, false);
+    }
+
+    public AiService(LLMModel model, double temperature) {
+        this(model, temperature, false);
+    }
 
+    public AiService(LLMModel model, double temperature, boolean cacheEnabled) {
+        this.registry = LLMClientRegistry.getInstance();
+        this.executorService = registry.getExecutor();
         this.model = model;
-        this.llmClient = LLMClientFactory.createClient(this.model);
+        this.temperature = temperature;
+        this.cacheEnabled = cacheEnabled;
 
-        System.out.println("Using default model: " + model.getModelName());
-        System.out.println("url: " + Endpoint.OLLAMA_API.getUrl());
+        System.out.println("Using model: " + model.getModelName() + (cacheEnabled ? " (response cache on)" : ""));
     }
 
-    public AiService(LLMModel model, double temperature) {
-        this(model);
+    private AiService(AiService other, LLMModel model) {
+        this.registry = other.registry;
+        this.executorService = other.executorService;
         this.model = model;
-        this.temperature = temperature;
+        this.temperature = other.temperature;
+        this.cacheEnabled = other.cacheEnabled;
+        this.inputTokenBudget = other.inputTokenBudget;
+        this.outputProfile = other.outputProfile;
+        this.maxOutputTokens = other.maxOutputTokens;
+        this.callSite = other.callSite;
+        this.hedgeModel = other.hedgeModel;
+        this.priority = other.priority;
     }
 
     public AiService(LLMProvider provider) {
-        this.model = LLMModel.GPT_5_1_MINI;
-        this.llmClient = LLMClientFactory.createClient(this.model);
-        this.temperature = 0.3;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this(LLMModel.GPT_5_1_MINI, 0.3, false);
+    }
+
+    /**
+     * Same settings on another model, e.g. for the tiers of a {@link CascadePolicy}.
+     */
+    public AiService withModel(LLMModel model) {
+        return model == this.model ? this : new AiService(this, model);
+    }
+
+    /**
+     * Same settings at another priority, e.g. for a backfill sharing a
+     * pipeline's configuration.
+     */
+    public AiService withPriority(RequestPriority priority) {
+        if (priority == this.priority) {
+            return this;
+        }
+        AiService copy = new AiService(this, model);
+        copy.priority = priority;
+        return copy;
+    }
+
+    public LLMModel getModel() {
+        return model;
     }
 
     public AiService setModel(LLMModel model) {
@@ -46,30 +103,195 @@ public class AiService {
         return this;
     }
 
+    public AiService setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+        return this;
+    }
+
+    /**
+     * Cap on prompt size for every call made through this service; 0 (the
+     * default) leaves prompts untrimmed.
+     */
+    public AiService setInputTokenBudget(int inputTokenBudget) {
+        this.inputTokenBudget = inputTokenBudget;
+        return this;
+    }
+
+    /**
+     * Tag reported with every call in {@link LLMTelemetry}. CV and cover
+     * letter generation always report as "cv" and "cover-letter".
+     */
+    public AiService setCallSite(String callSite) {
+        this.callSite = callSite;
+        return this;
+    }
+
+    /**
+     * True while this model's provider is refusing calls from this call site;
+     * callers with a non-LLM fallback should use it rather than wait.
+     */
+    public boolean isCircuitOpen() {
+        return registry.getCircuitBreaker(model.getProvider()).isOpen(callSite);
+    }
+
+    public String getCallSite() {
+        return callSite;
+    }
+
+    /**
+     * Model to hedge onto when the main one is slow to answer, or null
+     * (the default) for no hedging.
+     */
+    public AiService setHedgeModel(LLMModel hedgeModel) {
+        this.hedgeModel = hedgeModel;
+        return this;
+    }
+
+    /**
+     * Where this service's calls queue in {@link LLMScheduler}; PIPELINE
+     * unless the call site declares otherwise.
+     */
+    public AiService setPriority(RequestPriority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Output cap and stop sequences for every call made through this
+     * service. CV and cover letter generation always use their own profiles.
+     */
+    public AiService setOutputProfile(OutputProfile outputProfile) {
+        this.outputProfile = outputProfile;
+        return this;
+    }
+
+    /**
+     * Overrides the output profile's token cap; 0 restores it.
+     */
+    public AiService setMaxOutputTokens(int maxOutputTokens) {
+        this.maxOutputTokens = maxOutputTokens;
+        return this;
+    }
+
+    private LLMClient client() {
+        if (hedgeModel != null && hedgeModel != model) {
+            return registry.getHedgedClient(model, hedgeModel, cacheEnabled);
+        }
+        return registry.getClient(model, cacheEnabled);
+    }
+
+    /**
+     * The request {@link #query} would send, for callers that submit work
+     * through {@link BatchJobClient} instead.
+     */
+    public LLMRequest createRequest(String prompt) {
+        return createRequest(prompt, outputProfile, maxOutputTokens, callSite);
+    }
+
+    private LLMRequest createRequest(String prompt, int maxTokens) {
+        return createRequest(prompt, outputProfile, maxTokens, callSite);
+    }
+
+    /**
+     * @param maxTokens cap on the visible answer, or 0 for the profile's
+     */
+    private LLMRequest createRequest(String prompt, OutputProfile profile, int maxTokens, String callSite) {
+        LLMRequest.Builder builder = LLMRequest.builder()
+                .outputProfile(profile)
+                .prompt(prompt)
+                .model(model.getModelName())
+                .temperature(temperature)
+                .inputTokenBudget(inputTokenBudget)
+                .callSite(callSite)
+                .priority(priority);
+        if (maxTokens > 0) {
+            builder.maxTokens(maxTokens);
+        }
+        return withOutputLimits(builder, model, maxTokens > 0 ? maxTokens : profile.getMaxTokens()).build();
+    }
+
+    /**
+     * {@code request}, built for {@code from}, rebuilt with {@code to}'s
+     * output limits so a call moved to another model gets the headroom (or
+     * stop sequences) that model needs.
+     */
+    static LLMRequest retarget(LLMRequest request, LLMModel from, LLMModel to) {
+        int visibleTokens = from.isReasoning()
+                ? request.getMaxTokens() - REASONING_HEADROOM_TOKENS
+                : request.getMaxTokens();
+        LLMRequest.Builder builder = request.toBuilder()
+                .model(to.getModelName())
+                .maxTokens(visibleTokens)
+                .stopSequences(from.isReasoning()
+                        ? request.getOutputProfile().getStopSequences()
+                        : request.getStopSequences());
+        return withOutputLimits(builder, to, visibleTokens).build();
+    }
+
+    private static LLMRequest.Builder withOutputLimits(LLMRequest.Builder builder, LLMModel model, int visibleTokens) {
+        if (model.isReasoning()) {
+            builder.maxTokens(visibleTokens + REASONING_HEADROOM_TOKENS).stopSequences(List.of());
+        }
+        return builder;
+    }
+
+    public LLMRequest createCvRequest(String unstructuredText, String referenceTemplate, String jobDescription, String ai_prompt) {
+        return createRequest(buildDirectLatexGenerationPrompt(unstructuredText, referenceTemplate, jobDescription, ai_prompt),
+                OutputProfile.CV, 0, "cv");
+    }
+
+    public LLMRequest createCoverLetterRequest(String unstructuredText, String referenceTemplate, String jobDescription, String coverLetterPrompt) {
+        return createRequest(buildDirectLatexCoverLetterPrompt(unstructuredText, referenceTemplate, jobDescription, coverLetterPrompt),
+                OutputProfile.COVER_LETTER, 0, "cover-letter");
+    }
+
     public String query(String prompt) {
         return queryWithProgress(prompt);
     }
 
+    /**
+     * Query with an explicit completion cap, for calls whose answer size
+     * scales with the input (e.g. one JSON object per batched email).
+     */
+    public String query(String prompt, int maxOutputTokens) {
+        return queryWithProgress(createRequest(prompt, maxOutputTokens));
+    }
+
+    /**
+     * Query for JSON that follows {@code schema}, on providers that can
+     * enforce one; others answer as they would {@link #query(String)}.
+     */
+    public String queryStructured(String prompt, ResponseSchema schema) {
+        return queryWithProgress(createRequest(prompt).toBuilder().responseSchema(schema).build());
+    }
+
+    /**
+     * Streaming form of {@link #queryStructured}. {@code onToken} may throw
+     * {@link StopGeneration} to end the call early; the text so far is returned.
+     */
+    public String queryStructuredStreaming(String prompt, ResponseSchema schema, Consumer<String> onToken) {
+        return queryStreaming(createRequest(prompt).toBuilder().responseSchema(schema).build(), onToken);
+    }
+
     public String queryWithProgress(String prompt) {
+        return queryWithProgress(createRequest(prompt));
+    }
+
+    /**
+     * Blocks with progress output until the call completes, or gives up and
+     * interrupts it once the retry policy's overall deadline has passed.
+     */
+    private String queryWithProgress(LLMRequest request) {
         try {
-            LLMRequest request = LLMRequest.builder()
-                    .prompt(prompt)
-                    .model(model.getModelName())
-                    .temperature(temperature)
-                    .build();
-
-            CompletableFuture<LLMResponse> future = CompletableFuture.supplyAsync(
-                    () -> llmClient.complete(request),
-                    executorService
+            long deadlineMs = registry.getRetryPolicy().getCallDeadlineMs();
+            CompletableFuture<LLMResponse> future = submitAsync(
+                    () -> client().complete(request),
+                    deadlineMs > 0 ? Duration.ofMillis(deadlineMs) : null
             );
 
             LLMResponse response = waitForCompletionWithProgress(future);
 
-            UsageStats usage = response.getUsage();
-            if (usage != null) {
-                System.out.printf("📊 Token usage - Prompt: %d, Completion: %d, Total: %d\n",
-                        usage.getPromptTokens(), usage.getCompletionTokens(), usage.getTotalTokens());
-            }
+            printUsage(response.getUsage());
 
             return response.getContent();
         } catch (Exception e) {
@@ -77,10 +299,56 @@ public class AiService {
         }
     }
 
+    public CompletableFuture<String> queryAsync(String prompt) {
+        return queryAsync(prompt, null);
+    }
+
+    /**
+     * Non-blocking query. Cancelling the returned future, or missing the
+     * deadline, interrupts the in-flight HTTP call. A null deadline waits
+     * indefinitely.
+     */
+    public CompletableFuture<String> queryAsync(String prompt, Duration deadline) {
+        return queryAsync(createRequest(prompt), deadline);
+    }
+
+    private CompletableFuture<String> queryAsync(LLMRequest request, Duration deadline) {
+        LLMClient client = client();
+
+        return submitAsync(() -> {
+            LLMResponse response = client.complete(request);
+            printUsage(response.getUsage());
+            return response.getContent();
+        }, deadline);
+    }
+
+    /**
+     * Streams the completion, handing each token to {@code onToken} as it
+     * arrives. Runs on the calling thread; the token flow is the progress.
+     */
+    public String queryStreaming(String prompt, Consumer<String> onToken) {
+        return queryStreaming(createRequest(prompt), onToken);
+    }
+
+    private String queryStreaming(LLMRequest request, Consumer<String> onToken) {
+        try {
+            long startTime = System.currentTimeMillis();
+            LLMResponse response = client().stream(request, onToken);
+            long elapsed = System.currentTimeMillis() - startTime;
+
+            System.out.printf("⚡ Time to first token: %dms, total: %dms\n", response.getTimeToFirstTokenMs(), elapsed);
+
+            printUsage(response.getUsage());
+
+            return response.getContent();
+        } catch (Exception e) {
+            throw new RuntimeException("Streaming query failed: " + e.getMessage(), e);
+        }
+    }
+
     public String generateDirectLatexCV(String unstructuredText, String referenceTemplate, String jobDescription, String ai_prompt) {
         try {
-            String prompt = buildDirectLatexGenerationPrompt(unstructuredText, referenceTemplate, jobDescription, ai_prompt);
-            String response = queryWithProgress(prompt);
+            String response = queryWithProgress(createCvRequest(unstructuredText, referenceTemplate, jobDescription, ai_prompt));
             return extractLatexFromResponse(response);
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate LaTeX CV: " + e.getMessage(), e);
@@ -89,41 +357,129 @@ public class AiService {
 
     public String generateDirectLatexCoverLetter(String unstructuredText, String referenceTemplate, String jobDescription, String coverLetterPrompt) {
         try {
-            String prompt = buildDirectLatexCoverLetterPrompt(unstructuredText, referenceTemplate, jobDescription, coverLetterPrompt);
-            String response = queryWithProgress(prompt);
+            String response = queryWithProgress(createCoverLetterRequest(unstructuredText, referenceTemplate, jobDescription, coverLetterPrompt));
             return extractLatexFromResponse(response);
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate LaTeX cover letter: " + e.getMessage(), e);
         }
     }
 
-    private LLMResponse waitForCompletionWithProgress(CompletableFuture<LLMResponse> future) {
+    public CompletableFuture<String> generateDirectLatexCVAsync(String unstructuredText, String referenceTemplate, String jobDescription, String ai_prompt) {
+        return generateDirectLatexCVAsync(unstructuredText, referenceTemplate, jobDescription, ai_prompt, null);
+    }
+
+    public CompletableFuture<String> generateDirectLatexCVAsync(String unstructuredText, String referenceTemplate, String jobDescription, String ai_prompt, Duration deadline) {
+        return thenApplyCancellable(queryAsync(createCvRequest(unstructuredText, referenceTemplate, jobDescription, ai_prompt), deadline),
+                this::extractLatexFromResponse);
+    }
+
+    public CompletableFuture<String> generateDirectLatexCoverLetterAsync(String unstructuredText, String referenceTemplate, String jobDescription, String coverLetterPrompt) {
+        return generateDirectLatexCoverLetterAsync(unstructuredText, referenceTemplate, jobDescription, coverLetterPrompt, null);
+    }
+
+    public CompletableFuture<String> generateDirectLatexCoverLetterAsync(String unstructuredText, String referenceTemplate, String jobDescription, String coverLetterPrompt, Duration deadline) {
+        return thenApplyCancellable(queryAsync(createCoverLetterRequest(unstructuredText, referenceTemplate, jobDescription, coverLetterPrompt), deadline),
+                this::extractLatexFromResponse);
+    }
+
+    public String generateDirectLatexCVStreaming(String unstructuredText, String referenceTemplate, String jobDescription, String ai_prompt, Consumer<String> onToken) {
         try {
-            long startTime = System.currentTimeMillis();
+            String response = queryStreaming(createCvRequest(unstructuredText, referenceTemplate, jobDescription, ai_prompt), onToken);
+            return extractLatexFromResponse(response);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate LaTeX CV: " + e.getMessage(), e);
+        }
+    }
 
-            while (!future.isDone()) {
-                Thread.sleep(1000);
-                long elapsed = System.currentTimeMillis() - startTime;
+    public String generateDirectLatexCoverLetterStreaming(String unstructuredText, String referenceTemplate, String jobDescription, String coverLetterPrompt, Consumer<String> onToken) {
+        try {
+            String response = queryStreaming(createCoverLetterRequest(unstructuredText, referenceTemplate, jobDescription, coverLetterPrompt), onToken);
+            return extractLatexFromResponse(response);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate LaTeX cover letter: " + e.getMessage(), e);
+        }
+    }
 
-                if (elapsed > 5000) {
-                    System.out.printf("\r   🤖 AI processing... (%ds elapsed)   ", elapsed / 1000);
-                }
+    private <T> CompletableFuture<T> submitAsync(Supplier<T> task, Duration deadline) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = executorService.submit(() -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
 
-                if (elapsed > 30000) {
-                    System.out.printf("\r   ⏳ Complex AI operation in progress... (%ds elapsed)   ", elapsed / 1000);
-                }
+        result.whenComplete((value, error) -> {
+            if (error instanceof CancellationException || error instanceof TimeoutException) {
+                running.cancel(true);
             }
+        });
 
-            System.out.print("\r   ✅ AI operation completed!             \n");
-            return future.get(60, TimeUnit.SECONDS);
+        if (deadline != null) {
+            result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * {@code source.thenApply(fn)}, except that cancelling the result also
+     * cancels {@code source} and so interrupts the call behind it.
+     */
+    private static <T, R> CompletableFuture<R> thenApplyCancellable(CompletableFuture<T> source, Function<T, R> fn) {
+        CompletableFuture<R> result = source.thenApply(fn);
+        result.whenComplete((value, error) -> {
+            if (error instanceof CancellationException || error instanceof TimeoutException) {
+                source.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private LLMResponse waitForCompletionWithProgress(CompletableFuture<LLMResponse> future) {
+        try {
+            long startTime = System.currentTimeMillis();
+
+            while (true) {
+                try {
+                    // Wakes as soon as the future completes instead of sleeping out the tick
+                    LLMResponse response = future.get(1, TimeUnit.SECONDS);
+                    System.out.print("\r   ✅ AI operation completed!             \n");
+                    return response;
+                } catch (TimeoutException stillRunning) {
+                    long elapsed = System.currentTimeMillis() - startTime;
+
+                    if (elapsed > 5000) {
+                        System.out.printf("\r   🤖 AI processing... (%ds elapsed)   ", elapsed / 1000);
+                    }
+
+                    if (elapsed > 30000) {
+                        System.out.printf("\r   ⏳ Complex AI operation in progress... (%ds elapsed)   ", elapsed / 1000);
+                    }
+                }
+            }
 
         } catch (Exception e) {
+            // Also stops the call when it is this thread that was interrupted
+            future.cancel(true);
             System.out.print("\r   ❌ AI operation failed!               \n");
             throw new RuntimeException("AI operation timed out or failed: " + e.getMessage(), e);
         }
     }
 
-    private String extractLatexFromResponse(String response) {
+    private void printUsage(UsageStats usage) {
+        if (usage == null) {
+            return;
+        }
+        if (usage.getCacheHits() > 0) {
+            System.out.printf("💾 Cache hit - saved %d tokens\n", usage.getTotalTokens());
+            return;
+        }
+        System.out.printf("📊 Token usage - Prompt: %d (%d cached), Completion: %d, Total: %d\n",
+                usage.getPromptTokens(), usage.getCachedPromptTokens(), usage.getCompletionTokens(), usage.getTotalTokens());
+    }
+
+    public String extractLatexFromResponse(String response) {
         String cleaned = response.trim();
 
         if (cleaned.startsWith("```")) {
@@ -147,64 +503,47 @@ public class AiService {
             }
         }
 
+        // Generation stops on \end{document}, which the provider leaves out; a
+        // model that ignored the stop has its trailing commentary dropped instead
+        int docEnd = cleaned.indexOf(OutputProfile.END_DOCUMENT);
+        if (docEnd >= 0) {
+            cleaned = cleaned.substring(0, docEnd);
+        }
+        if (cleaned.contains("\\begin{document}")) {
+            cleaned = cleaned.stripTrailing() + "\n" + OutputProfile.END_DOCUMENT;
+        }
+
         return cleaned.trim();
     }
 
+    /*
+     * Both document prompts open with the same candidate block so the CV and
+     * cover letter for a job (and every later job) hit the provider's prompt
+     * cache; only the job description differs between runs.
+     */
     private String buildDirectLatexGenerationPrompt(String userData, String latexTemplate, String jobDescription, String ai_prompt) {
-        StringBuilder prompt = new StringBuilder();
-
-        prompt.append(ai_prompt);
-        if (jobDescription != null && !jobDescription.trim().isEmpty()) {
-            prompt.append("JOB DESCRIPTION:\n");
-            prompt.append(jobDescription).append("\n\n");
-        }
-
-        prompt.append("CANDIDATE INFORMATION:\n");
-        prompt.append(userData).append("\n\n");
-
-        if (latexTemplate != null && !latexTemplate.trim().isEmpty()) {
-            prompt.append("LATEX TEMPLATE:\n");
-            prompt.append(latexTemplate).append("\n\n");
-        }
-
-        return prompt.toString();
+        return PromptBuilder.create()
+                .staticSegment("CANDIDATE INFORMATION", userData)
+                .taskSegment("LATEX TEMPLATE", latexTemplate)
+                .taskSegment("INSTRUCTIONS", ai_prompt)
+                .requestSegment("JOB DESCRIPTION", jobDescription)
+                .build(model.getModelName(), inputTokenBudget);
     }
 
     private String buildDirectLatexCoverLetterPrompt(String userData, String latexTemplate, String jobDescription, String coverLetterPrompt) {
-        StringBuilder prompt = new StringBuilder();
-
-        prompt.append(coverLetterPrompt);
-
-        if (jobDescription != null && !jobDescription.trim().isEmpty()) {
-            prompt.append("JOB DESCRIPTION:\n");
-            prompt.append(jobDescription).append("\n\n");
-        }
-
-        prompt.append("CANDIDATE INFORMATION:\n");
-        prompt.append(userData).append("\n\n");
-
-        if (latexTemplate != null && !latexTemplate.trim().isEmpty()) {
-            prompt.append("LATEX COVER LETTER TEMPLATE:\n");
-            prompt.append(latexTemplate).append("\n\n");
-        }
-
-        return prompt.toString();
+        return PromptBuilder.create()
+                .staticSegment("CANDIDATE INFORMATION", userData)
+                .taskSegment("LATEX COVER LETTER TEMPLATE", latexTemplate)
+                .taskSegment("INSTRUCTIONS", coverLetterPrompt)
+                .requestSegment("JOB DESCRIPTION", jobDescription)
+                .build(model.getModelName(), inputTokenBudget);
     }
 
+    /**
+     * Clients and threads are shared through {@link LLMClientRegistry}, so
+     * there is nothing per-instance to release. Shut the registry down once
+     * at the end of a run instead.
+     */
     public void shutdown() {
-        if (llmClient != null) {
-            llmClient.shutdown();
-        }
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-            try {
-                if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
-                    executorService.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executorService.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
     }
 }
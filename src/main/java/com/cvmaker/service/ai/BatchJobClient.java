@@ -0,0 +1,216 @@
+package com.cvmaker.service.ai;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Submits bulk work through an OpenAI-compatible batch API: requests are
+ * written to a JSONL file, uploaded, run as one batch job, polled until done
+ * and mapped back to the caller's custom ids. Point it at
+ * {@link LocalBatchServer} to exercise the whole path offline.
+ */
+public class BatchJobClient {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final MediaType JSONL = MediaType.get("application/jsonl");
+    private static final Set<String> TERMINAL_STATES = Set.of("completed", "failed", "expired", "cancelled");
+    // Polling starts here and doubles up to the poll interval, so a quick
+    // (e.g. local) batch is not held up by a long interval
+    private static final long FIRST_POLL_MS = 1000;
+
+    private final String endpoint;
+    private final String apiKey;
+    private final OkHttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path workDirectory;
+    private long pollIntervalMs = 30_000;
+    private long maxWaitMs = 24L * 60 * 60 * 1000;
+
+    public BatchJobClient(String endpoint, String apiKey, Path workDirectory) {
+        this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        this.apiKey = apiKey;
+        this.workDirectory = workDirectory;
+        this.httpClient = LLMClientRegistry.getInstance().getHttpClient();
+    }
+
+    /**
+     * Client for the OpenAI batch API, or for a local stand-in when the
+     * endpoint is not OpenAI's.
+     */
+    public static BatchJobClient forEndpoint(String endpoint) {
+        String apiKey = endpoint.startsWith(Endpoint.OPENAI_API.getUrl()) ? System.getenv("OPENAI_API_KEY") : null;
+        return new BatchJobClient(endpoint, apiKey, Path.of("cache", "batches"));
+    }
+
+    /**
+     * Longest wait between status polls.
+     */
+    public BatchJobClient setPollInterval(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+        return this;
+    }
+
+    public BatchJobClient setMaxWait(long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+        return this;
+    }
+
+    /**
+     * Run the requests as one batch and block until results are back. Ids
+     * missing from the result map failed inside the batch.
+     */
+    public Map<String, LLMResponse> run(Map<String, LLMRequest> requests) {
+        try {
+            String batchId = submit(requests);
+            JsonNode batch = awaitCompletion(batchId);
+            return fetchResults(batch);
+        } catch (IOException e) {
+            throw new LLMException("Batch job failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LLMException("Interrupted while waiting for batch job", 0, -1, e);
+        }
+    }
+
+    public String submit(Map<String, LLMRequest> requests) throws IOException {
+        Files.createDirectories(workDirectory);
+        Path batchFile = workDirectory.resolve("batch-" + System.currentTimeMillis() + ".jsonl");
+
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<String, LLMRequest> entry : requests.entrySet()) {
+            lines.append(toBatchLine(entry.getKey(), entry.getValue())).append('\n');
+        }
+        Files.writeString(batchFile, lines, StandardCharsets.UTF_8);
+
+        RequestBody upload = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("purpose", "batch")
+                .addFormDataPart("file", batchFile.getFileName().toString(), RequestBody.create(batchFile.toFile(), JSONL))
+                .build();
+        String fileId = execute(newRequest("/files").post(upload)).path("id").asText();
+
+        ObjectNode create = objectMapper.createObjectNode();
+        create.put("input_file_id", fileId)
+                .put("endpoint", "/v1/chat/completions")
+                .put("completion_window", "24h");
+        String batchId = execute(newRequest("/batches").post(RequestBody.create(create.toString(), JSON))).path("id").asText();
+
+        System.out.printf("📦 Submitted batch %s with %d requests (%s)\n", batchId, requests.size(), batchFile);
+        return batchId;
+    }
+
+    public JsonNode awaitCompletion(String batchId) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + maxWaitMs;
+        long intervalMs = Math.min(FIRST_POLL_MS, pollIntervalMs);
+        while (true) {
+            JsonNode batch = execute(newRequest("/batches/" + batchId).get());
+            String status = batch.path("status").asText();
+            JsonNode counts = batch.path("request_counts");
+            System.out.printf("   ⏳ Batch %s: %s (%d/%d done, %d failed)\n", batchId, status,
+                    counts.path("completed").asInt(), counts.path("total").asInt(), counts.path("failed").asInt());
+
+            if (TERMINAL_STATES.contains(status)) {
+                if (!status.equals("completed")) {
+                    throw new IOException("Batch " + batchId + " ended with status " + status);
+                }
+                return batch;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new IOException("Batch " + batchId + " did not finish within " + maxWaitMs + "ms");
+            }
+            Thread.sleep(intervalMs);
+            intervalMs = Math.min(intervalMs * 2, pollIntervalMs);
+        }
+    }
+
+    public Map<String, LLMResponse> fetchResults(JsonNode batch) throws IOException {
+        Map<String, LLMResponse> results = new HashMap<>();
+        String outputFileId = batch.path("output_file_id").asText("");
+        if (outputFileId.isEmpty()) {
+            return results;
+        }
+
+        try (Response response = httpClient.newCall(newRequest("/files/" + outputFileId + "/content").get().build()).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Failed to download batch output: " + response.code());
+            }
+            for (String line : response.body().string().split("\n")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode result = objectMapper.readTree(line);
+                JsonNode body = result.path("response").path("body");
+                if (result.path("response").path("status_code").asInt() != 200) {
+                    continue;
+                }
+
+                JsonNode usage = body.path("usage");
+                results.put(result.path("custom_id").asText(), LLMResponse.builder()
+                        .content(body.path("choices").path(0).path("message").path("content").asText(""))
+                        .model(body.path("model").asText())
+                        .usage(usage.isObject() ? new UsageStats(
+                                usage.path("prompt_tokens").asInt(),
+                                usage.path("completion_tokens").asInt(),
+                                usage.path("total_tokens").asInt()) : null)
+                        .build());
+            }
+        }
+        return results;
+    }
+
+    private String toBatchLine(String customId, LLMRequest request) {
+        ObjectNode line = objectMapper.createObjectNode();
+        line.put("custom_id", customId)
+                .put("method", "POST")
+                .put("url", "/v1/chat/completions");
+        ObjectNode body = line.putObject("body");
+        body.put("model", request.getModel())
+                .put("temperature", request.getTemperature())
+                .put("max_completion_tokens", request.getMaxTokens());
+        if (!request.getStopSequences().isEmpty()) {
+            ArrayNode stop = body.putArray("stop");
+            request.getStopSequences().forEach(stop::add);
+        }
+        body.putArray("messages").addObject()
+                .put("role", "user")
+                .put("content", request.getPrompt());
+        return line.toString();
+    }
+
+    private Request.Builder newRequest(String path) {
+        Request.Builder builder = new Request.Builder()
+                .url(endpoint + path)
+                .header("User-Agent", "Java-OkHttp-Client");
+        if (apiKey != null && !apiKey.isEmpty()) {
+            builder.header("Authorization", "Bearer " + apiKey);
+        }
+        return builder;
+    }
+
+    private JsonNode execute(Request.Builder request) throws IOException {
+        try (Response response = httpClient.newCall(request.build()).execute()) {
+            String body = response.body().string();
+            if (!response.isSuccessful()) {
+                throw new IOException("Batch API returned status " + response.code() + ": " + body);
+            }
+            return objectMapper.readTree(body);
+        }
+    }
+}
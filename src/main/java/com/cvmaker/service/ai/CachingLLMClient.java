@@ -0,0 +1,81 @@
+package com.cvmaker.service.ai;
+
+import java.util.function.Consumer;
+
+/**
+ * Serves repeated prompts from {@link LLMResponseCache} instead of paying for
+ * them again. Only worth using where the caller wants a deterministic answer.
+ */
+public class CachingLLMClient implements LLMClient {
+
+    private final LLMClient delegate;
+    private final LLMResponseCache cache;
+
+    public CachingLLMClient(LLMClient delegate, LLMResponseCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public LLMResponse complete(LLMRequest request) {
+        String key = LLMResponseCache.keyFor(request);
+        LLMResponse cached = cache.get(key);
+        if (cached != null) {
+            return asHit(cached);
+        }
+
+        LLMResponse response = delegate.complete(request);
+        cache.put(key, response);
+        return asMiss(response);
+    }
+
+    @Override
+    public LLMResponse stream(LLMRequest request, Consumer<String> onToken) {
+        String key = LLMResponseCache.keyFor(request);
+        LLMResponse cached = cache.get(key);
+        if (cached != null) {
+            try {
+                onToken.accept(cached.getContent());
+            } catch (StopGeneration e) {
+                // The caller has seen enough; the whole answer is here anyway
+            }
+            return asHit(cached);
+        }
+
+        LLMResponse response = delegate.stream(request, onToken);
+        // A cut-short answer is not the answer to this request
+        if (!response.isStoppedEarly()) {
+            cache.put(key, response);
+        }
+        return asMiss(response);
+    }
+
+    public LLMResponseCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    private LLMResponse asHit(LLMResponse cached) {
+        return withCacheCounts(cached, 1, 0, 0);
+    }
+
+    private LLMResponse asMiss(LLMResponse response) {
+        return withCacheCounts(response, 0, 1, response.getTimeToFirstTokenMs());
+    }
+
+    private LLMResponse withCacheCounts(LLMResponse response, long hits, long misses, long timeToFirstTokenMs) {
+        UsageStats usage = response.getUsage();
+        UsageStats counted = usage == null
+                ? new UsageStats(0, 0, 0, hits, misses)
+                : new UsageStats(usage.getPromptTokens(), usage.getCompletionTokens(), usage.getTotalTokens(),
+                        usage.getCachedPromptTokens(), hits, misses);
+        return response.toBuilder()
+                .usage(counted)
+                .timeToFirstTokenMs(timeToFirstTokenMs)
+                .build();
+    }
+}
@@ -0,0 +1,206 @@
+package com.cvmaker.service.ai;
+
+import java.util.Arrays;
+
+/**
+ * Counters and latency samples for one model / call-site pair. Percentiles
+ * are taken over a sliding window of the most recent calls, so a long run
+ * reflects current behaviour rather than its warm-up.
+ */
+public class CallSiteMetrics implements CallSiteMetricsMXBean {
+
+    private static final int WINDOW = 1024;
+
+    private final String model;
+    private final String callSite;
+
+    private long calls;
+    private long errors;
+    private long cancelled;
+    private long earlyStops;
+    private long completionTokensSaved;
+    private long promptTokens;
+    private long cachedPromptTokens;
+    private long completionTokens;
+    private long generationMs;
+    private long generatedTokens;
+
+    private final Window latencies = new Window(WINDOW);
+    private final Window timesToFirstToken = new Window(WINDOW);
+
+    public CallSiteMetrics(String model, String callSite) {
+        this.model = model;
+        this.callSite = callSite;
+    }
+
+    public synchronized void recordSuccess(long latencyMs, LLMResponse response) {
+        calls++;
+        latencies.add(latencyMs);
+
+        long ttft = response.getTimeToFirstTokenMs();
+        if (ttft >= 0) {
+            timesToFirstToken.add(ttft);
+        }
+
+        UsageStats usage = response.getUsage();
+        if (usage != null) {
+            promptTokens += usage.getPromptTokens();
+            cachedPromptTokens += usage.getCachedPromptTokens();
+            completionTokens += usage.getCompletionTokens();
+
+            // Decode speed: time after the first token when streaming, the whole call otherwise
+            long decodeMs = ttft >= 0 ? latencyMs - ttft : latencyMs;
+            if (decodeMs > 0 && usage.getCompletionTokens() > 0) {
+                generationMs += decodeMs;
+                generatedTokens += usage.getCompletionTokens();
+            }
+        }
+    }
+
+    public synchronized void recordError() {
+        calls++;
+        errors++;
+    }
+
+    /**
+     * A call abandoned by its caller, e.g. the losing leg of a hedge. Not an error.
+     */
+    public synchronized void recordCancelled() {
+        cancelled++;
+    }
+
+    /**
+     * The caller stopped generation once it had its answer, sparing an
+     * estimated {@code tokensSaved} completion tokens.
+     */
+    public synchronized void recordEarlyStop(long tokensSaved) {
+        earlyStops++;
+        completionTokensSaved += Math.max(0, tokensSaved);
+    }
+
+    @Override
+    public synchronized long getEarlyStops() {
+        return earlyStops;
+    }
+
+    @Override
+    public synchronized long getCompletionTokensSaved() {
+        return completionTokensSaved;
+    }
+
+    public synchronized long getCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public String getModel() {
+        return model;
+    }
+
+    @Override
+    public String getCallSite() {
+        return callSite;
+    }
+
+    @Override
+    public synchronized long getCalls() {
+        return calls;
+    }
+
+    @Override
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+    @Override
+    public synchronized double getErrorRate() {
+        return calls == 0 ? 0.0 : (double) errors / calls;
+    }
+
+    @Override
+    public synchronized double getLatencyP50() {
+        return latencies.percentile(50);
+    }
+
+    @Override
+    public synchronized double getLatencyP95() {
+        return latencies.percentile(95);
+    }
+
+    @Override
+    public synchronized double getLatencyP99() {
+        return latencies.percentile(99);
+    }
+
+    public synchronized long getLatencySamples() {
+        return latencies.size();
+    }
+
+    public synchronized long getTimeToFirstTokenSamples() {
+        return timesToFirstToken.size();
+    }
+
+    @Override
+    public synchronized double getTimeToFirstTokenP50() {
+        return timesToFirstToken.percentile(50);
+    }
+
+    @Override
+    public synchronized double getTimeToFirstTokenP95() {
+        return timesToFirstToken.percentile(95);
+    }
+
+    @Override
+    public synchronized double getOutputTokensPerSecond() {
+        return generationMs == 0 ? 0.0 : generatedTokens * 1000.0 / generationMs;
+    }
+
+    @Override
+    public synchronized long getPromptTokens() {
+        return promptTokens;
+    }
+
+    @Override
+    public synchronized long getCachedPromptTokens() {
+        return cachedPromptTokens;
+    }
+
+    @Override
+    public synchronized long getCompletionTokens() {
+        return completionTokens;
+    }
+
+    /**
+     * Ring buffer of the last {@code capacity} samples.
+     */
+    private static final class Window {
+
+        private final long[] samples;
+        private int size;
+        private int next;
+
+        Window(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        void add(long sample) {
+            samples[next] = sample;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        int size() {
+            return size;
+        }
+
+        double percentile(int p) {
+            if (size == 0) {
+                return 0.0;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(p / 100.0 * size) - 1;
+            return sorted[Math.max(0, Math.min(rank, size - 1))];
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.cvmaker.service.ai;
+
+/**
+ * JMX view of one model / call-site pair in {@link LLMTelemetry}. Times are
+ * in milliseconds.
+ */
+public interface CallSiteMetricsMXBean {
+
+    String getModel();
+
+    String getCallSite();
+
+    long getCalls();
+
+    long getErrors();
+
+    double getErrorRate();
+
+    double getLatencyP50();
+
+    double getLatencyP95();
+
+    double getLatencyP99();
+
+    double getTimeToFirstTokenP50();
+
+    double getTimeToFirstTokenP95();
+
+    double getOutputTokensPerSecond();
+
+    long getPromptTokens();
+
+    long getCachedPromptTokens();
+
+    long getCompletionTokens();
+
+    long getEarlyStops();
+
+    long getCompletionTokensSaved();
+}
@@ -0,0 +1,109 @@
+package com.cvmaker.service.ai;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Two-tier model cascade: a cheap model answers first and the stronger one
+ * is only consulted when the cheap answer is unsure (confidence below the
+ * threshold) or the caller needs more than a cheap model should be trusted
+ * with. Escalations are counted per reason.
+ */
+public class CascadePolicy {
+
+    public static final String LOW_CONFIDENCE = "low-confidence";
+    public static final String NEEDS_DETAIL = "needs-detail";
+
+    private final String name;
+    private final LLMModel cheapModel;
+    private final LLMModel strongModel;
+    private final double confidenceThreshold;
+
+    private final LongAdder decisions = new LongAdder();
+    private final Map<String, LongAdder> escalations = new ConcurrentHashMap<>();
+
+    private CascadePolicy(String name, LLMModel cheapModel, LLMModel strongModel, double confidenceThreshold) {
+        this.name = name;
+        this.cheapModel = cheapModel;
+        this.strongModel = strongModel;
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    /**
+     * A cascade whose escalations are reported through {@link LLMTelemetry}.
+     */
+    public static CascadePolicy create(String name, LLMModel cheapModel, LLMModel strongModel, double confidenceThreshold) {
+        CascadePolicy policy = new CascadePolicy(name, cheapModel, strongModel, confidenceThreshold);
+        LLMTelemetry.getInstance().registerCascade(policy);
+        return policy;
+    }
+
+    /**
+     * Run {@code attempt} on the cheap model, and again on the strong model
+     * if the first answer has to be escalated.
+     */
+    public <T> T run(Function<LLMModel, T> attempt, ToDoubleFunction<T> confidence, Predicate<T> needsDetail) {
+        T answer = attempt.apply(cheapModel);
+        String reason = check(confidence.applyAsDouble(answer), needsDetail.test(answer));
+        if (reason == null) {
+            return answer;
+        }
+        System.out.printf("  ⤴️ Escalating to %s (%s)\n", strongModel.getModelName(), reason);
+        return attempt.apply(strongModel);
+    }
+
+    /**
+     * Record a decision about a cheap-model answer, for callers that escalate
+     * in bulk. Returns the escalation reason, or null to keep the answer.
+     */
+    public String check(double confidence, boolean needsDetail) {
+        decisions.increment();
+        String reason = confidence < confidenceThreshold ? LOW_CONFIDENCE
+                : needsDetail ? NEEDS_DETAIL
+                : null;
+        if (reason != null) {
+            escalations.computeIfAbsent(reason, r -> new LongAdder()).increment();
+        }
+        return reason;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LLMModel getCheapModel() {
+        return cheapModel;
+    }
+
+    public LLMModel getStrongModel() {
+        return strongModel;
+    }
+
+    public double getConfidenceThreshold() {
+        return confidenceThreshold;
+    }
+
+    public long getDecisions() {
+        return decisions.sum();
+    }
+
+    public long getEscalations() {
+        return escalations.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public double getEscalationRate() {
+        long total = getDecisions();
+        return total == 0 ? 0.0 : (double) getEscalations() / total;
+    }
+
+    public Map<String, Long> getEscalationsByReason() {
+        Map<String, Long> byReason = new TreeMap<>();
+        escalations.forEach((reason, count) -> byReason.put(reason, count.sum()));
+        return byReason;
+    }
+}
@@ -0,0 +1,177 @@
+package com.cvmaker.service.ai;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-provider circuit breaker. After {@code failureThreshold} consecutive
+ * failed calls it opens, and calls are refused at once instead of waiting
+ * out a timeout each. Once {@code openMs} has passed it lets a single probe
+ * through (half-open); the probe's outcome closes or re-opens it.
+ * <p>
+ * Slow calls are judged per call site against that site's latency SLO and
+ * only ever open that call site: a run of long CV generations says nothing
+ * about whether email classification will get a timely answer.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final LLMProvider provider;
+    private volatile int failureThreshold;
+    private volatile long latencySloMs;
+    private volatile Map<String, Long> callSiteLatencySloMs = Map.of();
+    private volatile long openMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long opens;
+    private long rejected;
+    // Call site to its run of slow calls, and when it was opened for them
+    private final Map<String, Integer> consecutiveSlowCalls = new HashMap<>();
+    private final Map<String, Long> slowOpenedAt = new HashMap<>();
+
+    public CircuitBreaker(LLMProvider provider, int failureThreshold, long latencySloMs,
+            Map<String, Long> callSiteLatencySloMs, long openMs) {
+        this.provider = provider;
+        apply(failureThreshold, latencySloMs, callSiteLatencySloMs, openMs);
+    }
+
+    /**
+     * @param latencySloMs calls slower than this count as slow; 0 disables the check
+     * @param callSiteLatencySloMs overrides {@code latencySloMs} for the call sites it names
+     */
+    public void configure(int failureThreshold, long latencySloMs, Map<String, Long> callSiteLatencySloMs, long openMs) {
+        apply(failureThreshold, latencySloMs, callSiteLatencySloMs, openMs);
+    }
+
+    private void apply(int failureThreshold, long latencySloMs, Map<String, Long> callSiteLatencySloMs, long openMs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.latencySloMs = latencySloMs;
+        this.callSiteLatencySloMs = Map.copyOf(callSiteLatencySloMs);
+        this.openMs = openMs;
+    }
+
+    /**
+     * Whether a call from {@code callSite} may go ahead. When the open period
+     * is over the first caller becomes the half-open probe; everyone else is
+     * still refused until it reports back.
+     */
+    public synchronized boolean tryAcquire(String callSite) {
+        if (isSlowOpen(callSite)) {
+            rejected++;
+            return false;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMs) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            System.out.printf("🩺 Probing %s after circuit opened\n", provider);
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    /**
+     * Whether calls from {@code callSite} would be refused right now, without
+     * claiming the probe.
+     */
+    public synchronized boolean isOpen(String callSite) {
+        if (isSlowOpen(callSite)) {
+            return true;
+        }
+        return switch (state) {
+            case CLOSED -> false;
+            case OPEN -> System.currentTimeMillis() - openedAt < openMs;
+            case HALF_OPEN -> probeInFlight;
+        };
+    }
+
+    /**
+     * @param latencyMs time to the first token, or for an unstreamed call the
+     *                  network attempt that answered; never queueing or retries
+     */
+    public synchronized void recordSuccess(String callSite, long latencyMs) {
+        // Slow or not, the provider answered
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            System.out.printf("✅ %s circuit closed\n", provider);
+        }
+        state = State.CLOSED;
+        probeInFlight = false;
+
+        long slo = callSiteLatencySloMs.getOrDefault(callSite, latencySloMs);
+        if (slo <= 0 || latencyMs <= slo) {
+            consecutiveSlowCalls.remove(callSite);
+            return;
+        }
+        int slowCalls = consecutiveSlowCalls.merge(callSite, 1, Integer::sum);
+        if (slowCalls >= failureThreshold) {
+            System.out.printf("🐢 %s circuit opened for %s calls for %ds (%dms over the %dms latency SLO)\n",
+                    provider, callSite, openMs / 1000, latencyMs, slo);
+            slowOpenedAt.put(callSite, System.currentTimeMillis());
+            opens++;
+        }
+    }
+
+    public synchronized void recordFailure(String reason) {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            System.out.printf("🔌 %s circuit opened for %ds (%s)\n", provider, openMs / 1000, reason);
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            probeInFlight = false;
+            opens++;
+        }
+    }
+
+    /**
+     * The call was abandoned before it said anything about the provider.
+     */
+    public synchronized void release() {
+        probeInFlight = false;
+    }
+
+    public LLMProvider getProvider() {
+        return provider;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getOpens() {
+        return opens;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Once its open period is over a call site gets one more chance: the
+     * next slow call re-opens it, a timely one clears it.
+     */
+    private boolean isSlowOpen(String callSite) {
+        Long since = slowOpenedAt.get(callSite);
+        if (since == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - since < openMs) {
+            return true;
+        }
+        slowOpenedAt.remove(callSite);
+        consecutiveSlowCalls.put(callSite, failureThreshold - 1);
+        return false;
+    }
+}
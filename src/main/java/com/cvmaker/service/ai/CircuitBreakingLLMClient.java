@@ -0,0 +1,63 @@
+package com.cvmaker.service.ai;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Guards a provider's client with its {@link CircuitBreaker}. Sits outside
+ * the retry layer, so a call only counts as failed once its retries are
+ * exhausted. Client errors such as a bad request say nothing about the
+ * provider's health and are not counted. Latency is judged on the time to
+ * the first token, or for unstreamed calls on the attempt that answered,
+ * so queueing, rate-limit waits and long answers are not held against it.
+ */
+public class CircuitBreakingLLMClient implements LLMClient {
+
+    private final LLMClient delegate;
+    private final CircuitBreaker breaker;
+
+    public CircuitBreakingLLMClient(LLMClient delegate, CircuitBreaker breaker) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+    }
+
+    @Override
+    public LLMResponse complete(LLMRequest request) {
+        return guard(request, () -> delegate.complete(request));
+    }
+
+    @Override
+    public LLMResponse stream(LLMRequest request, Consumer<String> onToken) {
+        return guard(request, () -> delegate.stream(request, onToken));
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    private LLMResponse guard(LLMRequest request, Supplier<LLMResponse> call) {
+        if (!breaker.tryAcquire(request.getCallSite())) {
+            throw new CircuitOpenException(breaker.getProvider());
+        }
+
+        try {
+            LLMResponse response = call.get();
+            long latencyMs = response.getTimeToFirstTokenMs() >= 0
+                    ? response.getTimeToFirstTokenMs()
+                    : (long) response.getPromptLatency();
+            breaker.recordSuccess(request.getCallSite(), latencyMs);
+            return response;
+        } catch (LLMException e) {
+            if (Thread.currentThread().isInterrupted() || !e.isRetryable()) {
+                breaker.release();
+            } else {
+                breaker.recordFailure(e.getMessage());
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            breaker.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.cvmaker.service.ai;
+
+/**
+ * A call refused without being sent because the provider's
+ * {@link CircuitBreaker} is open. Not retryable.
+ */
+public class CircuitOpenException extends LLMException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(LLMProvider provider) {
+        super(provider + " circuit is open", 0, -1, null);
+    }
+}
@@ -0,0 +1,83 @@
+package com.cvmaker.service.ai;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome counts for one primary/secondary pair of a {@link HedgingLLMClient}.
+ */
+public class HedgeStats {
+
+    private final String primaryModel;
+    private final String secondaryModel;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+    private final LongAdder primaryWins = new LongAdder();
+    private final LongAdder secondaryWins = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public HedgeStats(String primaryModel, String secondaryModel) {
+        this.primaryModel = primaryModel;
+        this.secondaryModel = secondaryModel;
+    }
+
+    void recordCall() {
+        calls.increment();
+    }
+
+    /** The secondary was started because the primary was slow to answer */
+    void recordHedge() {
+        hedged.increment();
+    }
+
+    /** The secondary was started because the primary failed outright */
+    void recordFailover() {
+        failovers.increment();
+    }
+
+    void recordWin(boolean primary) {
+        (primary ? primaryWins : secondaryWins).increment();
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    public String getPrimaryModel() {
+        return primaryModel;
+    }
+
+    public String getSecondaryModel() {
+        return secondaryModel;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getHedged() {
+        return hedged.sum();
+    }
+
+    public long getFailovers() {
+        return failovers.sum();
+    }
+
+    public long getPrimaryWins() {
+        return primaryWins.sum();
+    }
+
+    public long getSecondaryWins() {
+        return secondaryWins.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public double getHedgeRate() {
+        long total = getCalls();
+        return total == 0 ? 0.0 : (double) (getHedged() + getFailovers()) / total;
+    }
+}
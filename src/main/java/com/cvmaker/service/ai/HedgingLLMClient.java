@@ -0,0 +1,221 @@
+package com.cvmaker.service.ai;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Sends a request to the primary model and, if no first token (or, for
+ * blocking calls, no answer) has arrived by the primary's recent p95, sends
+ * the same request to a secondary model as well. Whichever answers first
+ * wins and the other is cancelled. A primary that fails outright hands over
+ * to the secondary immediately.
+ *
+ * For streams the winner is decided by the first token, so the caller only
+ * ever sees tokens from one model. The secondary's request is rebuilt with
+ * its own output limits; see {@link AiService#retarget}.
+ */
+public class HedgingLLMClient implements LLMClient {
+
+    private static final long DEFAULT_HEDGE_DELAY_MS = 5000;
+    private static final long MIN_HEDGE_DELAY_MS = 250;
+    private static final long MAX_HEDGE_DELAY_MS = 30000;
+    // Below this many samples the p95 is noise; use the default instead
+    private static final long MIN_SAMPLES = 20;
+
+    private final LLMModel primaryModel;
+    private final LLMClient primary;
+    private final LLMModel secondaryModel;
+    private final LLMClient secondary;
+    private final ExecutorService executor;
+    private final LLMTelemetry telemetry;
+    private final HedgeStats stats;
+
+    public HedgingLLMClient(LLMModel primaryModel, LLMClient primary, LLMModel secondaryModel, LLMClient secondary,
+            ExecutorService executor, LLMTelemetry telemetry) {
+        this.primaryModel = primaryModel;
+        this.primary = primary;
+        this.secondaryModel = secondaryModel;
+        this.secondary = secondary;
+        this.executor = executor;
+        this.telemetry = telemetry;
+        this.stats = telemetry.hedgeStatsFor(primaryModel.getModelName(), secondaryModel.getModelName());
+    }
+
+    @Override
+    public LLMResponse complete(LLMRequest request) {
+        return hedge(request, null);
+    }
+
+    @Override
+    public LLMResponse stream(LLMRequest request, Consumer<String> onToken) {
+        return hedge(request, onToken);
+    }
+
+    @Override
+    public void shutdown() {
+        // Both legs are registry clients; the registry shuts them down
+    }
+
+    private LLMResponse hedge(LLMRequest request, Consumer<String> onToken) {
+        stats.recordCall();
+        Race race = new Race(onToken);
+
+        race.start(Leg.PRIMARY, primary, request);
+        long delayMs = hedgeDelayMs(request, onToken != null);
+        try {
+            boolean answered = race.primarySignal.await(delayMs, TimeUnit.MILLISECONDS);
+            if (!answered) {
+                stats.recordHedge();
+                System.out.printf("⏱️ No answer from %s after %dms, hedging to %s\n",
+                        primaryModel.getModelName(), delayMs, secondaryModel.getModelName());
+                race.start(Leg.SECONDARY, secondary, AiService.retarget(request, primaryModel, secondaryModel));
+            } else if (race.primaryFailed && race.winner.get() == null) {
+                stats.recordFailover();
+                System.out.printf("↪️ %s failed, failing over to %s\n",
+                        primaryModel.getModelName(), secondaryModel.getModelName());
+                race.start(Leg.SECONDARY, secondary, AiService.retarget(request, primaryModel, secondaryModel));
+            }
+            race.finishStarting();
+
+            LLMResponse response = race.result.get();
+            stats.recordWin(race.winner.get() == Leg.PRIMARY);
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LLMException("Interrupted while waiting for " + primaryModel.getModelName(), 0, -1, e);
+        } catch (ExecutionException e) {
+            stats.recordFailure();
+            throw RetryingLLMClient.toLLMException(e.getCause());
+        } finally {
+            race.cancelAll();
+        }
+    }
+
+    private long hedgeDelayMs(LLMRequest request, boolean streaming) {
+        CallSiteMetrics metrics = telemetry.metricsFor(primaryModel.getModelName(), request.getCallSite());
+        long samples = streaming ? metrics.getTimeToFirstTokenSamples() : metrics.getLatencySamples();
+        if (samples < MIN_SAMPLES) {
+            return DEFAULT_HEDGE_DELAY_MS;
+        }
+        double p95 = streaming ? metrics.getTimeToFirstTokenP95() : metrics.getLatencyP95();
+        return Math.max(MIN_HEDGE_DELAY_MS, Math.min(MAX_HEDGE_DELAY_MS, (long) p95));
+    }
+
+    private enum Leg {
+        PRIMARY, SECONDARY
+    }
+
+    /**
+     * State shared by the legs of one hedged call.
+     */
+    private final class Race {
+
+        final Consumer<String> onToken;
+        final CompletableFuture<LLMResponse> result = new CompletableFuture<>();
+        final AtomicReference<Leg> winner = new AtomicReference<>();
+        final CountDownLatch primarySignal = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicReference<Throwable> lastError = new AtomicReference<>();
+        final Future<?>[] legs = new Future<?>[Leg.values().length];
+        volatile boolean primaryFailed;
+        volatile boolean allStarted;
+
+        Race(Consumer<String> onToken) {
+            this.onToken = onToken;
+        }
+
+        synchronized void start(Leg leg, LLMClient client, LLMRequest request) {
+            if (result.isDone() || winner.get() != null) {
+                return;
+            }
+            running.incrementAndGet();
+            legs[leg.ordinal()] = executor.submit(() -> run(leg, client, request));
+        }
+
+        private void run(Leg leg, LLMClient client, LLMRequest request) {
+            try {
+                LLMResponse response = onToken == null
+                        ? client.complete(request)
+                        : client.stream(request, token -> {
+                            if (claim(leg)) {
+                                onToken.accept(token);
+                            }
+                        });
+                if (claim(leg)) {
+                    result.complete(response);
+                }
+            } catch (Throwable t) {
+                lastError.set(t);
+                if (leg == Leg.PRIMARY) {
+                    primaryFailed = true;
+                }
+                // A leg that already won owns the result, failure included
+                if (winner.get() == leg) {
+                    result.completeExceptionally(t);
+                }
+            } finally {
+                if (running.decrementAndGet() == 0 && allStarted) {
+                    failIfNoneLeft();
+                }
+                if (leg == Leg.PRIMARY) {
+                    primarySignal.countDown();
+                }
+            }
+        }
+
+        /**
+         * No further legs will be started; if every leg has already failed,
+         * the call has failed.
+         */
+        void finishStarting() {
+            allStarted = true;
+            if (running.get() == 0) {
+                failIfNoneLeft();
+            }
+        }
+
+        private void failIfNoneLeft() {
+            Throwable error = lastError.get();
+            if (error != null) {
+                result.completeExceptionally(error);
+            }
+        }
+
+        /**
+         * First leg to produce output wins; the other is cancelled there and then.
+         */
+        private boolean claim(Leg leg) {
+            if (winner.compareAndSet(null, leg)) {
+                if (leg == Leg.PRIMARY) {
+                    primarySignal.countDown();
+                }
+                cancelOthers(leg);
+                return true;
+            }
+            return winner.get() == leg;
+        }
+
+        private synchronized void cancelOthers(Leg keep) {
+            for (Leg leg : Leg.values()) {
+                if (leg != keep && legs[leg.ordinal()] != null) {
+                    legs[leg.ordinal()].cancel(true);
+                }
+            }
+        }
+
+        synchronized void cancelAll() {
+            for (Future<?> leg : legs) {
+                if (leg != null) {
+                    leg.cancel(true);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.cvmaker.service.ai;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Times every call and records it in {@link LLMTelemetry} under the
+ * request's model and call-site tag. Sits outside the retry layer, so a
+ * call's latency includes its retries and rate-limit waits.
+ */
+public class InstrumentedLLMClient implements LLMClient {
+
+    private final LLMClient delegate;
+    private final LLMTelemetry telemetry;
+
+    public InstrumentedLLMClient(LLMClient delegate, LLMTelemetry telemetry) {
+        this.delegate = delegate;
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public LLMResponse complete(LLMRequest request) {
+        return record(request, () -> delegate.complete(request));
+    }
+
+    @Override
+    public LLMResponse stream(LLMRequest request, Consumer<String> onToken) {
+        return record(request, () -> delegate.stream(request, onToken));
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    private LLMResponse record(LLMRequest request, Supplier<LLMResponse> call) {
+        CallSiteMetrics metrics = telemetry.metricsFor(request.getModel(), request.getCallSite());
+        long start = System.nanoTime();
+        try {
+            LLMResponse response = call.get();
+            long latencyMs = (System.nanoTime() - start) / 1_000_000;
+            metrics.recordSuccess(latencyMs, response);
+            return response.toBuilder().promptLatency(latencyMs).build();
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                metrics.recordCancelled();
+            } else {
+                metrics.recordError();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.cvmaker.service.ai;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Decodes the JSON in a model's answer in a single streaming pass. Models
+ * wrap JSON in code fences or lead with a line of prose; decoding starts at
+ * the first brace and stops at its matching close, so neither gets in the
+ * way. The parser factory is shared and thread-safe.
+ */
+public final class JsonResponseDecoder {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper(JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .enable(JsonReadFeature.ALLOW_SINGLE_QUOTES)
+            .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .build());
+
+    private JsonResponseDecoder() {
+    }
+
+    /**
+     * Receives each top-level field of a decoded object, in document order.
+     * Values are text, or null for JSON null; arrays of plain values are
+     * joined with ", " and nested objects arrive as JSON text.
+     */
+    @FunctionalInterface
+    public interface FieldHandler {
+        void field(String name, String value);
+    }
+
+    /**
+     * Feed the fields of the first JSON object in {@code response} to
+     * {@code handler}.
+     *
+     * @return false if the response holds no object at all
+     * @throws IOException if the object is malformed; fields before the
+     *         fault have already been handled
+     */
+    public static boolean decodeObject(String response, FieldHandler handler) throws IOException {
+        int start = response == null ? -1 : response.indexOf('{');
+        if (start < 0) {
+            return false;
+        }
+
+        try (JsonParser parser = MAPPER.createParser(response.substring(start))) {
+            parser.nextToken();
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                handler.field(name, readValue(parser));
+            }
+            if (token != JsonToken.END_OBJECT) {
+                throw new JsonParseException(parser, "Expected a field name or '}' but got " + token);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fields of the first JSON object in {@code response}; empty if there is none.
+     */
+    public static Map<String, String> decodeFields(String response) throws IOException {
+        Map<String, String> fields = new LinkedHashMap<>();
+        decodeObject(response, fields::put);
+        return fields;
+    }
+
+    /**
+     * Fields of every top-level object in {@code response}, typically the
+     * elements of a JSON array. A malformed object is skipped rather than
+     * sinking the ones around it.
+     */
+    public static List<Map<String, String>> decodeObjects(String response) {
+        List<Map<String, String>> objects = new ArrayList<>();
+        for (String object : splitTopLevelObjects(response)) {
+            try {
+                objects.add(decodeFields(object));
+            } catch (IOException e) {
+                System.err.println("Skipping malformed JSON object: " + e.getMessage());
+            }
+        }
+        return objects;
+    }
+
+    /**
+     * Decoder for an answer that arrives in pieces, e.g. a token stream.
+     */
+    public static Incremental incremental(FieldHandler handler) {
+        return new Incremental(handler);
+    }
+
+    /**
+     * Reports each top-level scalar field as soon as its value is complete;
+     * nested objects and arrays are skipped. Exceptions thrown by the handler
+     * (such as {@link StopGeneration}) propagate out of {@link #feed}. A
+     * malformed answer simply stops producing fields.
+     */
+    public static final class Incremental {
+
+        private final FieldHandler handler;
+        private final JsonParser parser;
+        private boolean started;
+        private boolean done;
+        private int depth;
+        private String field;
+
+        private Incremental(FieldHandler handler) {
+            this.handler = handler;
+            try {
+                this.parser = MAPPER.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not create a non-blocking JSON parser", e);
+            }
+        }
+
+        public void feed(String chunk) {
+            if (done) {
+                return;
+            }
+            if (!started) {
+                int start = chunk.indexOf('{');
+                if (start < 0) {
+                    return;
+                }
+                chunk = chunk.substring(start);
+                started = true;
+            }
+
+            byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+            try {
+                ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+                JsonToken token;
+                while (!done && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                    accept(token);
+                }
+            } catch (IOException e) {
+                done = true;
+            }
+        }
+
+        private void accept(JsonToken token) throws IOException {
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                done = --depth == 0;
+            } else if (depth == 1) {
+                if (token == JsonToken.FIELD_NAME) {
+                    field = parser.currentName();
+                } else {
+                    handler.field(field, parser.getValueAsString());
+                }
+            }
+        }
+    }
+
+    private static String readValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.START_ARRAY) {
+            JsonNode array = parser.readValueAsTree();
+            boolean plain = StreamSupport.stream(array.spliterator(), false).allMatch(JsonNode::isValueNode);
+            return plain
+                    ? StreamSupport.stream(array.spliterator(), false).map(JsonNode::asText).collect(Collectors.joining(", "))
+                    : array.toString();
+        }
+        if (token == JsonToken.START_OBJECT) {
+            return parser.readValueAsTree().toString();
+        }
+        return parser.getValueAsString();
+    }
+
+    /**
+     * Split a response into its top-level objects with a brace scan that
+     * respects strings, without parsing anything.
+     */
+    private static List<String> splitTopLevelObjects(String response) {
+        List<String> objects = new ArrayList<>();
+        if (response == null) {
+            return objects;
+        }
+
+        int depth = 0;
+        int start = -1;
+        boolean inString = false;
+
+        for (int i = 0; i < response.length(); i++) {
+            char c = response.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                if (depth++ == 0) {
+                    start = i;
+                }
+            } else if (c == '}' && depth > 0) {
+                if (--depth == 0) {
+                    objects.add(response.substring(start, i + 1));
+                }
+            }
+        }
+        return objects;
+    }
+}
@@ -1,6 +1,9 @@
 package com.cvmaker.service.ai;
 
+import java.util.function.Consumer;
+
 public interface LLMClient {
     LLMResponse complete(LLMRequest request);
+    LLMResponse stream(LLMRequest request, Consumer<String> onToken);
     void shutdown();
 }
@@ -1,13 +1,39 @@
 package com.cvmaker.service.ai;
 
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Builds the bare network client for a model. Only {@link LLMClientRegistry}
+ * calls it; everything else gets clients from there, wrapped in retry,
+ * circuit breaking, telemetry and the response cache.
+ */
 public class LLMClientFactory {
 
-    public static LLMClient createClient(LLMModel model) {
+    public static LLMClient createClient(LLMModel model, OkHttpClient sharedHttpClient) {
         return switch (model.getProvider()) {
             case OPENAI ->
                 new OpenAIClient();
             case LOCAL ->
-                new LocalLLMClient(model.getEndpoint());
+                new LocalLLMClient(model.getEndpoint(), sharedHttpClient);
+            case RECORD, REPLAY ->
+                throw new IllegalStateException(model.getProvider() + " is a registry mode, not a model provider");
         };
     }
+
+    /**
+     * As {@link #createClient(LLMModel, OkHttpClient)}, but local models are
+     * served by a {@link LocalEndpointPool} over {@code localEndpoints} when
+     * more than one is given.
+     */
+    public static LLMClient createClient(LLMModel model, OkHttpClient sharedHttpClient, List<String> localEndpoints) {
+        if (model.getProvider() == LLMProvider.LOCAL && localEndpoints.size() > 1) {
+            return new LocalEndpointPool(localEndpoints, sharedHttpClient);
+        }
+        if (model.getProvider() == LLMProvider.LOCAL && localEndpoints.size() == 1) {
+            return new LocalLLMClient(localEndpoints.get(0), sharedHttpClient);
+        }
+        return createClient(model, sharedHttpClient);
+    }
 }
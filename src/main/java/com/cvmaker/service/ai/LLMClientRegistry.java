@@ -0,0 +1,231 @@
+package com.cvmaker.service.ai;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+/**
+ * Process-wide owner of LLM clients, their connection pools and the executor
+ * that runs blocking calls. Clients are created once per provider and
+ * endpoint and shared by every {@link AiService}. Calls run on virtual
+ * threads, so fanning out many requests costs no platform threads.
+ */
+public class LLMClientRegistry {
+
+    private static final LLMClientRegistry INSTANCE = new LLMClientRegistry();
+
+    private final Map<String, LLMClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, LLMClient> cachingClients = new ConcurrentHashMap<>();
+    private final Map<String, LLMClient> hedgedClients = new ConcurrentHashMap<>();
+    private final Map<LLMProvider, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<LLMProvider, LLMScheduler> schedulers = new ConcurrentHashMap<>();
+    private final OkHttpClient sharedHttpClient;
+    private final ExecutorService executor;
+    private volatile RetryPolicy retryPolicy = RetryPolicy.defaults();
+    private volatile List<String> localEndpoints = List.of();
+    private volatile int circuitFailureThreshold = 5;
+    private volatile long circuitLatencySloMs = 45_000;
+    private volatile Map<String, Long> circuitCallSiteLatencySloMs = Map.of();
+    private volatile long circuitOpenMs = 60_000;
+    private volatile int schedulerMaxConcurrent = 16;
+    private volatile Map<RequestPriority, Integer> schedulerClassLimits = LLMScheduler.defaultLimits(16);
+    private volatile long schedulerAgingMs = 10_000;
+    private volatile LLMProvider providerMode;
+    private volatile LLMCorpus corpus;
+    private ReplayLLMClient replayClient;
+    private volatile double replayLatencyScale = 1.0;
+
+    private LLMClientRegistry() {
+        this.sharedHttpClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(10, 5, TimeUnit.MINUTES))
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(60, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .build();
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    public static LLMClientRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public LLMClient getClient(LLMModel model) {
+        return clients.computeIfAbsent(keyFor(model), key -> new InstrumentedLLMClient(
+                new CircuitBreakingLLMClient(
+                        new RetryingLLMClient(
+                                createBaseClient(model),
+                                model.getProvider(),
+                                this::getRetryPolicy,
+                                RateLimiter.getInstance(),
+                                getScheduler(model.getProvider()),
+                                executor),
+                        getCircuitBreaker(model.getProvider())),
+                LLMTelemetry.getInstance()));
+    }
+
+    public LLMClient getClient(LLMModel model, boolean cached) {
+        if (!cached) {
+            return getClient(model);
+        }
+        return cachingClients.computeIfAbsent(keyFor(model),
+                key -> new CachingLLMClient(getClient(model), LLMResponseCache.getDefault()));
+    }
+
+    /**
+     * A client that hedges slow {@code primary} calls onto {@code secondary};
+     * see {@link HedgingLLMClient}. The cache, if any, sits in front of the hedge.
+     */
+    public LLMClient getHedgedClient(LLMModel primary, LLMModel secondary, boolean cached) {
+        String key = primary + "->" + secondary + (cached ? "|cached" : "");
+        return hedgedClients.computeIfAbsent(key, k -> {
+            LLMClient hedged = new HedgingLLMClient(primary, getClient(primary), secondary, getClient(secondary),
+                    executor, LLMTelemetry.getInstance());
+            return cached ? new CachingLLMClient(hedged, LLMResponseCache.getDefault()) : hedged;
+        });
+    }
+
+    public CircuitBreaker getCircuitBreaker(LLMProvider provider) {
+        return circuitBreakers.computeIfAbsent(provider, p -> {
+            CircuitBreaker breaker = new CircuitBreaker(p, circuitFailureThreshold, circuitLatencySloMs,
+                    circuitCallSiteLatencySloMs, circuitOpenMs);
+            LLMTelemetry.getInstance().registerCircuitBreaker(breaker);
+            return breaker;
+        });
+    }
+
+    public LLMScheduler getScheduler(LLMProvider provider) {
+        return schedulers.computeIfAbsent(provider, p -> {
+            LLMScheduler scheduler = new LLMScheduler(p, schedulerMaxConcurrent, schedulerClassLimits, schedulerAgingMs);
+            LLMTelemetry.getInstance().registerScheduler(scheduler);
+            return scheduler;
+        });
+    }
+
+    /**
+     * Applies to every provider's scheduler, existing and future.
+     */
+    public void configureSchedulers(int maxConcurrent, Map<RequestPriority, Integer> classLimits, long agingMs) {
+        this.schedulerMaxConcurrent = maxConcurrent;
+        this.schedulerClassLimits = Map.copyOf(classLimits);
+        this.schedulerAgingMs = agingMs;
+        schedulers.values().forEach(scheduler -> scheduler.configure(maxConcurrent, classLimits, agingMs));
+    }
+
+    /**
+     * Applies to every provider's breaker, existing and future.
+     */
+    public void configureCircuitBreakers(int failureThreshold, long latencySloMs, Map<String, Long> callSiteLatencySloMs,
+            long openMs) {
+        this.circuitFailureThreshold = failureThreshold;
+        this.circuitLatencySloMs = latencySloMs;
+        this.circuitCallSiteLatencySloMs = Map.copyOf(callSiteLatencySloMs);
+        this.circuitOpenMs = openMs;
+        circuitBreakers.values().forEach(breaker ->
+                breaker.configure(failureThreshold, latencySloMs, callSiteLatencySloMs, openMs));
+    }
+
+    /**
+     * Switches every client created from now on to {@link LLMProvider#RECORD}
+     * or {@link LLMProvider#REPLAY} against the corpus in
+     * {@code corpusDirectory}; null restores live calls. Replayed latencies
+     * are multiplied by {@code latencyScale}. Must be set before the first
+     * client is created.
+     */
+    public void setProviderMode(LLMProvider mode, Path corpusDirectory, double latencyScale) {
+        if (mode != null && mode != LLMProvider.RECORD && mode != LLMProvider.REPLAY) {
+            throw new IllegalArgumentException("Provider mode must be RECORD or REPLAY, not " + mode);
+        }
+        this.providerMode = mode;
+        this.corpus = mode != null ? new LLMCorpus(corpusDirectory) : null;
+        this.replayLatencyScale = latencyScale;
+        synchronized (this) {
+            this.replayClient = null;
+        }
+    }
+
+    public LLMProvider getProviderMode() {
+        return providerMode;
+    }
+
+    /**
+     * Base URLs of the local inference servers; two or more are load
+     * balanced. Must be set before the first local client is created.
+     */
+    public void setLocalEndpoints(List<String> localEndpoints) {
+        this.localEndpoints = List.copyOf(localEndpoints);
+    }
+
+    public List<String> getLocalEndpoints() {
+        return localEndpoints;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public OkHttpClient getHttpClient() {
+        return sharedHttpClient;
+    }
+
+    /**
+     * Close every shared client and stop the executor. Call once at the end of
+     * a run; AiService instances must not be used afterwards.
+     */
+    public void shutdown() {
+        clients.values().forEach(LLMClient::shutdown);
+        clients.clear();
+        cachingClients.clear();
+        hedgedClients.clear();
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        sharedHttpClient.dispatcher().executorService().shutdown();
+        sharedHttpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * The network client for {@code model}, or its recorded stand-in. Retry,
+     * rate limiting and the breaker stay keyed by the model's own provider, so
+     * a replayed run exercises the same layers as a live one.
+     */
+    private LLMClient createBaseClient(LLMModel model) {
+        if (providerMode == LLMProvider.REPLAY) {
+            synchronized (this) {
+                if (replayClient == null) {
+                    replayClient = new ReplayLLMClient(corpus, replayLatencyScale);
+                }
+                return replayClient;
+            }
+        }
+        LLMClient live = LLMClientFactory.createClient(model, sharedHttpClient, localEndpoints);
+        return providerMode == LLMProvider.RECORD ? new RecordingLLMClient(live, corpus) : live;
+    }
+
+    private String keyFor(LLMModel model) {
+        return model.getProvider() + "|" + model.getEndpoint();
+    }
+}
@@ -0,0 +1,73 @@
+package com.cvmaker.service.ai;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * On-disk corpus of recorded LLM calls, one JSON line per call. Requests are
+ * stored as their {@link LLMResponseCache#keyFor cache key} rather than the
+ * full prompt, which keeps the corpus small; answers are kept whole, with
+ * usage and timing. Written by {@link RecordingLLMClient}, read by
+ * {@link ReplayLLMClient}.
+ */
+public class LLMCorpus {
+
+    public static final String FILE_NAME = "llm-corpus.jsonl";
+
+    public record Entry(String key, String model, String callSite, boolean streamed, String content,
+            int promptTokens, int completionTokens, int cachedPromptTokens,
+            long latencyMs, long timeToFirstTokenMs) {
+    }
+
+    private final Path file;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public LLMCorpus(Path directory) {
+        this.file = directory.resolve(FILE_NAME);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public synchronized void append(Entry entry) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, objectMapper.writeValueAsString(entry) + "\n",
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Could not record LLM call: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Every entry in the corpus; unreadable lines are skipped.
+     */
+    public synchronized List<Entry> load() {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return entries;
+        }
+        try {
+            for (String line : Files.readAllLines(file)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    entries.add(objectMapper.readValue(line, Entry.class));
+                } catch (IOException e) {
+                    System.err.println("Skipping unreadable corpus entry: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read LLM corpus " + file + ": " + e.getMessage());
+        }
+        return entries;
+    }
+}
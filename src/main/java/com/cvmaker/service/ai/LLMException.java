@@ -0,0 +1,61 @@
+package com.cvmaker.service.ai;
+
+/**
+ * Failure from an LLM provider, carrying enough detail for the retry engine
+ * to decide whether and when to try again.
+ */
+public class LLMException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final long retryAfterMs;
+    private final boolean transientFailure;
+
+    public LLMException(String message, int statusCode, long retryAfterMs, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+        this.retryAfterMs = retryAfterMs;
+        this.transientFailure = statusCode == 408 || statusCode == 409 || statusCode == 429 || statusCode >= 500;
+    }
+
+    // Network-level failure (timeout, reset connection) with no HTTP status
+    public LLMException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = -1;
+        this.retryAfterMs = -1;
+        this.transientFailure = true;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Delay the provider asked for via Retry-After, or -1 when it gave none.
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+    public boolean isRetryable() {
+        return transientFailure;
+    }
+
+    /**
+     * Parse Retry-After (delta seconds) or retry-after-ms header values.
+     */
+    public static long parseRetryAfter(String retryAfterMs, String retryAfterSeconds) {
+        try {
+            if (retryAfterMs != null) {
+                return (long) Double.parseDouble(retryAfterMs.trim());
+            }
+            if (retryAfterSeconds != null) {
+                return (long) (Double.parseDouble(retryAfterSeconds.trim()) * 1000);
+            }
+        } catch (NumberFormatException e) {
+            // HTTP-date form is not used by the providers we talk to
+        }
+        return -1;
+    }
+}
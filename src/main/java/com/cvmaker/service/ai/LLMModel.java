@@ -3,21 +3,23 @@ package com.cvmaker.service.ai;
 import com.openai.models.ChatModel;
 
 public enum LLMModel {
-    GPT_4_1(ChatModel.GPT_4_1.asString(), "https://api.openai.com/v1", LLMProvider.OPENAI),
-    GPT_4_1_MINI(ChatModel.GPT_4_1_MINI.asString(), "https://api.openai.com/v1", LLMProvider.OPENAI),
-    GPT_4_1_NANO(ChatModel.GPT_4_1_NANO.asString(), "https://api.openai.com/v1", LLMProvider.OPENAI),
-    GPT_5_1_MINI("gpt-5-mini-2025-08-07", "https://api.openai.com/v1", LLMProvider.OPENAI),
-    LLAMA_3_8B_LEXI_UNCENSORED("llama-3-8b-lexi-uncensored", "http://localhost:1234/v1", LLMProvider.LOCAL),
-    MISTRAL_SMALL_3_2("mistralai/mistral-small-3.2", "http://localhost:1234/v1", LLMProvider.LOCAL),;
+    GPT_4_1(ChatModel.GPT_4_1.asString(), "https://api.openai.com/v1", LLMProvider.OPENAI, false),
+    GPT_4_1_MINI(ChatModel.GPT_4_1_MINI.asString(), "https://api.openai.com/v1", LLMProvider.OPENAI, false),
+    GPT_4_1_NANO(ChatModel.GPT_4_1_NANO.asString(), "https://api.openai.com/v1", LLMProvider.OPENAI, false),
+    GPT_5_1_MINI("gpt-5-mini-2025-08-07", "https://api.openai.com/v1", LLMProvider.OPENAI, true),
+    LLAMA_3_8B_LEXI_UNCENSORED("llama-3-8b-lexi-uncensored", "http://localhost:1234/v1", LLMProvider.LOCAL, false),
+    MISTRAL_SMALL_3_2("mistralai/mistral-small-3.2", "http://localhost:1234/v1", LLMProvider.LOCAL, false),;
 
     private final String modelName;
     private final String endpoint;
     private final LLMProvider provider;
+    private final boolean reasoning;
 
-    LLMModel(String modelName, String endpoint, LLMProvider provider) {
+    LLMModel(String modelName, String endpoint, LLMProvider provider, boolean reasoning) {
         this.modelName = modelName;
         this.endpoint = endpoint;
         this.provider = provider;
+        this.reasoning = reasoning;
     }
 
     public String getModelName() {
@@ -32,4 +34,12 @@ public enum LLMModel {
         return provider;
     }
 
+    /**
+     * Reasoning models spend part of the completion cap thinking before they
+     * answer, and reject stop sequences.
+     */
+    public boolean isReasoning() {
+        return reasoning;
+    }
+
 }
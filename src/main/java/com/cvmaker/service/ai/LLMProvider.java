@@ -2,5 +2,15 @@ package com.cvmaker.service.ai;
 
 public enum LLMProvider {
     OPENAI,
-    LOCAL
-}
\ No newline at end of file
+    LOCAL,
+    /**
+     * Not a model's provider but a mode for the whole registry: calls go to
+     * the live provider and are recorded into an {@link LLMCorpus}.
+     */
+    RECORD,
+    /**
+     * Registry mode that answers every call from an {@link LLMCorpus}, with
+     * no network access.
+     */
+    REPLAY
+}
@@ -1,17 +1,31 @@
 package com.cvmaker.service.ai;
 
+import java.util.List;
+
 public class LLMRequest {
 
     private final String prompt;
     private final String model;
     private final double temperature;
     private final int maxTokens;
+    private final int inputTokenBudget;
+    private final String callSite;
+    private final ResponseSchema responseSchema;
+    private final OutputProfile outputProfile;
+    private final List<String> stopSequences;
+    private final RequestPriority priority;
 
     private LLMRequest(Builder builder) {
         this.prompt = builder.prompt;
         this.model = builder.model;
         this.temperature = builder.temperature;
         this.maxTokens = builder.maxTokens;
+        this.inputTokenBudget = builder.inputTokenBudget;
+        this.callSite = builder.callSite;
+        this.responseSchema = builder.responseSchema;
+        this.outputProfile = builder.outputProfile;
+        this.stopSequences = builder.stopSequences;
+        this.priority = builder.priority;
     }
 
     public String getPrompt() {
@@ -30,16 +44,83 @@ public class LLMRequest {
         return maxTokens;
     }
 
+    /**
+     * Prompt size allowed for this call, in tokens; 0 means unlimited.
+     * Oversized prompts are trimmed by {@link TokenCounter#fitToBudget}.
+     */
+    public int getInputTokenBudget() {
+        return inputTokenBudget;
+    }
+
+    /**
+     * Tag naming the feature that made the call (cv, email-classify, ...),
+     * used to break down {@link LLMTelemetry}.
+     */
+    public String getCallSite() {
+        return callSite;
+    }
+
+    /**
+     * Schema the answer must follow, or null for free text. Honoured by
+     * providers with a structured-output mode; others ignore it.
+     */
+    public ResponseSchema getResponseSchema() {
+        return responseSchema;
+    }
+
+    /**
+     * The task this answer is for; supplies the defaults for
+     * {@link #getMaxTokens} and {@link #getStopSequences}.
+     */
+    public OutputProfile getOutputProfile() {
+        return outputProfile;
+    }
+
+    /**
+     * Strings that end generation when produced; the provider leaves the
+     * matched sequence out of the answer.
+     */
+    public List<String> getStopSequences() {
+        return stopSequences;
+    }
+
+    /**
+     * Where the call queues in {@link LLMScheduler}.
+     */
+    public RequestPriority getPriority() {
+        return priority;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
 
+    public Builder toBuilder() {
+        return new Builder()
+                .outputProfile(outputProfile)
+                .stopSequences(stopSequences)
+                .prompt(prompt)
+                .model(model)
+                .temperature(temperature)
+                .maxTokens(maxTokens)
+                .inputTokenBudget(inputTokenBudget)
+                .callSite(callSite)
+                .responseSchema(responseSchema)
+                .priority(priority);
+    }
+
     public static class Builder {
 
         private String prompt;
         private String model;
         private double temperature = 0.7;
         private int maxTokens = 2048;
+        private int inputTokenBudget = 0;
+        private String callSite = "default";
+        private ResponseSchema responseSchema;
+        private OutputProfile outputProfile = OutputProfile.DEFAULT;
+        private List<String> stopSequences = List.of();
+        private RequestPriority priority = RequestPriority.PIPELINE;
 
         public Builder prompt(String prompt) {
             this.prompt = prompt;
@@ -61,6 +142,42 @@ public class LLMRequest {
             return this;
         }
 
+        public Builder inputTokenBudget(int inputTokenBudget) {
+            this.inputTokenBudget = inputTokenBudget;
+            return this;
+        }
+
+        public Builder callSite(String callSite) {
+            this.callSite = callSite;
+            return this;
+        }
+
+        public Builder responseSchema(ResponseSchema responseSchema) {
+            this.responseSchema = responseSchema;
+            return this;
+        }
+
+        /**
+         * Also sets the profile's token cap and stop sequences; call
+         * {@link #maxTokens} or {@link #stopSequences} afterwards to override.
+         */
+        public Builder outputProfile(OutputProfile outputProfile) {
+            this.outputProfile = outputProfile;
+            this.maxTokens = outputProfile.getMaxTokens();
+            this.stopSequences = outputProfile.getStopSequences();
+            return this;
+        }
+
+        public Builder stopSequences(List<String> stopSequences) {
+            this.stopSequences = List.copyOf(stopSequences);
+            return this;
+        }
+
+        public Builder priority(RequestPriority priority) {
+            this.priority = priority;
+            return this;
+        }
+
         public LLMRequest build() {
             return new LLMRequest(this);
         }
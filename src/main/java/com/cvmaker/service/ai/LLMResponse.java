@@ -6,12 +6,16 @@ public class LLMResponse {
     private final UsageStats usage;
     private final String model;
     private final double promptLatency;
+    private final long timeToFirstTokenMs;
+    private final boolean stoppedEarly;
 
     public LLMResponse(Builder builder) {
         this.content = builder.content;
         this.usage = builder.usage;
         this.model = builder.model;
         this.promptLatency = builder.promptLatency;
+        this.timeToFirstTokenMs = builder.timeToFirstTokenMs;
+        this.stoppedEarly = builder.stoppedEarly;
     }
 
     public String getContent() {
@@ -26,20 +30,48 @@ public class LLMResponse {
         return model;
     }
 
+    /**
+     * Wall-clock time of the call in milliseconds, retries included. Below
+     * {@link InstrumentedLLMClient} it covers only the attempt that answered.
+     */
     public double getPromptLatency() {
         return promptLatency;
     }
 
+    public long getTimeToFirstTokenMs() {
+        return timeToFirstTokenMs;
+    }
+
+    /**
+     * The caller cut the stream short with {@link StopGeneration}; content is
+     * partial and usage, if the provider sent none, is estimated.
+     */
+    public boolean isStoppedEarly() {
+        return stoppedEarly;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
 
+    public Builder toBuilder() {
+        return new Builder()
+                .content(content)
+                .usage(usage)
+                .model(model)
+                .promptLatency(promptLatency)
+                .timeToFirstTokenMs(timeToFirstTokenMs)
+                .stoppedEarly(stoppedEarly);
+    }
+
     public static class Builder {
 
         private String content;
         private UsageStats usage;
         private String model;
         private double promptLatency;
+        private long timeToFirstTokenMs = -1;
+        private boolean stoppedEarly;
 
         public Builder content(String content) {
             this.content = content;
@@ -61,6 +93,16 @@ public class LLMResponse {
             return this;
         }
 
+        public Builder timeToFirstTokenMs(long timeToFirstTokenMs) {
+            this.timeToFirstTokenMs = timeToFirstTokenMs;
+            return this;
+        }
+
+        public Builder stoppedEarly(boolean stoppedEarly) {
+            this.stoppedEarly = stoppedEarly;
+            return this;
+        }
+
         public LLMResponse build() {
             return new LLMResponse(this);
         }
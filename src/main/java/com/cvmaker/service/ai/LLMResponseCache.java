@@ -0,0 +1,263 @@
+package com.cvmaker.service.ai;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Content-addressed store for LLM responses. A bounded in-memory LRU sits in
+ * front of an append-only JSONL file; the file is compacted oldest-first once
+ * it grows past its size limit.
+ */
+public class LLMResponseCache {
+
+    private static final String CACHE_FILE = "llm-responses.jsonl";
+    private static final Path DEFAULT_DIRECTORY = Paths.get("cache");
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+    private static final long DEFAULT_MAX_DISK_BYTES = 64L * 1024 * 1024;
+
+    private static LLMResponseCache defaultCache;
+
+    private final Path cacheFile;
+    private final long maxDiskBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, LLMResponse> memory;
+    private final Map<String, long[]> diskIndex = new LinkedHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong savedPromptTokens = new AtomicLong();
+    private final AtomicLong savedCompletionTokens = new AtomicLong();
+
+    public LLMResponseCache(Path directory, int maxEntries, long maxDiskBytes) {
+        this.cacheFile = directory.resolve(CACHE_FILE);
+        this.maxDiskBytes = maxDiskBytes;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LLMResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        try {
+            Files.createDirectories(directory);
+            loadIndex();
+        } catch (IOException e) {
+            System.err.println("LLM cache unavailable on disk, using memory only: " + e.getMessage());
+        }
+    }
+
+    public static synchronized LLMResponseCache getDefault() {
+        if (defaultCache == null) {
+            defaultCache = new LLMResponseCache(DEFAULT_DIRECTORY, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_DISK_BYTES);
+        }
+        return defaultCache;
+    }
+
+    /**
+     * Set up the shared cache. Has no effect once the default cache is in use.
+     */
+    public static synchronized void configureDefault(Path directory, int maxEntries, long maxDiskBytes) {
+        if (defaultCache == null) {
+            defaultCache = new LLMResponseCache(directory, maxEntries, maxDiskBytes);
+        }
+    }
+
+    public static String keyFor(LLMRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String material = request.getModel() + '\0'
+                    + request.getTemperature() + '\0'
+                    + request.getMaxTokens() + '\0'
+                    + request.getInputTokenBudget() + '\0'
+                    + request.getPrompt()
+                    + (request.getResponseSchema() == null ? "" : '\0' + request.getResponseSchema().json())
+                    + (request.getStopSequences().isEmpty() ? "" : '\0' + String.join("\u0001", request.getStopSequences()));
+            return HexFormat.of().formatHex(digest.digest(material.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public synchronized LLMResponse get(String key) {
+        LLMResponse response = memory.get(key);
+        if (response == null) {
+            response = readFromDisk(key);
+            if (response != null) {
+                memory.put(key, response);
+            }
+        }
+
+        if (response == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        UsageStats usage = response.getUsage();
+        if (usage != null) {
+            savedPromptTokens.addAndGet(usage.getPromptTokens());
+            savedCompletionTokens.addAndGet(usage.getCompletionTokens());
+        }
+        return response;
+    }
+
+    public synchronized void put(String key, LLMResponse response) {
+        if (response.getContent() == null || response.getContent().isEmpty()) {
+            return;
+        }
+        memory.put(key, response);
+        if (!diskIndex.containsKey(key)) {
+            appendToDisk(key, response);
+        }
+    }
+
+    /**
+     * Hit/miss counters plus the tokens that cache hits avoided paying for.
+     */
+    public UsageStats getUsageStats() {
+        int prompt = (int) savedPromptTokens.get();
+        int completion = (int) savedCompletionTokens.get();
+        return new UsageStats(prompt, completion, prompt + completion, hits.get(), misses.get());
+    }
+
+    private void loadIndex() throws IOException {
+        if (!Files.exists(cacheFile)) {
+            return;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(cacheFile))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long offset = 0;
+            long position = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                indexLine(line.toString(StandardCharsets.UTF_8), offset, position - offset - 1);
+                line.reset();
+                offset = position;
+            }
+        }
+    }
+
+    private void indexLine(String line, long offset, long length) {
+        try {
+            JsonNode entry = objectMapper.readTree(line);
+            diskIndex.put(entry.path("key").asText(), new long[]{offset, length});
+        } catch (IOException e) {
+            // Skip a torn write
+        }
+    }
+
+    private LLMResponse readFromDisk(String key) {
+        long[] location = diskIndex.get(key);
+        if (location == null) {
+            return null;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile.toFile(), "r")) {
+            byte[] bytes = new byte[(int) location[1]];
+            file.seek(location[0]);
+            file.readFully(bytes);
+            return fromJson(objectMapper.readTree(bytes));
+        } catch (IOException e) {
+            diskIndex.remove(key);
+            return null;
+        }
+    }
+
+    private void appendToDisk(String key, LLMResponse response) {
+        try {
+            long offset = Files.exists(cacheFile) ? Files.size(cacheFile) : 0;
+            byte[] line = toJson(key, response).getBytes(StandardCharsets.UTF_8);
+            try (var out = Files.newOutputStream(cacheFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(line);
+                out.write('\n');
+            }
+            diskIndex.put(key, new long[]{offset, line.length});
+
+            if (offset + line.length + 1 > maxDiskBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to persist LLM cache entry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrite the file keeping the newest entries that fit in half the limit.
+     */
+    private void compact() throws IOException {
+        List<String> lines = Files.readAllLines(cacheFile, StandardCharsets.UTF_8);
+        List<String> kept = new ArrayList<>();
+        long size = 0;
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            long lineBytes = lines.get(i).getBytes(StandardCharsets.UTF_8).length + 1;
+            if (size + lineBytes > maxDiskBytes / 2) {
+                break;
+            }
+            kept.add(0, lines.get(i));
+            size += lineBytes;
+        }
+
+        Path tmp = cacheFile.resolveSibling(CACHE_FILE + ".tmp");
+        Files.write(tmp, kept, StandardCharsets.UTF_8);
+        Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        diskIndex.clear();
+        loadIndex();
+        System.out.printf("🧹 LLM cache compacted: kept %d of %d entries\n", kept.size(), lines.size());
+    }
+
+    private String toJson(String key, LLMResponse response) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("key", key)
+                .put("model", response.getModel())
+                .put("content", response.getContent())
+                .put("createdAt", System.currentTimeMillis());
+        UsageStats usage = response.getUsage();
+        if (usage != null) {
+            node.put("promptTokens", usage.getPromptTokens())
+                    .put("completionTokens", usage.getCompletionTokens())
+                    .put("totalTokens", usage.getTotalTokens());
+        }
+        return node.toString();
+    }
+
+    private LLMResponse fromJson(JsonNode node) {
+        UsageStats usage = null;
+        if (node.has("totalTokens")) {
+            usage = new UsageStats(
+                    node.path("promptTokens").asInt(),
+                    node.path("completionTokens").asInt(),
+                    node.path("totalTokens").asInt());
+        }
+        return LLMResponse.builder()
+                .content(node.path("content").asText())
+                .model(node.path("model").asText())
+                .usage(usage)
+                .build();
+    }
+}
@@ -0,0 +1,262 @@
+package com.cvmaker.service.ai;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Admits calls to one provider by {@link RequestPriority}. At most
+ * {@code maxConcurrent} calls run at once, and each class has its own cap
+ * within that. Pipeline and backfill calls together are held below
+ * {@code maxConcurrent} whatever their caps add up to, so background work
+ * can never take every slot. When a slot
+ * frees up it goes to the most urgent waiter; a waiter gains one class of
+ * urgency for every {@code agingMs} it has waited, so backfill still moves
+ * while interactive calls keep arriving.
+ *
+ * <p>Uses a {@link ReentrantLock} rather than monitors so waiting virtual
+ * threads do not pin their carriers.
+ */
+public class LLMScheduler implements LLMSchedulerMXBean {
+
+    private static final RequestPriority[] CLASSES = RequestPriority.values();
+
+    private final LLMProvider provider;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final List<Ticket> waiting = new ArrayList<>();
+    private final int[] inFlight = new int[CLASSES.length];
+    private final int[] limits = new int[CLASSES.length];
+    private int maxConcurrent;
+    private int backgroundLimit;
+    private long agingMs;
+    private long sequence;
+
+    private final int[] queueDepth = new int[CLASSES.length];
+    private final int[] maxQueueDepth = new int[CLASSES.length];
+    private final long[] granted = new long[CLASSES.length];
+    private final long[] totalWaitMs = new long[CLASSES.length];
+    private final long[] maxWaitMs = new long[CLASSES.length];
+    private long agedGrants;
+
+    private static final class Ticket {
+        final RequestPriority priority;
+        final long enqueuedAt;
+        final long sequence;
+
+        Ticket(RequestPriority priority, long enqueuedAt, long sequence) {
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+            this.sequence = sequence;
+        }
+    }
+
+    public LLMScheduler(LLMProvider provider, int maxConcurrent, Map<RequestPriority, Integer> classLimits, long agingMs) {
+        this.provider = provider;
+        apply(maxConcurrent, classLimits, agingMs);
+    }
+
+    /**
+     * @param classLimits per-class caps; a class left out may use every slot
+     */
+    public void configure(int maxConcurrent, Map<RequestPriority, Integer> classLimits, long agingMs) {
+        lock.lock();
+        try {
+            apply(maxConcurrent, classLimits, agingMs);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(int maxConcurrent, Map<RequestPriority, Integer> classLimits, long agingMs) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.agingMs = Math.max(1, agingMs);
+        for (RequestPriority priority : CLASSES) {
+            limits[priority.ordinal()] = Math.max(1, classLimits.getOrDefault(priority, this.maxConcurrent));
+        }
+        // With a single slot there is nothing to hold back
+        int reserved = this.maxConcurrent > 1 ? Math.max(1, this.maxConcurrent / 8) : 0;
+        this.backgroundLimit = this.maxConcurrent - reserved;
+    }
+
+    public LLMProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * Wait for a slot. Every successful acquire must be matched by a
+     * {@link #release} with the same priority.
+     */
+    public void acquire(RequestPriority priority) throws InterruptedException {
+        lock.lock();
+        try {
+            Ticket ticket = new Ticket(priority, System.currentTimeMillis(), sequence++);
+            waiting.add(ticket);
+            int index = priority.ordinal();
+            maxQueueDepth[index] = Math.max(maxQueueDepth[index], ++queueDepth[index]);
+            try {
+                while (next() != ticket) {
+                    changed.await();
+                }
+            } catch (InterruptedException e) {
+                waiting.remove(ticket);
+                queueDepth[index]--;
+                // Our place may have been the one another waiter was blocked behind
+                changed.signalAll();
+                throw e;
+            }
+            grant(ticket);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(RequestPriority priority) {
+        lock.lock();
+        try {
+            inFlight[priority.ordinal()]--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The waiter that should get the next free slot, or null if none can run.
+     */
+    private Ticket next() {
+        if (totalInFlight() >= maxConcurrent) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Ticket best = null;
+        double bestRank = 0;
+        for (Ticket ticket : waiting) {
+            if (inFlight[ticket.priority.ordinal()] >= limits[ticket.priority.ordinal()]) {
+                continue;
+            }
+            if (ticket.priority != RequestPriority.INTERACTIVE && backgroundInFlight() >= backgroundLimit) {
+                continue;
+            }
+            double rank = rank(ticket, now);
+            if (best == null || rank < bestRank || (rank == bestRank && ticket.sequence < best.sequence)) {
+                best = ticket;
+                bestRank = rank;
+            }
+        }
+        return best;
+    }
+
+    private double rank(Ticket ticket, long now) {
+        return ticket.priority.ordinal() - (double) (now - ticket.enqueuedAt) / agingMs;
+    }
+
+    private void grant(Ticket ticket) {
+        waiting.remove(ticket);
+        int index = ticket.priority.ordinal();
+        queueDepth[index]--;
+        inFlight[index]++;
+        granted[index]++;
+
+        long waitedMs = System.currentTimeMillis() - ticket.enqueuedAt;
+        totalWaitMs[index] += waitedMs;
+        maxWaitMs[index] = Math.max(maxWaitMs[index], waitedMs);
+
+        for (Ticket other : waiting) {
+            if (other.priority.ordinal() < index) {
+                agedGrants++;
+                break;
+            }
+        }
+    }
+
+    private int backgroundInFlight() {
+        return totalInFlight() - inFlight[RequestPriority.INTERACTIVE.ordinal()];
+    }
+
+    private int totalInFlight() {
+        int total = 0;
+        for (int count : inFlight) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Integer> getQueueDepths() {
+        return snapshot(priority -> queueDepth[priority.ordinal()]);
+    }
+
+    @Override
+    public Map<String, Integer> getMaxQueueDepths() {
+        return snapshot(priority -> maxQueueDepth[priority.ordinal()]);
+    }
+
+    @Override
+    public Map<String, Integer> getInFlight() {
+        return snapshot(priority -> inFlight[priority.ordinal()]);
+    }
+
+    @Override
+    public Map<String, Long> getGranted() {
+        return snapshot(priority -> granted[priority.ordinal()]);
+    }
+
+    @Override
+    public Map<String, Double> getMeanWaitMs() {
+        return snapshot(priority -> granted[priority.ordinal()] == 0 ? 0.0
+                : (double) totalWaitMs[priority.ordinal()] / granted[priority.ordinal()]);
+    }
+
+    @Override
+    public Map<String, Long> getMaxWaitMs() {
+        return snapshot(priority -> maxWaitMs[priority.ordinal()]);
+    }
+
+    /**
+     * Slots given to a waiter while a higher class was still queued, because
+     * it had waited long enough to outrank it.
+     */
+    @Override
+    public long getAgedGrants() {
+        lock.lock();
+        try {
+            return agedGrants;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> Map<String, T> snapshot(Function<RequestPriority, T> value) {
+        lock.lock();
+        try {
+            Map<String, T> values = new LinkedHashMap<>();
+            for (RequestPriority priority : CLASSES) {
+                values.put(priority.name(), value.apply(priority));
+            }
+            return values;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Default per-class caps within {@code maxConcurrent}: interactive calls
+     * may use every slot, pipeline work most of them, backfill a quarter.
+     * However these add up, an eighth of the slots stays free for interactive calls.
+     */
+    public static Map<RequestPriority, Integer> defaultLimits(int maxConcurrent) {
+        Map<RequestPriority, Integer> limits = new EnumMap<>(RequestPriority.class);
+        limits.put(RequestPriority.INTERACTIVE, maxConcurrent);
+        limits.put(RequestPriority.PIPELINE, Math.max(1, maxConcurrent * 3 / 4));
+        limits.put(RequestPriority.BACKFILL, Math.max(1, maxConcurrent / 4));
+        return limits;
+    }
+}
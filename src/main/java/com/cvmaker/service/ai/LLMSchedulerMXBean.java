@@ -0,0 +1,23 @@
+package com.cvmaker.service.ai;
+
+import java.util.Map;
+
+/**
+ * JMX view of an {@link LLMScheduler}; maps are keyed by priority class.
+ */
+public interface LLMSchedulerMXBean {
+
+    Map<String, Integer> getQueueDepths();
+
+    Map<String, Integer> getMaxQueueDepths();
+
+    Map<String, Integer> getInFlight();
+
+    Map<String, Long> getGranted();
+
+    Map<String, Double> getMeanWaitMs();
+
+    Map<String, Long> getMaxWaitMs();
+
+    long getAgedGrants();
+}
@@ -0,0 +1,255 @@
+package com.cvmaker.service.ai;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Process-wide LLM call metrics, broken down by model and call-site tag.
+ * Everything is visible live over JMX under {@code com.cvmaker:type=LLMTelemetry}
+ * and can be written out as a JSON summary at the end of a run.
+ */
+public class LLMTelemetry implements LLMTelemetryMXBean {
+
+    private static final String JMX_DOMAIN = "com.cvmaker";
+    private static final LLMTelemetry INSTANCE = new LLMTelemetry();
+
+    private final Map<String, CallSiteMetrics> metrics = new ConcurrentHashMap<>();
+    private final Map<String, CascadePolicy> cascades = new ConcurrentHashMap<>();
+    private final Map<String, HedgeStats> hedges = new ConcurrentHashMap<>();
+    private final Map<LLMProvider, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<LLMProvider, LLMScheduler> schedulers = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    private LLMTelemetry() {
+        register(this, JMX_DOMAIN + ":type=LLMTelemetry");
+    }
+
+    public static LLMTelemetry getInstance() {
+        return INSTANCE;
+    }
+
+    public CallSiteMetrics metricsFor(String model, String callSite) {
+        return metrics.computeIfAbsent(model + "|" + callSite, key -> {
+            CallSiteMetrics created = new CallSiteMetrics(model, callSite);
+            register(created, JMX_DOMAIN + ":type=LLMTelemetry,name=CallSite"
+                    + ",model=" + ObjectName.quote(model)
+                    + ",callSite=" + ObjectName.quote(callSite));
+            return created;
+        });
+    }
+
+    /**
+     * Include a cascade's escalation counts in the summary. A later policy
+     * with the same name replaces the earlier one.
+     */
+    public void registerCascade(CascadePolicy policy) {
+        cascades.put(policy.getName(), policy);
+    }
+
+    public void registerCircuitBreaker(CircuitBreaker breaker) {
+        circuitBreakers.put(breaker.getProvider(), breaker);
+    }
+
+    public void registerScheduler(LLMScheduler scheduler) {
+        schedulers.put(scheduler.getProvider(), scheduler);
+        register(scheduler, JMX_DOMAIN + ":type=LLMTelemetry,name=Scheduler,provider=" + scheduler.getProvider());
+    }
+
+    public HedgeStats hedgeStatsFor(String primaryModel, String secondaryModel) {
+        return hedges.computeIfAbsent(primaryModel + "->" + secondaryModel,
+                key -> new HedgeStats(primaryModel, secondaryModel));
+    }
+
+    public List<CallSiteMetrics> getAll() {
+        return metrics.values().stream()
+                .sorted(Comparator.comparing(CallSiteMetrics::getModel).thenComparing(CallSiteMetrics::getCallSite))
+                .toList();
+    }
+
+    @Override
+    public long getTotalCalls() {
+        return metrics.values().stream().mapToLong(CallSiteMetrics::getCalls).sum();
+    }
+
+    @Override
+    public long getTotalErrors() {
+        return metrics.values().stream().mapToLong(CallSiteMetrics::getErrors).sum();
+    }
+
+    @Override
+    public String getSummaryJson() {
+        return toJson().toPrettyString();
+    }
+
+    public ObjectNode toJson() {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("generatedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .put("totalCalls", getTotalCalls())
+                .put("totalErrors", getTotalErrors());
+
+        ArrayNode sites = root.putArray("callSites");
+        for (CallSiteMetrics site : getAll()) {
+            sites.addObject()
+                    .put("model", site.getModel())
+                    .put("callSite", site.getCallSite())
+                    .put("calls", site.getCalls())
+                    .put("errors", site.getErrors())
+                    .put("errorRate", site.getErrorRate())
+                    .put("cancelled", site.getCancelled())
+                    .put("latencyP50Ms", site.getLatencyP50())
+                    .put("latencyP95Ms", site.getLatencyP95())
+                    .put("latencyP99Ms", site.getLatencyP99())
+                    .put("timeToFirstTokenP50Ms", site.getTimeToFirstTokenP50())
+                    .put("timeToFirstTokenP95Ms", site.getTimeToFirstTokenP95())
+                    .put("outputTokensPerSecond", site.getOutputTokensPerSecond())
+                    .put("promptTokens", site.getPromptTokens())
+                    .put("cachedPromptTokens", site.getCachedPromptTokens())
+                    .put("completionTokens", site.getCompletionTokens())
+                    .put("earlyStops", site.getEarlyStops())
+                    .put("completionTokensSaved", site.getCompletionTokensSaved());
+        }
+
+        ArrayNode cascadeNodes = root.putArray("cascades");
+        for (CascadePolicy policy : cascades.values()) {
+            ObjectNode node = cascadeNodes.addObject()
+                    .put("name", policy.getName())
+                    .put("cheapModel", policy.getCheapModel().getModelName())
+                    .put("strongModel", policy.getStrongModel().getModelName())
+                    .put("confidenceThreshold", policy.getConfidenceThreshold())
+                    .put("decisions", policy.getDecisions())
+                    .put("escalations", policy.getEscalations())
+                    .put("escalationRate", policy.getEscalationRate());
+            ObjectNode byReason = node.putObject("escalationsByReason");
+            policy.getEscalationsByReason().forEach(byReason::put);
+        }
+
+        ArrayNode hedgeNodes = root.putArray("hedges");
+        for (HedgeStats hedge : hedges.values()) {
+            hedgeNodes.addObject()
+                    .put("primaryModel", hedge.getPrimaryModel())
+                    .put("secondaryModel", hedge.getSecondaryModel())
+                    .put("calls", hedge.getCalls())
+                    .put("hedged", hedge.getHedged())
+                    .put("failovers", hedge.getFailovers())
+                    .put("primaryWins", hedge.getPrimaryWins())
+                    .put("secondaryWins", hedge.getSecondaryWins())
+                    .put("failures", hedge.getFailures())
+                    .put("hedgeRate", hedge.getHedgeRate());
+        }
+
+        ArrayNode breakers = root.putArray("circuitBreakers");
+        for (CircuitBreaker breaker : circuitBreakers.values()) {
+            breakers.addObject()
+                    .put("provider", breaker.getProvider().name())
+                    .put("state", breaker.getState().name())
+                    .put("opens", breaker.getOpens())
+                    .put("rejected", breaker.getRejected());
+        }
+
+        ArrayNode schedulerNodes = root.putArray("schedulers");
+        for (LLMScheduler scheduler : schedulers.values()) {
+            ObjectNode node = schedulerNodes.addObject()
+                    .put("provider", scheduler.getProvider().name())
+                    .put("agedGrants", scheduler.getAgedGrants());
+            node.set("queueDepth", objectMapper.valueToTree(scheduler.getQueueDepths()));
+            node.set("maxQueueDepth", objectMapper.valueToTree(scheduler.getMaxQueueDepths()));
+            node.set("inFlight", objectMapper.valueToTree(scheduler.getInFlight()));
+            node.set("granted", objectMapper.valueToTree(scheduler.getGranted()));
+            node.set("meanWaitMs", objectMapper.valueToTree(scheduler.getMeanWaitMs()));
+            node.set("maxWaitMs", objectMapper.valueToTree(scheduler.getMaxWaitMs()));
+        }
+        return root;
+    }
+
+    /**
+     * Print a one-line-per-call-site digest and write the full JSON summary
+     * into {@code directory}. Does nothing if no calls were made.
+     */
+    public Path dumpSummary(Path directory) {
+        if (metrics.isEmpty()) {
+            return null;
+        }
+
+        System.out.println("\n📈 LLM telemetry:");
+        for (CallSiteMetrics site : getAll()) {
+            System.out.printf("   %-20s %-14s calls=%d errors=%.0f%% p50=%.0fms p95=%.0fms ttft50=%.0fms %.1f tok/s\n",
+                    site.getModel(), site.getCallSite(), site.getCalls(), site.getErrorRate() * 100,
+                    site.getLatencyP50(), site.getLatencyP95(), site.getTimeToFirstTokenP50(),
+                    site.getOutputTokensPerSecond());
+        }
+        for (CallSiteMetrics site : getAll()) {
+            if (site.getEarlyStops() > 0) {
+                System.out.printf("   %-20s %-14s %d stopped early, ~%d completion tokens saved\n",
+                        site.getModel(), site.getCallSite(), site.getEarlyStops(), site.getCompletionTokensSaved());
+            }
+        }
+        for (CascadePolicy policy : cascades.values()) {
+            System.out.printf("   cascade %-12s %d decisions, %.0f%% escalated to %s %s\n",
+                    policy.getName(), policy.getDecisions(), policy.getEscalationRate() * 100,
+                    policy.getStrongModel().getModelName(), policy.getEscalationsByReason());
+        }
+        for (HedgeStats hedge : hedges.values()) {
+            System.out.printf("   hedge %s -> %s: %d calls, %.0f%% hedged, secondary won %d\n",
+                    hedge.getPrimaryModel(), hedge.getSecondaryModel(), hedge.getCalls(),
+                    hedge.getHedgeRate() * 100, hedge.getSecondaryWins());
+        }
+        for (CircuitBreaker breaker : circuitBreakers.values()) {
+            if (breaker.getOpens() > 0) {
+                System.out.printf("   circuit %s opened %d times, %d calls refused, now %s\n",
+                        breaker.getProvider(), breaker.getOpens(), breaker.getRejected(), breaker.getState());
+            }
+        }
+        for (LLMScheduler scheduler : schedulers.values()) {
+            System.out.printf("   scheduler %s granted %s, mean wait %s ms, max queue %s, %d aged\n",
+                    scheduler.getProvider(), scheduler.getGranted(), formatWaits(scheduler.getMeanWaitMs()),
+                    scheduler.getMaxQueueDepths(), scheduler.getAgedGrants());
+        }
+
+        try {
+            Files.createDirectories(directory);
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            Path file = directory.resolve("llm-telemetry-" + timestamp + ".json");
+            Files.writeString(file, getSummaryJson());
+            System.out.println("   Summary written to " + file.toAbsolutePath());
+            return file;
+        } catch (IOException e) {
+            System.err.println("Could not write telemetry summary: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<String, Long> formatWaits(Map<String, Double> waits) {
+        Map<String, Long> rounded = new LinkedHashMap<>();
+        waits.forEach((priority, ms) -> rounded.put(priority, Math.round(ms)));
+        return rounded;
+    }
+
+    private void register(Object bean, String name) {
+        try {
+            ObjectName objectName = new ObjectName(name);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(bean, objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register " + name + " with JMX: " + e.getMessage());
+        }
+    }
+}
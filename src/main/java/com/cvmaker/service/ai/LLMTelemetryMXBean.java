@@ -0,0 +1,14 @@
+package com.cvmaker.service.ai;
+
+/**
+ * JMX entry point for {@link LLMTelemetry}; per call-site detail is
+ * registered alongside as {@link CallSiteMetricsMXBean}s.
+ */
+public interface LLMTelemetryMXBean {
+
+    String getSummaryJson();
+
+    long getTotalCalls();
+
+    long getTotalErrors();
+}
@@ -0,0 +1,244 @@
+package com.cvmaker.service.ai;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal OpenAI-compatible batch API (files upload, batch create/poll,
+ * output download) for testing {@link BatchJobClient} offline. Each batch
+ * line is answered by the backing {@link LLMClient}, so a local model can
+ * stand in for the cloud.
+ */
+public class LocalBatchServer {
+
+    private final HttpServer server;
+    private final LLMClient backingClient;
+    private final String modelOverride;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, String> files = new ConcurrentHashMap<>();
+    private final Map<String, ObjectNode> batches = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+
+    /**
+     * @param modelOverride model name sent to the backing client in place of
+     *                      the one in each batch line, or null to keep it
+     */
+    public LocalBatchServer(int port, LLMClient backingClient, String modelOverride) throws IOException {
+        this.backingClient = backingClient;
+        this.modelOverride = modelOverride;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.server.createContext("/v1/files", this::handleFiles);
+        this.server.createContext("/v1/batches", this::handleBatches);
+        this.server.setExecutor(workers);
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("Local batch server listening on " + getEndpoint());
+    }
+
+    public void stop() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    public String getEndpoint() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1";
+    }
+
+    private void handleFiles(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        try {
+            if (exchange.getRequestMethod().equals("POST") && path.equals("/v1/files")) {
+                String content = extractFilePart(exchange);
+                String fileId = "file-" + ids.incrementAndGet();
+                files.put(fileId, content);
+
+                ObjectNode file = objectMapper.createObjectNode();
+                file.put("id", fileId).put("object", "file").put("purpose", "batch").put("bytes", content.length());
+                respond(exchange, 200, file.toString());
+            } else if (exchange.getRequestMethod().equals("GET") && path.endsWith("/content")) {
+                String fileId = path.substring("/v1/files/".length(), path.length() - "/content".length());
+                String content = files.get(fileId);
+                if (content == null) {
+                    respond(exchange, 404, "{\"error\":\"file not found\"}");
+                } else {
+                    respond(exchange, 200, content);
+                }
+            } else {
+                respond(exchange, 404, "{\"error\":\"not found\"}");
+            }
+        } catch (Exception e) {
+            respond(exchange, 500, error(e));
+        }
+    }
+
+    private void handleBatches(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        try {
+            if (exchange.getRequestMethod().equals("POST") && path.equals("/v1/batches")) {
+                JsonNode create = objectMapper.readTree(exchange.getRequestBody());
+                String inputFileId = create.path("input_file_id").asText();
+                if (!files.containsKey(inputFileId)) {
+                    respond(exchange, 400, "{\"error\":\"unknown input_file_id\"}");
+                    return;
+                }
+
+                String batchId = "batch-" + ids.incrementAndGet();
+                ObjectNode batch = objectMapper.createObjectNode();
+                batch.put("id", batchId)
+                        .put("object", "batch")
+                        .put("endpoint", create.path("endpoint").asText())
+                        .put("input_file_id", inputFileId)
+                        .put("status", "in_progress");
+                batch.putObject("request_counts").put("total", 0).put("completed", 0).put("failed", 0);
+                batches.put(batchId, batch);
+
+                workers.submit(() -> runBatch(batch, files.get(inputFileId)));
+                respond(exchange, 200, snapshot(batch));
+            } else if (exchange.getRequestMethod().equals("GET") && path.startsWith("/v1/batches/")) {
+                ObjectNode batch = batches.get(path.substring("/v1/batches/".length()));
+                if (batch == null) {
+                    respond(exchange, 404, "{\"error\":\"batch not found\"}");
+                } else {
+                    respond(exchange, 200, snapshot(batch));
+                }
+            } else {
+                respond(exchange, 404, "{\"error\":\"not found\"}");
+            }
+        } catch (Exception e) {
+            respond(exchange, 500, error(e));
+        }
+    }
+
+    private String error(Exception e) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("error", String.valueOf(e.getMessage()));
+        return body.toString();
+    }
+
+    private void runBatch(ObjectNode batch, String input) {
+        String[] lines = input.split("\n");
+        StringBuilder output = new StringBuilder();
+        int completed = 0;
+        int failed = 0;
+
+        synchronized (batch) {
+            ((ObjectNode) batch.get("request_counts")).put("total", lines.length);
+        }
+
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            ObjectNode result = objectMapper.createObjectNode();
+            try {
+                JsonNode entry = objectMapper.readTree(line);
+                JsonNode body = entry.path("body");
+                result.put("id", "req-" + ids.incrementAndGet()).put("custom_id", entry.path("custom_id").asText());
+
+                LLMRequest request = LLMRequest.builder()
+                        .model(modelOverride != null ? modelOverride : body.path("model").asText())
+                        .prompt(body.path("messages").path(0).path("content").asText())
+                        .temperature(body.path("temperature").asDouble(0.7))
+                        .maxTokens(body.path("max_completion_tokens").asInt(2048))
+                        .build();
+                LLMResponse response = backingClient.complete(request);
+
+                ObjectNode responseBody = result.putObject("response").put("status_code", 200).putObject("body");
+                responseBody.put("model", request.getModel());
+                responseBody.putArray("choices").addObject().putObject("message")
+                        .put("role", "assistant")
+                        .put("content", response.getContent());
+                UsageStats usage = response.getUsage();
+                if (usage != null) {
+                    responseBody.putObject("usage")
+                            .put("prompt_tokens", usage.getPromptTokens())
+                            .put("completion_tokens", usage.getCompletionTokens())
+                            .put("total_tokens", usage.getTotalTokens());
+                }
+                completed++;
+            } catch (Exception e) {
+                result.putObject("response").put("status_code", 500);
+                result.putObject("error").put("message", String.valueOf(e.getMessage()));
+                failed++;
+            }
+            output.append(result).append('\n');
+
+            synchronized (batch) {
+                ((ObjectNode) batch.get("request_counts")).put("completed", completed).put("failed", failed);
+            }
+        }
+
+        String outputFileId = "file-" + ids.incrementAndGet();
+        files.put(outputFileId, output.toString());
+        synchronized (batch) {
+            batch.put("output_file_id", outputFileId).put("status", "completed");
+        }
+    }
+
+    private String snapshot(ObjectNode batch) {
+        synchronized (batch) {
+            return batch.toString();
+        }
+    }
+
+    /**
+     * Pull the "file" part out of a multipart/form-data upload.
+     */
+    private String extractFilePart(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        String boundary = "--" + contentType.substring(contentType.indexOf("boundary=") + "boundary=".length()).replace("\"", "");
+        // Latin-1 maps bytes one-to-one, so the part can be re-decoded as UTF-8 afterwards
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1);
+
+        for (String part : body.split(java.util.regex.Pattern.quote(boundary))) {
+            int headerEnd = part.indexOf("\r\n\r\n");
+            if (headerEnd < 0 || !part.substring(0, headerEnd).contains("name=\"file\"")) {
+                continue;
+            }
+            String content = part.substring(headerEnd + 4);
+            if (content.endsWith("\r\n")) {
+                content = content.substring(0, content.length() - 2);
+            }
+            return new String(content.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+        }
+        throw new IOException("No file part in upload");
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Usage: LocalBatchServer [port] [LLMModel]. Batch lines are answered by
+     * the given model, a local one by default.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        LLMModel model = args.length > 1 ? LLMModel.valueOf(args[1]) : LLMModel.MISTRAL_SMALL_3_2;
+
+        LocalBatchServer server = new LocalBatchServer(port, LLMClientRegistry.getInstance().getClient(model), model.getModelName());
+        server.start();
+        System.out.println("Answering batch requests with " + model.getModelName());
+    }
+}
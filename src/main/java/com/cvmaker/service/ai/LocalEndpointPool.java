@@ -0,0 +1,199 @@
+package com.cvmaker.service.ai;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Spreads local model calls over several OpenAI-compatible servers (LM
+ * Studio, llama.cpp) running side by side. Each call goes to the node with
+ * the fewest requests in flight. Nodes that fail repeatedly, or run far
+ * slower than their peers, are ejected and only readmitted once a
+ * {@code /models} health probe succeeds.
+ */
+public class LocalEndpointPool implements LLMClient {
+
+    private static final long PROBE_INTERVAL_MS = 15_000;
+    private static final long PROBE_TIMEOUT_MS = 3_000;
+    private static final long EJECTION_MS = 30_000;
+    private static final int FAILURES_BEFORE_EJECTION = 3;
+    // A node this many times slower per output token than the median of its peers is ejected
+    private static final double SLOW_FACTOR = 3.0;
+    private static final int MIN_CALLS_BEFORE_JUDGING = 5;
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final ScheduledExecutorService prober;
+
+    public LocalEndpointPool(List<String> baseUrls, OkHttpClient sharedHttpClient) {
+        if (baseUrls.isEmpty()) {
+            throw new IllegalArgumentException("Local endpoint pool needs at least one base URL");
+        }
+        for (String url : baseUrls) {
+            nodes.add(new Node(url, new LocalLLMClient(url, sharedHttpClient)));
+        }
+
+        this.prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "local-endpoint-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(this::probeAll, 0, PROBE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        System.out.println("Local endpoint pool: " + baseUrls);
+    }
+
+    @Override
+    public LLMResponse complete(LLMRequest request) {
+        return route(node -> node.client.complete(request));
+    }
+
+    @Override
+    public LLMResponse stream(LLMRequest request, Consumer<String> onToken) {
+        return route(node -> node.client.stream(request, onToken));
+    }
+
+    @Override
+    public void shutdown() {
+        prober.shutdownNow();
+    }
+
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (Node node : nodes) {
+            lines.add(String.format("%s outstanding=%d msPerToken=%.1f %s",
+                    node.baseUrl, node.outstanding.get(), node.msPerToken, node.isAvailable() ? "up" : "ejected"));
+        }
+        return lines;
+    }
+
+    private LLMResponse route(Function<Node, LLMResponse> call) {
+        Node node = pick();
+        long start = System.currentTimeMillis();
+        try {
+            LLMResponse response = call.apply(node);
+            node.recordSuccess(System.currentTimeMillis() - start, response.getUsage());
+            judge(node);
+            return response;
+        } catch (LLMException e) {
+            if (e.isRetryable() && !Thread.currentThread().isInterrupted()) {
+                node.recordFailure();
+            }
+            throw e;
+        } finally {
+            node.outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * Least outstanding requests among available nodes. On a tie, nodes still
+     * warming up go first so every node gets measured, then the faster one.
+     * If every node is ejected, the one ejected longest ago is used rather than failing.
+     * The node is returned with the call already counted against it, so
+     * concurrent picks see each other.
+     */
+    private Node pick() {
+        synchronized (nodes) {
+            Node node = nodes.stream()
+                    .filter(Node::isAvailable)
+                    .min(Comparator.comparingInt((Node n) -> n.outstanding.get())
+                            .thenComparing(n -> n.calls >= MIN_CALLS_BEFORE_JUDGING)
+                            .thenComparingDouble(n -> n.msPerToken))
+                    .orElseGet(() -> nodes.stream().min(Comparator.comparingLong(n -> n.ejectedAt)).orElseThrow());
+            node.outstanding.incrementAndGet();
+            return node;
+        }
+    }
+
+    private void judge(Node node) {
+        synchronized (nodes) {
+            if (node.calls < MIN_CALLS_BEFORE_JUDGING) {
+                return;
+            }
+            double[] peers = nodes.stream()
+                    .filter(n -> n != node && n.isAvailable() && n.calls >= MIN_CALLS_BEFORE_JUDGING)
+                    .mapToDouble(n -> n.msPerToken)
+                    .sorted()
+                    .toArray();
+            if (peers.length == 0) {
+                return;
+            }
+            double median = peers[peers.length / 2];
+            if (node.msPerToken > median * SLOW_FACTOR) {
+                eject(node, String.format("%.1fms/token vs %.1f for peers", node.msPerToken, median));
+                // Start it from the peer median when it returns so it is not ejected again at once
+                node.msPerToken = median;
+            }
+        }
+    }
+
+    private void eject(Node node, String reason) {
+        if (!node.ejected) {
+            System.out.printf("⛔ Ejecting %s (%s)\n", node.baseUrl, reason);
+        }
+        node.ejected = true;
+        node.ejectedAt = System.currentTimeMillis();
+    }
+
+    private void probeAll() {
+        for (Node node : nodes) {
+            boolean healthy = node.client.isHealthy(PROBE_TIMEOUT_MS);
+            synchronized (nodes) {
+                if (!healthy) {
+                    eject(node, "health probe failed");
+                } else if (node.ejected && System.currentTimeMillis() - node.ejectedAt >= EJECTION_MS) {
+                    node.ejected = false;
+                    node.consecutiveFailures = 0;
+                    System.out.printf("✅ Readmitting %s\n", node.baseUrl);
+                }
+            }
+        }
+    }
+
+    private final class Node {
+
+        final String baseUrl;
+        final LocalLLMClient client;
+        final AtomicInteger outstanding = new AtomicInteger();
+        volatile boolean ejected;
+        volatile long ejectedAt;
+        volatile double msPerToken;
+        int calls;
+        int consecutiveFailures;
+
+        Node(String baseUrl, LocalLLMClient client) {
+            this.baseUrl = baseUrl;
+            this.client = client;
+        }
+
+        boolean isAvailable() {
+            return !ejected;
+        }
+
+        void recordSuccess(long latencyMs, UsageStats usage) {
+            synchronized (nodes) {
+                consecutiveFailures = 0;
+                int tokens = usage != null ? Math.max(1, usage.getCompletionTokens()) : 1;
+                double sample = (double) latencyMs / tokens;
+                msPerToken = calls == 0 ? sample : EWMA_WEIGHT * sample + (1 - EWMA_WEIGHT) * msPerToken;
+                calls++;
+            }
+        }
+
+        void recordFailure() {
+            synchronized (nodes) {
+                if (++consecutiveFailures >= FAILURES_BEFORE_EJECTION) {
+                    eject(this, consecutiveFailures + " consecutive failures");
+                }
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.net.Socket;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -17,12 +18,14 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.BufferedSource;
 
 public class LocalLLMClient implements LLMClient {
 
     private final String endpoint;
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final boolean ownsHttpClient;
     private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
     public LocalLLMClient(String endpoint) {
@@ -33,6 +36,15 @@ public class LocalLLMClient implements LLMClient {
                 .writeTimeout(30, TimeUnit.SECONDS)
                 .build();
         this.objectMapper = new ObjectMapper();
+        this.ownsHttpClient = true;
+    }
+
+    // Shares the caller's connection pool and dispatcher instead of building its own
+    public LocalLLMClient(String endpoint, OkHttpClient sharedHttpClient) {
+        this.endpoint = endpoint;
+        this.httpClient = sharedHttpClient;
+        this.objectMapper = new ObjectMapper();
+        this.ownsHttpClient = false;
     }
 
     public void testConnection() {
@@ -93,7 +105,9 @@ public class LocalLLMClient implements LLMClient {
                     .put("prompt", request.getPrompt())
                     .put("temperature", request.getTemperature())
                     .put("max_tokens", request.getMaxTokens())
-                    .put("stream", false);
+                    .put("stream", false)
+                    .put("cache_prompt", true);
+            putStopSequences(requestBody, request);
 
             RequestBody body = RequestBody.create(requestBody.toString(), JSON);
 
@@ -113,8 +127,7 @@ public class LocalLLMClient implements LLMClient {
                 System.out.println("Response body: " + responseBody);
 
                 if (!response.isSuccessful()) {
-                    throw new RuntimeException("API returned status code: " + response.code()
-                            + " with body: " + responseBody);
+                    throw statusException(response, responseBody);
                 }
 
                 ObjectNode responseJson = objectMapper.readValue(responseBody, ObjectNode.class);
@@ -124,15 +137,7 @@ public class LocalLLMClient implements LLMClient {
                         .path("text")
                         .asText("");
 
-                UsageStats usage = null;
-                if (responseJson.has("usage")) {
-                    ObjectNode usageNode = (ObjectNode) responseJson.get("usage");
-                    usage = new UsageStats(
-                            usageNode.path("prompt_tokens").asInt(),
-                            usageNode.path("completion_tokens").asInt(),
-                            usageNode.path("total_tokens").asInt()
-                    );
-                }
+                UsageStats usage = parseUsage(responseJson);
 
                 return LLMResponse.builder()
                         .content(content)
@@ -141,13 +146,157 @@ public class LocalLLMClient implements LLMClient {
                         .build();
             }
 
+        } catch (LLMException e) {
+            throw e;
         } catch (IOException e) {
-            throw new RuntimeException("IO error during API call: " + e.getMessage(), e);
+            throw new LLMException("IO error during API call: " + e.getMessage(), e);
         } catch (Exception e) {
             throw new RuntimeException("API call failed: " + e.getMessage(), e);
         }
     }
 
+    @Override
+    public LLMResponse stream(LLMRequest request, Consumer<String> onToken) {
+        try {
+            ObjectNode requestBody = objectMapper.createObjectNode();
+            requestBody.put("model", request.getModel())
+                    .put("prompt", request.getPrompt())
+                    .put("temperature", request.getTemperature())
+                    .put("max_tokens", request.getMaxTokens())
+                    .put("stream", true)
+                    .put("cache_prompt", true);
+            putStopSequences(requestBody, request);
+            requestBody.putObject("stream_options").put("include_usage", true);
+
+            RequestBody body = RequestBody.create(requestBody.toString(), JSON);
+
+            Request httpRequest = new Request.Builder()
+                    .url(endpoint + "/completions")
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "text/event-stream")
+                    .header("User-Agent", "Java-OkHttp-Client")
+                    .post(body)
+                    .build();
+
+            System.out.println("Streaming request to: " + endpoint + " completions");
+
+            long startTime = System.currentTimeMillis();
+            long firstTokenAt = -1;
+            StringBuilder content = new StringBuilder();
+            UsageStats usage = null;
+            boolean stoppedEarly = false;
+
+            // Closing the response drops the connection, which stops generation server-side
+            try (Response response = httpClient.newCall(httpRequest).execute()) {
+                if (!response.isSuccessful()) {
+                    throw statusException(response, response.body().string());
+                }
+
+                BufferedSource source = response.body().source();
+                String line;
+                while ((line = source.readUtf8Line()) != null) {
+                    if (!line.startsWith("data:")) {
+                        continue;
+                    }
+                    String data = line.substring(5).trim();
+                    if (data.equals("[DONE]")) {
+                        break;
+                    }
+
+                    JsonNode event = objectMapper.readTree(data);
+                    String token = event.path("choices").path(0).path("text").asText("");
+                    if (!token.isEmpty()) {
+                        if (firstTokenAt < 0) {
+                            firstTokenAt = System.currentTimeMillis() - startTime;
+                        }
+                        content.append(token);
+                        onToken.accept(token);
+                    }
+
+                    if (event.path("usage").isObject()) {
+                        usage = parseUsage(event);
+                    }
+                }
+            } catch (StopGeneration e) {
+                stoppedEarly = true;
+            }
+
+            if (usage == null && stoppedEarly) {
+                usage = TokenCounter.estimateUsage(request, content.toString());
+            }
+            return LLMResponse.builder()
+                    .content(content.toString())
+                    .usage(usage)
+                    .model(request.getModel())
+                    .timeToFirstTokenMs(firstTokenAt)
+                    .stoppedEarly(stoppedEarly)
+                    .build();
+
+        } catch (LLMException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new LLMException("IO error during streaming API call: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("Streaming API call failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static void putStopSequences(ObjectNode requestBody, LLMRequest request) {
+        if (!request.getStopSequences().isEmpty()) {
+            ArrayNode stop = requestBody.putArray("stop");
+            request.getStopSequences().forEach(stop::add);
+        }
+    }
+
+    /**
+     * Reused prompt tokens are reported as prompt_tokens_details.cached_tokens
+     * by OpenAI-compatible servers, or as timings.cache_n by llama.cpp.
+     */
+    private UsageStats parseUsage(JsonNode responseJson) {
+        JsonNode usageNode = responseJson.path("usage");
+        if (!usageNode.isObject()) {
+            return null;
+        }
+        int cached = usageNode.path("prompt_tokens_details").path("cached_tokens")
+                .asInt(responseJson.path("timings").path("cache_n").asInt(0));
+        return new UsageStats(
+                usageNode.path("prompt_tokens").asInt(),
+                usageNode.path("completion_tokens").asInt(),
+                usageNode.path("total_tokens").asInt(),
+                cached
+        );
+    }
+
+    private LLMException statusException(Response response, String responseBody) {
+        long retryAfterMs = LLMException.parseRetryAfter(response.header("retry-after-ms"), response.header("Retry-After"));
+        return new LLMException("API returned status code: " + response.code() + " with body: " + responseBody,
+                response.code(), retryAfterMs, null);
+    }
+
+    /**
+     * Quick {@code /models} round trip, for health checks.
+     */
+    public boolean isHealthy(long timeoutMs) {
+        Request request = new Request.Builder()
+                .url(endpoint + "/models")
+                .header("Accept", "application/json")
+                .header("User-Agent", "Java-OkHttp-Client")
+                .get()
+                .build();
+        OkHttpClient probeClient = httpClient.newBuilder()
+                .callTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+        try (Response response = probeClient.newCall(request).execute()) {
+            return response.isSuccessful();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
     public List<String> getAvailableModels() {
         try {
             Request request = new Request.Builder()
@@ -182,6 +331,9 @@ public class LocalLLMClient implements LLMClient {
 
     @Override
     public void shutdown() {
+        if (!ownsHttpClient) {
+            return;
+        }
         // Close the connection pool
         httpClient.dispatcher().executorService().shutdown();
         httpClient.connectionPool().evictAll();
@@ -1,25 +1,44 @@
 package com.cvmaker.service.ai;
 
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openai.client.okhttp.OpenAIOkHttpClient;
+import com.openai.core.JsonValue;
+import com.openai.core.http.StreamResponse;
+import com.openai.errors.OpenAIIoException;
+import com.openai.errors.OpenAIServiceException;
+import com.openai.models.ResponseFormatJsonSchema;
 import com.openai.models.chat.completions.ChatCompletion;
+import com.openai.models.chat.completions.ChatCompletionChunk;
 import com.openai.models.chat.completions.ChatCompletionCreateParams;
+import com.openai.models.chat.completions.ChatCompletionStreamOptions;
+import com.openai.models.completions.CompletionUsage;
 
 public class OpenAIClient implements LLMClient {
 
+    private static final ObjectMapper SCHEMA_READER = new ObjectMapper();
+
     private final com.openai.client.OpenAIClient client;
 
     public OpenAIClient() {
         //TODO: grab from .env file instead
-        this.client = OpenAIOkHttpClient.fromEnv();
+        // Retries are handled by RetryingLLMClient so they share the rate limiter
+        this.client = OpenAIOkHttpClient.builder()
+                .fromEnv()
+                .maxRetries(0)
+                .build();
     }
 
     @Override
     public LLMResponse complete(LLMRequest request) {
         try {
-            ChatCompletionCreateParams params = ChatCompletionCreateParams.builder()
+            ChatCompletionCreateParams params = withStopSequences(withResponseFormat(ChatCompletionCreateParams.builder(), request), request)
                     .addUserMessage(request.getPrompt())
                     .model(request.getModel())
                     .temperature(request.getTemperature())
+                    .maxCompletionTokens(request.getMaxTokens())
                     .build();
 
             ChatCompletion completion = client.chat().completions().create(params);
@@ -33,18 +52,131 @@ public class OpenAIClient implements LLMClient {
 
             return LLMResponse.builder()
                     .content(responseContent.get())
-                    .usage(new UsageStats(
-                            (int) usage.promptTokens(),
-                            (int) usage.completionTokens(),
-                            (int) usage.totalTokens()))
+                    .usage(toUsageStats(usage))
                     .model(request.getModel())
                     .build();
 
+        } catch (OpenAIServiceException e) {
+            throw toLLMException(e);
+        } catch (OpenAIIoException e) {
+            throw new LLMException("OpenAI API call failed: " + e.getMessage(), e);
         } catch (Exception e) {
             throw new RuntimeException("OpenAI API call failed: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Structured outputs: with a schema on the request the API only returns
+     * JSON that validates against it.
+     */
+    private static ChatCompletionCreateParams.Builder withResponseFormat(ChatCompletionCreateParams.Builder builder,
+            LLMRequest request) throws IOException {
+        ResponseSchema schema = request.getResponseSchema();
+        if (schema == null) {
+            return builder;
+        }
+
+        ResponseFormatJsonSchema.JsonSchema.Schema.Builder schemaBuilder = ResponseFormatJsonSchema.JsonSchema.Schema.builder();
+        SCHEMA_READER.readTree(schema.json()).properties()
+                .forEach(entry -> schemaBuilder.putAdditionalProperty(entry.getKey(), JsonValue.fromJsonNode(entry.getValue())));
+
+        return builder.responseFormat(ResponseFormatJsonSchema.builder()
+                .jsonSchema(ResponseFormatJsonSchema.JsonSchema.builder()
+                        .name(schema.name())
+                        .schema(schemaBuilder.build())
+                        .strict(true)
+                        .build())
+                .build());
+    }
+
+    private static ChatCompletionCreateParams.Builder withStopSequences(ChatCompletionCreateParams.Builder builder,
+            LLMRequest request) {
+        return request.getStopSequences().isEmpty() ? builder : builder.stopOfStrings(request.getStopSequences());
+    }
+
+    private static UsageStats toUsageStats(CompletionUsage usage) {
+        long cached = usage.promptTokensDetails()
+                .flatMap(details -> details.cachedTokens())
+                .orElse(0L);
+        return new UsageStats(
+                (int) usage.promptTokens(),
+                (int) usage.completionTokens(),
+                (int) usage.totalTokens(),
+                (int) cached);
+    }
+
+    @Override
+    public LLMResponse stream(LLMRequest request, Consumer<String> onToken) {
+        try {
+            ChatCompletionCreateParams params = withStopSequences(withResponseFormat(ChatCompletionCreateParams.builder(), request), request)
+                    .addUserMessage(request.getPrompt())
+                    .model(request.getModel())
+                    .temperature(request.getTemperature())
+                    .maxCompletionTokens(request.getMaxTokens())
+                    .streamOptions(ChatCompletionStreamOptions.builder().includeUsage(true).build())
+                    .build();
+
+            long startTime = System.currentTimeMillis();
+            long firstTokenAt = -1;
+            StringBuilder content = new StringBuilder();
+            CompletionUsage usage = null;
+            boolean stoppedEarly = false;
+
+            // Leaving the try closes the stream, which cancels the HTTP call
+            try (StreamResponse<ChatCompletionChunk> response = client.chat().completions().createStreaming(params)) {
+                var chunks = response.stream().iterator();
+                while (chunks.hasNext()) {
+                    ChatCompletionChunk chunk = chunks.next();
+                    if (chunk.usage().isPresent()) {
+                        usage = chunk.usage().get();
+                    }
+                    for (ChatCompletionChunk.Choice choice : chunk.choices()) {
+                        String token = choice.delta().content().orElse("");
+                        if (token.isEmpty()) {
+                            continue;
+                        }
+                        if (firstTokenAt < 0) {
+                            firstTokenAt = System.currentTimeMillis() - startTime;
+                        }
+                        content.append(token);
+                        onToken.accept(token);
+                    }
+                }
+            } catch (StopGeneration e) {
+                stoppedEarly = true;
+            }
+
+            if (content.length() == 0) {
+                throw new RuntimeException("Empty response from OpenAI API");
+            }
+
+            UsageStats usageStats = usage != null ? toUsageStats(usage)
+                    : stoppedEarly ? TokenCounter.estimateUsage(request, content.toString()) : null;
+            return LLMResponse.builder()
+                    .content(content.toString())
+                    .usage(usageStats)
+                    .model(request.getModel())
+                    .timeToFirstTokenMs(firstTokenAt)
+                    .stoppedEarly(stoppedEarly)
+                    .build();
+
+        } catch (OpenAIServiceException e) {
+            throw toLLMException(e);
+        } catch (OpenAIIoException e) {
+            throw new LLMException("OpenAI streaming call failed: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("OpenAI streaming call failed: " + e.getMessage(), e);
+        }
+    }
+
+    private LLMException toLLMException(OpenAIServiceException e) {
+        long retryAfterMs = LLMException.parseRetryAfter(
+                e.headers().values("retry-after-ms").stream().findFirst().orElse(null),
+                e.headers().values("retry-after").stream().findFirst().orElse(null));
+        return new LLMException("OpenAI API returned status " + e.statusCode() + ": " + e.getMessage(),
+                e.statusCode(), retryAfterMs, e);
+    }
+
     @Override
     public void shutdown() {
         try {
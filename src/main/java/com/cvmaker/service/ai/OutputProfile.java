@@ -0,0 +1,44 @@
+package com.cvmaker.service.ai;
+
+import java.util.List;
+
+/**
+ * How long a task's answer may run and where generation should stop. Caps
+ * sit just above the longest answer each task legitimately produces, and
+ * stop sequences end generation at the point where the useful answer is
+ * complete, so nothing is paid for commentary that would be thrown away.
+ */
+public enum OutputProfile {
+
+    // A full LaTeX CV runs to several thousand tokens
+    CV(8192, List.of(OutputProfile.END_DOCUMENT)),
+    COVER_LETTER(4096, List.of(OutputProfile.END_DOCUMENT)),
+    // Schema-bound JSON; the classification plus its detail fields
+    EMAIL_CLASSIFICATION(512, List.of()),
+    // A single value; models that explain themselves do so after a blank line
+    FORM_FIELD(256, List.of("\n\nNote:", "\n\nExplanation:")),
+    FORM_ANALYSIS(2048, List.of()),
+    DEFAULT(2048, List.of());
+
+    /**
+     * Stop sequence for LaTeX documents. Providers drop the stop sequence
+     * from the answer, so {@link AiService#extractLatexFromResponse} puts it back.
+     */
+    public static final String END_DOCUMENT = "\\end{document}";
+
+    private final int maxTokens;
+    private final List<String> stopSequences;
+
+    OutputProfile(int maxTokens, List<String> stopSequences) {
+        this.maxTokens = maxTokens;
+        this.stopSequences = stopSequences;
+    }
+
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    public List<String> getStopSequences() {
+        return stopSequences;
+    }
+}
@@ -0,0 +1,110 @@
+package com.cvmaker.service.ai;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Assembles a prompt from labelled segments, ordered from most to least
+ * stable so that repeated calls share the longest possible prefix. Providers
+ * with prompt caching (and llama.cpp / LM Studio KV-cache reuse) only skip
+ * work for an identical prefix, so anything that changes per job belongs last.
+ */
+public class PromptBuilder {
+
+    public enum Stability {
+        /** Identical across every call, e.g. candidate data */
+        STATIC,
+        /** Shared by calls of one kind, e.g. the template or task instructions */
+        TASK,
+        /** Changes on every call, e.g. the job description */
+        REQUEST
+    }
+
+    private record Segment(Stability stability, String label, String content) {
+
+        Segment withContent(String content) {
+            return new Segment(stability, label, content);
+        }
+
+        String render() {
+            return (label != null ? label + ":\n" : "") + content + "\n\n";
+        }
+    }
+
+    private final List<Segment> segments = new ArrayList<>();
+
+    public static PromptBuilder create() {
+        return new PromptBuilder();
+    }
+
+    public PromptBuilder add(Stability stability, String label, String content) {
+        if (content != null && !content.trim().isEmpty()) {
+            segments.add(new Segment(stability, label, content));
+        }
+        return this;
+    }
+
+    public PromptBuilder staticSegment(String label, String content) {
+        return add(Stability.STATIC, label, content);
+    }
+
+    public PromptBuilder taskSegment(String label, String content) {
+        return add(Stability.TASK, label, content);
+    }
+
+    public PromptBuilder requestSegment(String label, String content) {
+        return add(Stability.REQUEST, label, content);
+    }
+
+    /**
+     * Segments are sorted by stability; within one level they keep the
+     * order they were added in (the sort is stable).
+     */
+    public String build() {
+        StringBuilder prompt = new StringBuilder();
+        segments.stream()
+                .sorted(Comparator.comparing(Segment::stability))
+                .forEach(segment -> prompt.append(segment.render()));
+        return prompt.toString();
+    }
+
+    /**
+     * Build within {@code tokenBudget} tokens (0 for no limit). Segments are
+     * trimmed least stable first, largest first within a level, so a long
+     * job description gives way before the candidate data or template does
+     * and the cached prefix survives.
+     */
+    public String build(String model, int tokenBudget) {
+        if (tokenBudget <= 0) {
+            return build();
+        }
+        int excess = TokenCounter.count(model, build()) - tokenBudget;
+        if (excess <= 0) {
+            return build();
+        }
+
+        List<Integer> trimOrder = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            trimOrder.add(i);
+        }
+        trimOrder.sort(Comparator
+                .comparing((Integer i) -> segments.get(i).stability()).reversed()
+                .thenComparing(i -> -TokenCounter.count(model, segments.get(i).content())));
+
+        for (int index : trimOrder) {
+            if (excess <= 0) {
+                break;
+            }
+            Segment segment = segments.get(index);
+            int size = TokenCounter.count(model, segment.content());
+            int keep = Math.max(0, size - excess);
+            segments.set(index, segment.withContent(TokenCounter.truncate(model, segment.content(), keep)));
+            excess -= size - keep;
+        }
+
+        String prompt = build();
+        System.out.printf("✂️ Prompt trimmed to %d tokens (budget %d)\n", TokenCounter.count(model, prompt), tokenBudget);
+        return prompt;
+    }
+}
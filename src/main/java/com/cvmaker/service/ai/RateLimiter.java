@@ -0,0 +1,75 @@
+package com.cvmaker.service.ai;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Shared requests-per-minute and tokens-per-minute limits for each provider.
+ * Token spend is estimated before the call and reconciled against the
+ * {@link UsageStats} the provider reports afterwards.
+ */
+public class RateLimiter {
+
+    private static final RateLimiter INSTANCE = new RateLimiter();
+
+    private final Map<LLMProvider, TokenBucket> requestBuckets = new EnumMap<>(LLMProvider.class);
+    private final Map<LLMProvider, TokenBucket> tokenBuckets = new EnumMap<>(LLMProvider.class);
+
+    private RateLimiter() {
+        configure(LLMProvider.OPENAI, 500, 200_000);
+    }
+
+    public static RateLimiter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Set the quota for a provider. Zero or negative leaves that dimension
+     * unlimited.
+     */
+    public synchronized void configure(LLMProvider provider, long requestsPerMinute, long tokensPerMinute) {
+        if (requestsPerMinute > 0) {
+            requestBuckets.put(provider, new TokenBucket(requestsPerMinute));
+        } else {
+            requestBuckets.remove(provider);
+        }
+        if (tokensPerMinute > 0) {
+            tokenBuckets.put(provider, new TokenBucket(tokensPerMinute));
+        } else {
+            tokenBuckets.remove(provider);
+        }
+    }
+
+    public void acquire(LLMProvider provider, long estimatedTokens) throws InterruptedException {
+        TokenBucket requests;
+        TokenBucket tokens;
+        synchronized (this) {
+            requests = requestBuckets.get(provider);
+            tokens = tokenBuckets.get(provider);
+        }
+        if (requests != null) {
+            requests.acquire(1);
+        }
+        if (tokens != null) {
+            tokens.acquire(estimatedTokens);
+        }
+    }
+
+    public void recordUsage(LLMProvider provider, long estimatedTokens, UsageStats usage) {
+        if (usage == null || usage.getCacheHits() > 0) {
+            return;
+        }
+        TokenBucket tokens;
+        synchronized (this) {
+            tokens = tokenBuckets.get(provider);
+        }
+        if (tokens != null) {
+            tokens.adjust(usage.getTotalTokens() - estimatedTokens);
+        }
+    }
+
+    public static long estimateTokens(LLMRequest request) {
+        // Providers charge the quota for prompt plus the requested completion budget
+        return TokenCounter.count(request.getModel(), request.getPrompt()) + request.getMaxTokens();
+    }
+}
@@ -0,0 +1,60 @@
+package com.cvmaker.service.ai;
+
+import java.util.function.Consumer;
+
+/**
+ * Passes calls through to a live client and tees each request/response pair,
+ * with its latency and time to first token, into an {@link LLMCorpus}. Sits
+ * directly over the network client, so what is recorded is one attempt as
+ * the provider served it.
+ */
+public class RecordingLLMClient implements LLMClient {
+
+    private final LLMClient delegate;
+    private final LLMCorpus corpus;
+
+    public RecordingLLMClient(LLMClient delegate, LLMCorpus corpus) {
+        this.delegate = delegate;
+        this.corpus = corpus;
+    }
+
+    @Override
+    public LLMResponse complete(LLMRequest request) {
+        long start = System.nanoTime();
+        LLMResponse response = delegate.complete(request);
+        record(request, response, false, (System.nanoTime() - start) / 1_000_000);
+        return response;
+    }
+
+    @Override
+    public LLMResponse stream(LLMRequest request, Consumer<String> onToken) {
+        long start = System.nanoTime();
+        LLMResponse response = delegate.stream(request, onToken);
+        record(request, response, true, (System.nanoTime() - start) / 1_000_000);
+        return response;
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    private void record(LLMRequest request, LLMResponse response, boolean streamed, long latencyMs) {
+        // A cut-short answer is not the answer to the request
+        if (response.isStoppedEarly()) {
+            return;
+        }
+        UsageStats usage = response.getUsage();
+        corpus.append(new LLMCorpus.Entry(
+                LLMResponseCache.keyFor(request),
+                request.getModel(),
+                request.getCallSite(),
+                streamed,
+                response.getContent(),
+                usage != null ? usage.getPromptTokens() : 0,
+                usage != null ? usage.getCompletionTokens() : 0,
+                usage != null ? usage.getCachedPromptTokens() : 0,
+                latencyMs,
+                response.getTimeToFirstTokenMs()));
+    }
+}
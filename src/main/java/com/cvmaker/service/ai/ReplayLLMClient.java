@@ -0,0 +1,216 @@
+package com.cvmaker.service.ai;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves calls from an {@link LLMCorpus} without touching the network, for
+ * load tests on machines with no API access. Recorded answers come back
+ * after their recorded latency times {@code latencyScale}; streams are
+ * paced to the recorded time to first token and spread over the rest.
+ * Prompts that were never recorded get a synthetic answer shaped for their
+ * call site, timed like a recorded call from the same site. One instance
+ * serves every model, so a corpus is loaded once.
+ */
+public class ReplayLLMClient implements LLMClient {
+
+    private static final long DEFAULT_LATENCY_MS = 1000;
+    private static final Pattern BATCH_EMAIL_ID = Pattern.compile("(?m)^ID: (\\S+)$");
+
+    private final Map<String, List<LLMCorpus.Entry>> byKey = new HashMap<>();
+    private final Map<String, List<LLMCorpus.Entry>> byCallSite = new HashMap<>();
+    private final List<LLMCorpus.Entry> all;
+    private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+    private final double latencyScale;
+    private final Random random = new Random(42);
+
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong synthesized = new AtomicLong();
+    private final AtomicBoolean shutdown = new AtomicBoolean();
+
+    public ReplayLLMClient(LLMCorpus corpus, double latencyScale) {
+        this.latencyScale = latencyScale;
+        this.all = corpus.load();
+        for (LLMCorpus.Entry entry : all) {
+            byKey.computeIfAbsent(entry.key(), key -> new ArrayList<>()).add(entry);
+            byCallSite.computeIfAbsent(entry.callSite(), site -> new ArrayList<>()).add(entry);
+        }
+        System.out.printf("📼 Replaying %d recorded calls from %s (latency x%.2f)\n",
+                all.size(), corpus.getFile(), latencyScale);
+    }
+
+    @Override
+    public LLMResponse complete(LLMRequest request) {
+        LLMCorpus.Entry entry = lookup(request);
+        sleep(scaled(entry.latencyMs()));
+        return toResponse(request, entry, -1, false);
+    }
+
+    @Override
+    public LLMResponse stream(LLMRequest request, Consumer<String> onToken) {
+        LLMCorpus.Entry entry = lookup(request);
+        long start = System.currentTimeMillis();
+        long ttft = scaled(entry.timeToFirstTokenMs() >= 0 ? entry.timeToFirstTokenMs() : entry.latencyMs() / 10);
+        long decode = Math.max(0, scaled(entry.latencyMs()) - ttft);
+
+        List<String> chunks = chunk(entry.content());
+        StringBuilder content = new StringBuilder();
+        boolean stoppedEarly = false;
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                sleep(start + ttft + decode * i / Math.max(1, chunks.size() - 1) - System.currentTimeMillis());
+                content.append(chunks.get(i));
+                onToken.accept(chunks.get(i));
+            }
+        } catch (StopGeneration e) {
+            stoppedEarly = true;
+        }
+
+        if (stoppedEarly) {
+            return LLMResponse.builder()
+                    .content(content.toString())
+                    .usage(TokenCounter.estimateUsage(request, content.toString()))
+                    .model(request.getModel())
+                    .timeToFirstTokenMs(ttft)
+                    .stoppedEarly(true)
+                    .build();
+        }
+        return toResponse(request, entry, ttft, false);
+    }
+
+    @Override
+    public void shutdown() {
+        // Shared by every model's client stack, so this runs once per stack
+        if (!shutdown.compareAndSet(false, true)) {
+            return;
+        }
+        System.out.printf("📼 Replay: %d calls answered from the corpus, %d synthesized\n",
+                replayed.get(), synthesized.get());
+    }
+
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    public long getSynthesized() {
+        return synthesized.get();
+    }
+
+    /**
+     * Recordings of the same request are served in turn, so a prompt
+     * recorded several times replays its spread of answers and latencies.
+     */
+    private LLMCorpus.Entry lookup(LLMRequest request) {
+        String key = LLMResponseCache.keyFor(request);
+        List<LLMCorpus.Entry> recorded = byKey.get(key);
+        if (recorded != null) {
+            replayed.incrementAndGet();
+            int next = cursors.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+            return recorded.get(next % recorded.size());
+        }
+        synthesized.incrementAndGet();
+        return synthesize(request, key);
+    }
+
+    private LLMCorpus.Entry synthesize(LLMRequest request, String key) {
+        String content = syntheticContent(request);
+        List<LLMCorpus.Entry> siblings = byCallSite.getOrDefault(request.getCallSite(), all);
+        long latencyMs = DEFAULT_LATENCY_MS;
+        long ttft = -1;
+        if (!siblings.isEmpty()) {
+            LLMCorpus.Entry sample;
+            synchronized (random) {
+                sample = siblings.get(random.nextInt(siblings.size()));
+            }
+            latencyMs = sample.latencyMs();
+            ttft = sample.timeToFirstTokenMs();
+        }
+        return new LLMCorpus.Entry(key, request.getModel(), request.getCallSite(), false, content,
+                TokenCounter.count(request.getModel(), request.getPrompt()),
+                TokenCounter.count(request.getModel(), content), 0, latencyMs, ttft);
+    }
+
+    /**
+     * The smallest answer each call site's parser accepts.
+     */
+    private String syntheticContent(LLMRequest request) {
+        return switch (request.getCallSite()) {
+            case "email-classify" -> syntheticClassification(request.getPrompt());
+            case "cv" -> """
+                    \\documentclass{article}
+                    \\begin{document}
+                    Synthetic replay document.
+                    \\end{document}
+                    """;
+            case "form-analyze" -> "{}";
+            default -> "Synthetic replay response.";
+        };
+    }
+
+    private String syntheticClassification(String prompt) {
+        Matcher ids = BATCH_EMAIL_ID.matcher(prompt);
+        List<String> objects = new ArrayList<>();
+        while (ids.find()) {
+            objects.add("{\"emailId\": \"" + ids.group(1) + "\", \"isJobRelated\": false, \"confidenceScore\": 0.9}");
+        }
+        if (objects.isEmpty()) {
+            return "{\"isJobRelated\": false, \"confidenceScore\": 0.9}";
+        }
+        return "[" + String.join(", ", objects) + "]";
+    }
+
+    private LLMResponse toResponse(LLMRequest request, LLMCorpus.Entry entry, long timeToFirstTokenMs, boolean stoppedEarly) {
+        return LLMResponse.builder()
+                .content(entry.content())
+                .usage(new UsageStats(entry.promptTokens(), entry.completionTokens(),
+                        entry.promptTokens() + entry.completionTokens(), entry.cachedPromptTokens()))
+                .model(request.getModel())
+                .timeToFirstTokenMs(timeToFirstTokenMs)
+                .stoppedEarly(stoppedEarly)
+                .build();
+    }
+
+    /**
+     * Word-sized pieces, whitespace kept, standing in for tokens.
+     */
+    private List<String> chunk(String content) {
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i < content.length(); i++) {
+            if (Character.isWhitespace(content.charAt(i - 1)) && !Character.isWhitespace(content.charAt(i))) {
+                chunks.add(content.substring(start, i));
+                start = i;
+            }
+        }
+        if (start < content.length()) {
+            chunks.add(content.substring(start));
+        }
+        return chunks;
+    }
+
+    private long scaled(long ms) {
+        return Math.max(0, Math.round(ms * latencyScale));
+    }
+
+    private void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LLMException("Interrupted during replay", 0, -1, e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.cvmaker.service.ai;
+
+/**
+ * Who is waiting on a call, in the order {@link LLMScheduler} serves them.
+ */
+public enum RequestPriority {
+    /** A person is waiting on the answer, e.g. filling in a form. */
+    INTERACTIVE,
+    /** Part of a run someone started, e.g. generating a CV or syncing the mailbox. */
+    PIPELINE,
+    /** Catch-up work nobody is watching, e.g. re-analysing old emails. */
+    BACKFILL
+}
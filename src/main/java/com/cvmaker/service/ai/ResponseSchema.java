@@ -0,0 +1,8 @@
+package com.cvmaker.service.ai;
+
+/**
+ * JSON schema the model's answer must follow, sent to providers with a
+ * structured-output mode. {@code json} is the schema document itself.
+ */
+public record ResponseSchema(String name, String json) {
+}
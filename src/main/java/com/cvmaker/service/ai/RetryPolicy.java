@@ -0,0 +1,54 @@
+package com.cvmaker.service.ai;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry settings taken from ai.max_retries, ai.request_delay_ms and
+ * ai.timeout_seconds.
+ */
+public class RetryPolicy {
+
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    private final int maxRetries;
+    private final long baseDelayMs;
+    private final long attemptTimeoutMs;
+
+    public RetryPolicy(int maxRetries, long baseDelayMs, long attemptTimeoutMs) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.baseDelayMs = Math.max(1, baseDelayMs);
+        this.attemptTimeoutMs = attemptTimeoutMs;
+    }
+
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(3, 1000, 60_000);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getAttemptTimeoutMs() {
+        return attemptTimeoutMs;
+    }
+
+    /**
+     * Overall bound on one call: every attempt timing out, plus one more
+     * attempt's worth for queueing and backoff. 0 when attempts are unbounded.
+     */
+    public long getCallDeadlineMs() {
+        return attemptTimeoutMs <= 0 ? 0 : attemptTimeoutMs * (maxRetries + 2);
+    }
+
+    /**
+     * Honour Retry-After when given, otherwise exponential backoff with full
+     * jitter so concurrent callers do not retry in lockstep.
+     */
+    public long backoffMs(int attempt, LLMException failure) {
+        if (failure != null && failure.getRetryAfterMs() >= 0) {
+            return Math.min(failure.getRetryAfterMs(), MAX_BACKOFF_MS);
+        }
+        long ceiling = Math.min(MAX_BACKOFF_MS, baseDelayMs << Math.min(attempt, 16));
+        return ThreadLocalRandom.current().nextLong(baseDelayMs / 2, ceiling + 1);
+    }
+}
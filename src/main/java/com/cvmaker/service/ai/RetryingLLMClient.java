@@ -0,0 +1,147 @@
+package com.cvmaker.service.ai;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Queues every attempt in the provider's {@link LLMScheduler} and its
+ * {@link RateLimiter}, bounds each
+ * attempt with a timeout, and retries transient failures with backoff.
+ * Streams are only retried if no token has reached the caller yet, and
+ * their timeout is measured from the last token rather than the start.
+ */
+public class RetryingLLMClient implements LLMClient {
+
+    private final LLMClient delegate;
+    private final LLMProvider provider;
+    private final Supplier<RetryPolicy> policySupplier;
+    private final RateLimiter rateLimiter;
+    private final LLMScheduler scheduler;
+    private final ExecutorService executor;
+
+    public RetryingLLMClient(LLMClient delegate, LLMProvider provider, Supplier<RetryPolicy> policySupplier,
+            RateLimiter rateLimiter, LLMScheduler scheduler, ExecutorService executor) {
+        this.delegate = delegate;
+        this.provider = provider;
+        this.policySupplier = policySupplier;
+        this.rateLimiter = rateLimiter;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    @Override
+    public LLMResponse complete(LLMRequest request) {
+        LLMRequest fitted = TokenCounter.enforceBudget(request);
+        return execute(fitted, () -> delegate.complete(fitted), null, null);
+    }
+
+    @Override
+    public LLMResponse stream(LLMRequest request, Consumer<String> onToken) {
+        LLMRequest fitted = TokenCounter.enforceBudget(request);
+        AtomicBoolean emitted = new AtomicBoolean();
+        AtomicLong lastActivity = new AtomicLong();
+        Consumer<String> tracked = token -> {
+            emitted.set(true);
+            lastActivity.set(System.currentTimeMillis());
+            onToken.accept(token);
+        };
+        return execute(fitted, () -> delegate.stream(fitted, tracked), lastActivity, emitted);
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    private LLMResponse execute(LLMRequest request, Supplier<LLMResponse> call, AtomicLong lastActivity, AtomicBoolean emitted) {
+        RetryPolicy policy = policySupplier.get();
+        long estimatedTokens = RateLimiter.estimateTokens(request);
+
+        for (int attempt = 0; ; attempt++) {
+            LLMException failure;
+            try {
+                // The slot is held per attempt, not across backoff, so a retrying call never idles on one
+                scheduler.acquire(request.getPriority());
+                try {
+                    rateLimiter.acquire(provider, estimatedTokens);
+                    long attemptStart = System.currentTimeMillis();
+                    LLMResponse response = runWithTimeout(call, policy.getAttemptTimeoutMs(), lastActivity);
+                    rateLimiter.recordUsage(provider, estimatedTokens, response.getUsage());
+                    // The answering attempt alone, for the circuit breaker; the outer layers restamp it
+                    return response.toBuilder().promptLatency(System.currentTimeMillis() - attemptStart).build();
+                } finally {
+                    scheduler.release(request.getPriority());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LLMException("Interrupted while waiting for " + provider, 0, -1, e);
+            } catch (LLMException e) {
+                failure = e;
+            }
+
+            boolean partialOutput = emitted != null && emitted.get();
+            if (!failure.isRetryable() || partialOutput || attempt >= policy.getMaxRetries()) {
+                throw failure;
+            }
+
+            long backoff = policy.backoffMs(attempt, failure);
+            System.out.printf("🔁 %s call failed (%s), retry %d/%d in %dms\n",
+                    provider, failure.getMessage(), attempt + 1, policy.getMaxRetries(), backoff);
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw failure;
+            }
+        }
+    }
+
+    private LLMResponse runWithTimeout(Supplier<LLMResponse> call, long timeoutMs, AtomicLong lastActivity) throws InterruptedException {
+        Future<LLMResponse> future = executor.submit(call::get);
+        long start = System.currentTimeMillis();
+        if (lastActivity != null) {
+            lastActivity.set(start);
+        }
+
+        try {
+            while (true) {
+                long since = lastActivity != null ? lastActivity.get() : start;
+                long remaining = timeoutMs <= 0 ? Long.MAX_VALUE : since + timeoutMs - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    future.cancel(true);
+                    throw new LLMException(provider + " call timed out after " + timeoutMs + "ms", new TimeoutException());
+                }
+                try {
+                    return future.get(remaining, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // Streams extend their deadline while tokens keep arriving; re-check
+                }
+            }
+        } catch (ExecutionException e) {
+            throw toLLMException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    static LLMException toLLMException(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof LLMException llmException) {
+                return llmException;
+            }
+            if (t instanceof IOException) {
+                return new LLMException(error.getMessage(), error);
+            }
+        }
+        return new LLMException(error.getMessage(), 0, -1, error);
+    }
+}
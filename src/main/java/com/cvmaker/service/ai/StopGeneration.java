@@ -0,0 +1,15 @@
+package com.cvmaker.service.ai;
+
+/**
+ * Thrown from a stream's token consumer to end generation once the caller
+ * has what it needs. Clients close the HTTP stream and return the content so
+ * far, flagged {@link LLMResponse#isStoppedEarly()}.
+ */
+public class StopGeneration extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public StopGeneration() {
+        super("Generation stopped by caller", null, false, false);
+    }
+}
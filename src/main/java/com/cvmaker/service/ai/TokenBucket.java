@@ -0,0 +1,58 @@
+package com.cvmaker.service.ai;
+
+/**
+ * Per-minute token bucket. Permits refill continuously; acquiring more than
+ * is available blocks until enough have refilled. The balance may go
+ * negative when actual usage turns out higher than the up-front estimate.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerMs;
+    private double available;
+    private long lastRefill;
+
+    public TokenBucket(long permitsPerMinute) {
+        this.capacity = permitsPerMinute;
+        this.refillPerMs = permitsPerMinute / 60_000.0;
+        this.available = permitsPerMinute;
+        this.lastRefill = System.currentTimeMillis();
+    }
+
+    public void acquire(long permits) throws InterruptedException {
+        // A single request larger than the whole bucket would otherwise wait forever
+        double wanted = Math.min(permits, capacity);
+        while (true) {
+            long waitMs;
+            synchronized (this) {
+                refill();
+                if (available >= wanted) {
+                    available -= wanted;
+                    return;
+                }
+                waitMs = (long) Math.ceil((wanted - available) / refillPerMs);
+            }
+            Thread.sleep(Math.max(1, waitMs));
+        }
+    }
+
+    /**
+     * Correct the balance once real usage is known; positive delta consumes
+     * more, negative gives permits back.
+     */
+    public synchronized void adjust(long delta) {
+        refill();
+        available = Math.min(capacity, available - delta);
+    }
+
+    public synchronized double getAvailable() {
+        refill();
+        return available;
+    }
+
+    private void refill() {
+        long now = System.currentTimeMillis();
+        available = Math.min(capacity, available + (now - lastRefill) * refillPerMs);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,153 @@
+package com.cvmaker.service.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+
+/**
+ * Counts and trims prompts with the same byte-pair encoding the OpenAI
+ * models use, so prompt size is known before anything is sent. Models
+ * without a known encoding (local ones) fall back to o200k_base, which is
+ * close enough for budgeting.
+ */
+public final class TokenCounter {
+
+    private static final EncodingRegistry REGISTRY = Encodings.newLazyEncodingRegistry();
+    private static final Encoding DEFAULT_ENCODING = REGISTRY.getEncoding(EncodingType.O200K_BASE);
+    private static final Map<String, Encoding> ENCODINGS_BY_MODEL = new ConcurrentHashMap<>();
+
+    private static final String TRIM_MARKER = " [...]";
+    private static final String SECTION_SEPARATOR = "\n\n";
+
+    private TokenCounter() {
+    }
+
+    public static int count(String text) {
+        return count(null, text);
+    }
+
+    public static int count(String model, String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return encodingFor(model).countTokensOrdinary(text);
+    }
+
+    public static String truncate(String text, int maxTokens) {
+        return truncate(null, text, maxTokens);
+    }
+
+    /**
+     * Cut {@code text} to at most {@code maxTokens}, marking the cut.
+     */
+    public static String truncate(String model, String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        if (maxTokens <= 0) {
+            return "";
+        }
+        Encoding encoding = encodingFor(model);
+        EncodingResult result = encoding.encodeOrdinary(text, maxTokens);
+        if (!result.isTruncated()) {
+            return text;
+        }
+        // Leave room for the marker itself
+        int room = Math.max(0, maxTokens - encoding.countTokensOrdinary(TRIM_MARKER));
+        return encoding.decode(encoding.encodeOrdinary(text, room).getTokens()) + TRIM_MARKER;
+    }
+
+    /**
+     * Bring a prompt within {@code budget} tokens without touching its
+     * framing: the prompt is split into blank-line separated sections, the
+     * first (task statement) and last (output instructions) are kept whole,
+     * and the largest of the rest are trimmed until it fits.
+     */
+    public static String fitToBudget(String model, String prompt, int budget) {
+        if (budget <= 0 || prompt == null) {
+            return prompt;
+        }
+        int total = count(model, prompt);
+        if (total <= budget) {
+            return prompt;
+        }
+
+        List<String> sections = new ArrayList<>(List.of(prompt.split(SECTION_SEPARATOR, -1)));
+        if (sections.size() < 3) {
+            return truncate(model, prompt, budget);
+        }
+
+        // Token counts of the pieces can drift from the joined count at the seams, so re-check
+        for (int pass = 0; pass < 3 && total > budget; pass++) {
+            int excess = total - budget;
+            while (excess > 0) {
+                int largest = largestMiddleSection(model, sections);
+                if (largest < 0) {
+                    break;
+                }
+                String section = sections.get(largest);
+                int size = count(model, section);
+                int keep = Math.max(0, size - excess);
+                sections.set(largest, keep == 0 ? TRIM_MARKER.trim() : truncate(model, section, keep));
+                excess -= size - keep;
+            }
+            total = count(model, String.join(SECTION_SEPARATOR, sections));
+        }
+
+        String fitted = String.join(SECTION_SEPARATOR, sections);
+        System.out.printf("✂️ Prompt trimmed to %d tokens (budget %d)\n", count(model, fitted), budget);
+        return fitted;
+    }
+
+    /**
+     * Apply the request's input budget, if it has one.
+     */
+    public static LLMRequest enforceBudget(LLMRequest request) {
+        if (request.getInputTokenBudget() <= 0) {
+            return request;
+        }
+        String fitted = fitToBudget(request.getModel(), request.getPrompt(), request.getInputTokenBudget());
+        if (fitted.equals(request.getPrompt())) {
+            return request;
+        }
+        return request.toBuilder().prompt(fitted).build();
+    }
+
+    /**
+     * Usage counted locally, for a call the provider never reported on
+     * (e.g. a stream cut short).
+     */
+    public static UsageStats estimateUsage(LLMRequest request, String completion) {
+        int promptTokens = count(request.getModel(), request.getPrompt());
+        int completionTokens = count(request.getModel(), completion);
+        return new UsageStats(promptTokens, completionTokens, promptTokens + completionTokens);
+    }
+
+    private static int largestMiddleSection(String model, List<String> sections) {
+        int largest = -1;
+        int largestSize = 0;
+        for (int i = 1; i < sections.size() - 1; i++) {
+            int size = count(model, sections.get(i));
+            if (size > largestSize) {
+                largest = i;
+                largestSize = size;
+            }
+        }
+        return largest;
+    }
+
+    private static Encoding encodingFor(String model) {
+        if (model == null) {
+            return DEFAULT_ENCODING;
+        }
+        return ENCODINGS_BY_MODEL.computeIfAbsent(model,
+                name -> REGISTRY.getEncodingForModel(name).orElse(DEFAULT_ENCODING));
+    }
+}
@@ -4,14 +4,49 @@ public class UsageStats {
     private final int promptTokens;
     private final int completionTokens;
     private final int totalTokens;
+    private final int cachedPromptTokens;
+    private final long cacheHits;
+    private final long cacheMisses;
 
     public UsageStats(int promptTokens, int completionTokens, int totalTokens) {
+        this(promptTokens, completionTokens, totalTokens, 0, 0, 0);
+    }
+
+    public UsageStats(int promptTokens, int completionTokens, int totalTokens, int cachedPromptTokens) {
+        this(promptTokens, completionTokens, totalTokens, cachedPromptTokens, 0, 0);
+    }
+
+    public UsageStats(int promptTokens, int completionTokens, int totalTokens, long cacheHits, long cacheMisses) {
+        this(promptTokens, completionTokens, totalTokens, 0, cacheHits, cacheMisses);
+    }
+
+    /**
+     * @param cachedPromptTokens prompt tokens the provider served from its own
+     *                           prefix cache (distinct from our response cache hits)
+     */
+    public UsageStats(int promptTokens, int completionTokens, int totalTokens, int cachedPromptTokens,
+                      long cacheHits, long cacheMisses) {
         this.promptTokens = promptTokens;
         this.completionTokens = completionTokens;
         this.totalTokens = totalTokens;
+        this.cachedPromptTokens = cachedPromptTokens;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
     }
 
     public int getPromptTokens() { return promptTokens; }
     public int getCompletionTokens() { return completionTokens; }
     public int getTotalTokens() { return totalTokens; }
-}
\ No newline at end of file
+    public int getCachedPromptTokens() { return cachedPromptTokens; }
+    public long getCacheHits() { return cacheHits; }
+    public long getCacheMisses() { return cacheMisses; }
+
+    public double getCacheHitRate() {
+        long lookups = cacheHits + cacheMisses;
+        return lookups == 0 ? 0.0 : (double) cacheHits / lookups;
+    }
+
+    public double getCachedPromptRatio() {
+        return promptTokens == 0 ? 0.0 : (double) cachedPromptTokens / promptTokens;
+    }
+}
@@ -0,0 +1,124 @@
+package com.cvmaker.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+
+import org.junit.Test;
+
+/**
+ * Parses the bundled templates, so a change to a template or to the parser
+ * that degrades the iText output shows up here.
+ */
+public class LatexCvParserTest {
+
+    @Test
+    public void parsesClassicTemplate() throws IOException {
+        CvDocument cv = parseTemplate("classic");
+
+        assertEquals("John Doe", cv.name());
+        assertEquals(1, cv.headerLines().size());
+        assertTrue(cv.headerLines().get(0).startsWith("Your Location | youremail@yourdomain.com"));
+        assertEquals(List.of("Welcome to RenderCV!", "Quick Guide", "Education", "Experience", "Publications",
+                "Projects", "Technologies"), titles(cv));
+
+        assertEquals(new CvDocument.Entry("University of Pennsylvania", List.of("BS in Computer Science"),
+                List.of("Sept 2000 – May 2005")), entries(cv, "Education").get(0));
+
+        List<CvDocument.Entry> experience = entries(cv, "Experience");
+        assertEquals(2, experience.size());
+        assertEquals(new CvDocument.Entry("Software Engineer", List.of("Apple"),
+                List.of("Cupertino, CA", "June 2005 – Aug 2007")), experience.get(0));
+        assertEquals("Software Engineer Intern", experience.get(1).title());
+        assertEquals(8, bullets(cv, "Experience").size());
+        assertEquals("Reduced time to render user buddy lists by 75% by implementing a prediction algorithm",
+                bullets(cv, "Experience").get(0));
+
+        assertEquals(List.of("Multi-User Drawing Tool", "Synchronized Desktop Calendar", "Custom Operating System"),
+                entries(cv, "Projects").stream().map(CvDocument.Entry::title).toList());
+        assertEquals(List.of("Languages: C++, C, Java, Objective-C, C#, SQL, JavaScript",
+                "Technologies: .NET, Microsoft SQL Server, XCode, Interface Builder"), paragraphs(cv, "Technologies"));
+    }
+
+    @Test
+    public void parsesModernTemplate() throws IOException {
+        CvDocument cv = parseTemplate("modern");
+
+        assertEquals("Jack Sparrow", cv.name());
+        assertEquals(List.of("Captain"), cv.headerLines());
+        assertEquals(List.of("Short Resumé", "Degrees", "Programming", "Curriculum", "Certificates & Grants",
+                "Languages", "Publications", "Talks"), titles(cv).subList(1, titles(cv).size()));
+
+        assertEquals(new CvDocument.Entry("Captain of the Black Pearl",
+                List.of("Lead · East Indies", "Finally got the goddamn ship back."), List.of("2018–2021")),
+                entries(cv, "Short Resumé").get(0));
+        assertEquals(List.of("Captain", "Bucaneering", "Bucaneering"),
+                entries(cv, "Degrees").stream().map(CvDocument.Entry::title).toList());
+        assertEquals(List.of("M.A. · London"), entries(cv, "Degrees").get(1).details());
+        assertEquals(List.of("Captain of the Black Pearl", "Freelance Pirate"),
+                entries(cv, "Curriculum").stream().map(CvDocument.Entry::title).toList());
+        assertTrue(paragraphs(cv, "Languages").get(0).startsWith("English · C2 · mother tongue\nFrench"));
+    }
+
+    @Test
+    public void parsesProfessionalTemplate() throws IOException {
+        CvDocument cv = parseTemplate("professional");
+
+        assertEquals("John Doe", cv.name());
+        assertEquals(1, cv.headerLines().size());
+        assertTrue(cv.headerLines().get(0).endsWith("linkedin.com/in/yourusername | github.com/yourusername"));
+        assertEquals(List.of("Welcome to RenderCV!", "Quick Guide", "Education", "Experience", "Publications",
+                "Projects", "Technologies"), titles(cv));
+
+        assertEquals(new CvDocument.Entry("University of Pennsylvania, BS in Computer Science", List.of(),
+                List.of("Sept 2000 – May 2005")), entries(cv, "Education").get(0));
+        assertEquals(List.of("Software Engineer, Apple – Cupertino, CA", "Software Engineer Intern, Microsoft – Redmond, WA"),
+                entries(cv, "Experience").stream().map(CvDocument.Entry::title).toList());
+        assertEquals(List.of("June 2005 – Aug 2007"), entries(cv, "Experience").get(0).aside());
+        assertEquals(8, bullets(cv, "Experience").size());
+        assertEquals(4, bullets(cv, "Quick Guide").size());
+        assertEquals("Tools Used: C", bullets(cv, "Projects").get(bullets(cv, "Projects").size() - 1));
+    }
+
+    private static CvDocument parseTemplate(String template) throws IOException {
+        return LatexCvParser.parse(Files.readString(Path.of("templates", template, "template.tex")));
+    }
+
+    private static List<String> titles(CvDocument cv) {
+        return cv.sections().stream().map(CvDocument.Section::title).toList();
+    }
+
+    private static List<CvDocument.Block> blocks(CvDocument cv, String title) {
+        return cv.sections().stream()
+                .filter(section -> Objects.equals(section.title(), title))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No section " + title + " in " + titles(cv)))
+                .blocks();
+    }
+
+    private static List<CvDocument.Entry> entries(CvDocument cv, String title) {
+        return blocks(cv, title).stream()
+                .filter(CvDocument.Entry.class::isInstance)
+                .map(CvDocument.Entry.class::cast)
+                .toList();
+    }
+
+    private static List<String> bullets(CvDocument cv, String title) {
+        return blocks(cv, title).stream()
+                .filter(CvDocument.Bullet.class::isInstance)
+                .map(block -> ((CvDocument.Bullet) block).text())
+                .toList();
+    }
+
+    private static List<String> paragraphs(CvDocument cv, String title) {
+        return blocks(cv, title).stream()
+                .filter(CvDocument.Paragraph.class::isInstance)
+                .map(block -> ((CvDocument.Paragraph) block).text())
+                .toList();
+    }
+}
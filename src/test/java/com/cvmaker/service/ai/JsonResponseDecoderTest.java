@@ -0,0 +1,119 @@
+package com.cvmaker.service.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class JsonResponseDecoderTest {
+
+    @Test
+    public void decodesObjectInsideCodeFence() throws IOException {
+        Map<String, String> fields = JsonResponseDecoder.decodeFields(
+                "```json\n{\"company\": \"Acme\", \"position\": \"Engineer\"}\n```");
+
+        assertEquals("Acme", fields.get("company"));
+        assertEquals("Engineer", fields.get("position"));
+    }
+
+    @Test
+    public void skipsLeadingProse() throws IOException {
+        Map<String, String> fields = JsonResponseDecoder.decodeFields(
+                "Sure, here is the result:\n{\"isJobRelated\": true, \"status\": \"applied\"}\nLet me know!");
+
+        assertEquals("true", fields.get("isJobRelated"));
+        assertEquals("applied", fields.get("status"));
+    }
+
+    @Test
+    public void keepsBracesInsideStrings() throws IOException {
+        Map<String, String> fields = JsonResponseDecoder.decodeFields(
+                "{\"summary\": \"uses {braces} and \\\"}\\\" quotes\", \"next\": \"ok\"}");
+
+        assertEquals("uses {braces} and \"}\" quotes", fields.get("summary"));
+        assertEquals("ok", fields.get("next"));
+    }
+
+    @Test
+    public void joinsPlainArraysAndKeepsNullsAndNestedObjects() throws IOException {
+        Map<String, String> fields = JsonResponseDecoder.decodeFields(
+                "{\"skills\": [\"Java\", \"SQL\"], \"notes\": null, \"contact\": {\"name\": \"Jo\"}}");
+
+        assertEquals("Java, SQL", fields.get("skills"));
+        assertTrue(fields.containsKey("notes"));
+        assertNull(fields.get("notes"));
+        assertEquals("{\"name\":\"Jo\"}", fields.get("contact"));
+    }
+
+    @Test
+    public void reportsMissingObject() throws IOException {
+        assertFalse(JsonResponseDecoder.decodeObject("no json here", (name, value) -> {
+        }));
+        assertTrue(JsonResponseDecoder.decodeFields(null).isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMalformedObject() throws IOException {
+        JsonResponseDecoder.decodeFields("{\"a\": \"1\" \"b\": \"2\"}");
+    }
+
+    @Test
+    public void decodeObjectsSkipsMalformedMiddleElement() {
+        List<Map<String, String>> objects = JsonResponseDecoder.decodeObjects(
+                "```json\n[{\"id\": \"1\", \"note\": \"a } in text\"},\n"
+                + " {\"id\": \"2\" \"broken\": true},\n"
+                + " {\"id\": \"3\", \"nested\": {\"x\": 1}}]\n```");
+
+        assertEquals(2, objects.size());
+        assertEquals("1", objects.get(0).get("id"));
+        assertEquals("a } in text", objects.get(0).get("note"));
+        assertEquals("3", objects.get(1).get("id"));
+        assertEquals("{\"x\":1}", objects.get(1).get("nested"));
+    }
+
+    @Test
+    public void incrementalHandlesChunksSplitMidToken() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        JsonResponseDecoder.Incremental decoder = JsonResponseDecoder.incremental(fields::put);
+
+        for (String chunk : List.of("Here you go: ", "{\"comp", "any\": \"Ac", "me\", \"tit", "le\"", ": \"Dev\"}")) {
+            decoder.feed(chunk);
+        }
+
+        assertEquals(Map.of("company", "Acme", "title", "Dev"), fields);
+    }
+
+    @Test
+    public void incrementalWaitsForNumberSplitAcrossChunks() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        JsonResponseDecoder.Incremental decoder = JsonResponseDecoder.incremental(fields::put);
+
+        decoder.feed("{\"years\": 1");
+        assertFalse(fields.containsKey("years"));
+
+        decoder.feed("2, \"score\": 0.");
+        assertEquals("12", fields.get("years"));
+        assertFalse(fields.containsKey("score"));
+
+        decoder.feed("75}");
+        assertEquals("0.75", fields.get("score"));
+    }
+
+    @Test
+    public void incrementalSkipsNestedValuesAndStopsAtClose() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        JsonResponseDecoder.Incremental decoder = JsonResponseDecoder.incremental(fields::put);
+
+        decoder.feed("{\"meta\": {\"inner\": \"x\"}, \"tags\": [\"a\"], \"name\": \"Jo\"}");
+        decoder.feed("{\"after\": \"ignored\"}");
+
+        assertEquals(Map.of("name", "Jo"), fields);
+    }
+}